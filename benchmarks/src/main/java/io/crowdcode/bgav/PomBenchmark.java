@@ -0,0 +1,87 @@
+package io.crowdcode.bgav;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * reading and editing a synthetic POM, the edits alternate between two versions, so every invocation writes the POM.
+ * A BOM of the same size is edited like a release of all its namespace versions at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PomBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int dependencies;
+
+    private MavenHandler mavenHandler;
+    private XMLHandler xmlHandler;
+    private File pomfile;
+    private File bomfile;
+    private Map<String, String> bomVersions;
+    private Map<String, String> bomTicketVersions;
+    private String artifactId;
+    private String property;
+    private boolean toggle;
+
+    @Setup
+    public void setUp() throws Exception {
+        final SilentLog log = new SilentLog();
+        mavenHandler = SyntheticPom.mavenHandler(log);
+        xmlHandler = new XMLHandler(log, true, true, mavenHandler);
+        pomfile = SyntheticPom.write(dependencies);
+        // the last dependencies are the worst case for lookups
+        artifactId = SyntheticPom.artifactId(dependencies - 1);
+        property = SyntheticPom.property(dependencies - 2);
+        bomfile = SyntheticPom.write(dependencies, true);
+        // the managed dependencies with a version of their own, the others are edited by their property
+        bomVersions = new HashMap<>();
+        bomTicketVersions = new HashMap<>();
+        for (int i = 1; i < dependencies; i += 2) {
+            final String key = SyntheticPom.GROUP_ID + ":" + SyntheticPom.artifactId(i);
+            bomVersions.put(key, SyntheticPom.version(i));
+            bomTicketVersions.put(key, BgavVersion.parse(SyntheticPom.version(i)).withTicket("NCX-4711"));
+        }
+    }
+
+    @Benchmark
+    public Object getModel() throws Exception {
+        return mavenHandler.getModel(pomfile);
+    }
+
+    @Benchmark
+    public boolean alterDependency() throws Exception {
+        toggle = !toggle;
+        return xmlHandler.alterDependency(pomfile, SyntheticPom.GROUP_ID, artifactId, toggle ? "2.0.0-NCX-4711-SNAPSHOT" : "2.0.0-SNAPSHOT");
+    }
+
+    @Benchmark
+    public boolean alterBomDependencies() throws Exception {
+        toggle = !toggle;
+        return xmlHandler.alterDependencies(bomfile, XMLHandler.DependencySection.DEPENDENCY_MANAGEMENT, toggle ? bomTicketVersions : bomVersions);
+    }
+
+    @Benchmark
+    public boolean alterProperty() throws Exception {
+        toggle = !toggle;
+        return xmlHandler.alterProperty(pomfile, property, toggle ? "2.0.0-NCX-4711-SNAPSHOT" : "2.0.0-SNAPSHOT");
+    }
+}
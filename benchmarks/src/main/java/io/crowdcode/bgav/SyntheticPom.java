@@ -0,0 +1,103 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * synthetic POMs for the benchmarks: every second dependency has its version in a property, in a BOM the same holds
+ * for the managed dependencies
+ */
+final class SyntheticPom {
+
+    static final String GROUP_ID = "io.crowdcode.bench";
+
+    private SyntheticPom() {
+    }
+
+    static String artifactId(int index) {
+        return "dep-" + index;
+    }
+
+    static String version(int index) {
+        return "1." + index + ".0-SNAPSHOT";
+    }
+
+    static String property(int index) {
+        return artifactId(index) + ".version";
+    }
+
+    /**
+     * @param dependencies number of dependencies
+     * @return POM content
+     */
+    static String create(int dependencies) {
+        return create(dependencies, false);
+    }
+
+    /**
+     * @param dependencies number of dependencies
+     * @param bom true for a BOM declaring the dependencies in its dependency management
+     * @return POM content
+     */
+    static String create(int dependencies, boolean bom) {
+        final StringBuilder pom = new StringBuilder();
+        pom.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+                .append("    <modelVersion>4.0.0</modelVersion>\n")
+                .append("    <groupId>").append(GROUP_ID).append("</groupId>\n")
+                .append("    <artifactId>synthetic</artifactId>\n")
+                .append("    <version>1.0.0-SNAPSHOT</version>\n")
+                .append(bom ? "    <packaging>pom</packaging>\n" : "")
+                .append("    <properties>\n");
+        for (int i = 0; i < dependencies; i += 2) {
+            pom.append("        <").append(property(i)).append(">").append(version(i)).append("</").append(property(i)).append(">\n");
+        }
+        final String indent = bom ? "    " : "";
+        pom.append("    </properties>\n").append(bom ? "    <dependencyManagement>\n" : "").append(indent).append("    <dependencies>\n");
+        for (int i = 0; i < dependencies; i++) {
+            pom.append(indent).append("        <dependency>\n")
+                    .append(indent).append("            <groupId>").append(GROUP_ID).append("</groupId>\n")
+                    .append(indent).append("            <artifactId>").append(artifactId(i)).append("</artifactId>\n")
+                    .append(indent).append("            <version>").append(i % 2 == 0 ? "${" + property(i) + "}" : version(i)).append("</version>\n")
+                    .append(indent).append("        </dependency>\n");
+        }
+        pom.append(indent).append("    </dependencies>\n").append(bom ? "    </dependencyManagement>\n" : "").append("</project>\n");
+        return pom.toString();
+    }
+
+    /**
+     * write a synthetic POM into a temp directory
+     *
+     * @param dependencies number of dependencies
+     * @return POM file
+     * @throws IOException
+     */
+    static File write(int dependencies) throws IOException {
+        return write(dependencies, false);
+    }
+
+    /**
+     * write a synthetic POM or BOM into a temp directory
+     *
+     * @param dependencies number of dependencies
+     * @param bom true for a BOM
+     * @return POM file
+     * @throws IOException
+     */
+    static File write(int dependencies, boolean bom) throws IOException {
+        final File directory = Files.createTempDirectory("bgav-bench").toFile();
+        directory.deleteOnExit();
+        final File pomfile = new File(directory, "pom.xml");
+        pomfile.deleteOnExit();
+        Files.write(pomfile.toPath(), create(dependencies, bom).getBytes(StandardCharsets.UTF_8));
+        return pomfile;
+    }
+
+    static MavenHandler mavenHandler(Log log) {
+        return new MavenHandler(log, true, true, new File("."), null, null, null, null, "pom.xml");
+    }
+}
@@ -0,0 +1,89 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * version and ticket id transformations over all dependency versions of a synthetic POM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VersionBenchmark {
+
+    private static final String TICKET_ID = "NCX-4711";
+    private static final String DEFAULT_REGEX = "(?i)(\\p{Alpha}{1,}-\\d{1,})";
+    private static final String CUSTOM_REGEX = "(\\p{Upper}{1,}-\\d{1,})";
+
+    @Param({"10", "1000", "10000"})
+    public int dependencies;
+
+    private MavenHandler mavenHandler;
+    private Plugin plugin;
+    private List<String> versions;
+    private List<String> branchedVersions;
+
+    @Setup
+    public void setUp() throws Exception {
+        mavenHandler = SyntheticPom.mavenHandler(new SilentLog());
+        plugin = new Plugin();
+        final File pomfile = SyntheticPom.write(dependencies);
+        final Model model = mavenHandler.getModel(pomfile);
+        versions = new ArrayList<>();
+        branchedVersions = new ArrayList<>();
+        for (Dependency dependency : model.getDependencies()) {
+            final String version = PropertyHelper.isPlaceholder(dependency.getVersion())
+                    ? PropertyHelper.resolveProperty(model, dependency.getVersion()) : dependency.getVersion();
+            versions.add(version);
+            branchedVersions.add(mavenHandler.determinePomVersion(version, TICKET_ID));
+        }
+    }
+
+    @Benchmark
+    public void determinePomVersion(Blackhole blackhole) {
+        for (String version : versions) {
+            blackhole.consume(mavenHandler.determinePomVersion(version, TICKET_ID));
+        }
+    }
+
+    @Benchmark
+    public void determineNonBgavPomVersion(Blackhole blackhole) {
+        for (String version : branchedVersions) {
+            blackhole.consume(mavenHandler.determineNonBgavPomVersion(version));
+        }
+    }
+
+    @Benchmark
+    public void getMatchFirstDefaultRegex(Blackhole blackhole) {
+        for (String version : branchedVersions) {
+            blackhole.consume(plugin.getMatchFirst(version, DEFAULT_REGEX));
+        }
+    }
+
+    @Benchmark
+    public void getMatchFirstCustomRegex(Blackhole blackhole) {
+        for (String version : branchedVersions) {
+            blackhole.consume(plugin.getMatchFirst(version, CUSTOM_REGEX));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * applies a plan written by the plan goal: validates the POMs against the hashes of the plan, changes them, commits
+ * and pushes. No remote repositories are probed.
+ */
+@Mojo(name = "apply")
+public class ApplyMojo extends AbstractMojo {
+
+    /**
+     * plan file to apply
+     */
+    @Parameter(property = "planFile", defaultValue = "${project.build.directory}/bgav-plan.txt")
+    private File planFile;
+
+    /**
+     * base directory of the project, the POM paths of the plan are relative to it
+     */
+    @Parameter(defaultValue = "${project.basedir}", readonly = true)
+    private File basedir;
+
+    /**
+     * user for Git
+     */
+    @Parameter(property = "gituser")
+    private String gituser;
+
+    /**
+     * password for Git user
+     */
+    @Parameter(property = "gitpassword")
+    private String gitpassword;
+
+    /**
+     * setting branch id for Jenkinsfile
+     */
+    @Parameter(property = "branchName", alias = "branch_name")
+    private String branchName;
+
+    /**
+     * flag for fail on altered pom.xml
+     */
+    @Parameter(property = "failOnAlteredPom", alias = "fail_on_altered_pom")
+    private boolean failOnAlteredPom = false;
+
+    /**
+     * only debugging/testing purpose, suppress commit+push
+     */
+    @Parameter(property = "suppressCommit", defaultValue = "false")
+    private boolean suppressCommit;
+
+    /**
+     * if later commits appear, the push can be suppressed
+     */
+    @Parameter(property = "suppressPush", defaultValue = "false")
+    private boolean suppressPush;
+
+    final Log log = getLog();
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final File baseDir = basedir != null ? basedir : new File(".").getAbsoluteFile();
+        final ChangePlan plan;
+        try {
+            plan = ChangePlan.read(planFile, baseDir);
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not read BGAV plan " + planFile + ": " + e, e);
+        }
+        if (plan.isEmpty()) {
+            log.info("BGAV plan " + planFile + " has no changes");
+            return;
+        }
+
+        final GitHandler gitHandler = new GitHandler(log, gituser, gitpassword, suppressCommit, suppressPush, "pom.xml", baseDir);
+        final MavenHandler mavenHandler = new MavenHandler(log, suppressCommit, suppressPush, baseDir, null, null, null, null, "pom.xml");
+        final XMLHandler xmlHandler = new XMLHandler(log, suppressCommit, suppressPush, mavenHandler);
+        final Git git = gitHandler.getGitLocalRepo(mavenHandler.getModel(plan.getFile(plan.getPoms().get(0).getPath())));
+        if (git == null) {
+            throw new MojoExecutionException("no Git repository found for " + baseDir);
+        }
+        try {
+            final String branch = gitHandler.checkBranchName(git.getRepository(), gitHandler.getCommitId(git), branchName);
+            if (plan.getBranch() != null && !plan.getBranch().equals(branch)) {
+                throw new MojoExecutionException("BGAV plan was made for branch " + plan.getBranch() + ", not for " + branch);
+            }
+
+            // validate all POMs before changing any of them
+            int applied = 0;
+            for (ChangePlan.Pom pom : plan.getPoms()) {
+                final String hash = hash(plan.getFile(pom.getPath()));
+                if (hash.equals(pom.getAppliedHash())) {
+                    applied++;
+                } else if (!hash.equals(pom.getHash())) {
+                    throw new MojoExecutionException("POM " + pom.getPath() + " has changed since the BGAV plan was made");
+                }
+            }
+            if (applied == plan.getPoms().size()) {
+                log.info("BGAV plan " + planFile + " is already applied");
+                return;
+            }
+
+            // the work tree of a later stage holds build output, only the POMs of the plan are committed
+            final List<File> pomfiles = new ArrayList<>();
+            for (ChangePlan.Pom pom : plan.getPoms()) {
+                final File pomfile = plan.getFile(pom.getPath());
+                pomfiles.add(pomfile);
+                if (hash(pomfile).equals(pom.getAppliedHash())) {
+                    continue;
+                }
+                final byte[] content = xmlHandler.applyChanges(pomfile, plan.getChanges(pom.getPath()));
+                xmlHandler.writePom(pomfile, content);
+                log.info("applied " + plan.getChanges(pom.getPath()).size() + " change(s) to " + pom.getPath());
+                gitHandler.add(git, pom.getCommitMessage() != null ? pom.getCommitMessage() : plan.getTicketId() + " - BGAV - apply plan", pomfile);
+            }
+            try {
+                gitHandler.commitAndPush(git, pomfiles);
+            } catch (GitAPIException e) {
+                throw new MojoExecutionException("Git push failed! " + e.getMessage(), e);
+            }
+        } finally {
+            git.close();
+        }
+        if (failOnAlteredPom) {
+            throw new MojoExecutionException("build failed due to altered POMs and failOnAlteredPom parameter.");
+        }
+    }
+
+    private static String hash(File pomfile) throws MojoExecutionException {
+        try {
+            return ChangePlan.hash(pomfile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not read " + pomfile + ": " + e, e);
+        }
+    }
+}
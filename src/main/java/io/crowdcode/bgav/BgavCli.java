@@ -0,0 +1,250 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * command line interface of the bgav and plan goals without the Maven runtime, e.g. for Git hooks
+ *
+ * <pre>
+ * java -jar bgav-maven-plugin-cli.jar [bgav|plan] -Dnamespace=your.groupid.namespace [-D&lt;parameter&gt;=&lt;value&gt; ...]
+ * </pre>
+ *
+ * <p>The parameters are those of the goals. The project is taken from basedir, default the current directory, and the
+ * dependency projects from the local repository only, given by localRepository, default ~/.m2/repository.</p>
+ *
+ * <p>Before anything else is loaded, the branch is read from the Git HEAD and the POMs are scanned as text. If the run
+ * can not change anything, it ends right there with the JDK classes only. Otherwise the goal runs in {@link Runner},
+ * which is the first class to load Maven and JGit classes. With daemon=true, the request is sent to a running
+ * {@link BgavDaemon} first.</p>
+ *
+ * Exit codes: 0 success or nothing to do, 1 failure, 64 usage error.
+ */
+public class BgavCli {
+
+    static final int USAGE = 64;
+
+    private static final Pattern HEAD_REF = Pattern.compile("ref: refs/heads/(.+)");
+    private static final Pattern MODULE = Pattern.compile("<module>\\s*([^<]+?)\\s*</module>");
+    private static final Pattern VERSION = Pattern.compile("<version>\\s*([^<$]+?)\\s*</version>");
+    private static final Pattern PROPERTIES = Pattern.compile("<properties>(.*?)</properties>", Pattern.DOTALL);
+    private static final Pattern PROPERTY_VALUE = Pattern.compile(">\\s*([^<]+?)\\s*<");
+
+    /**
+     * Maven property names and aliases of parameters, which differ from the parameter field
+     */
+    private static final Map<String, String> ALIASES = new LinkedHashMap<>();
+
+    static {
+        ALIASES.put("regex_non_bgav_branch", "regex_not_bgav_branch");
+        ALIASES.put("fail_on_missing_branch_id", "failOnMissingBranchId");
+        ALIASES.put("fail_on_altered_pom", "failOnAlteredPom");
+        ALIASES.put("branch_name", "branchName");
+        ALIASES.put("maven.repo.local", "localRepository");
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * @param args goal and -D parameters
+     * @param out
+     * @return exit code
+     */
+    static int run(String[] args, PrintStream out) {
+        String goal = "bgav";
+        final Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("pomFile", "pom.xml");
+        for (String arg : args) {
+            if (arg.startsWith("-D")) {
+                final int equals = arg.indexOf('=');
+                final String name = equals > 0 ? arg.substring(2, equals) : arg.substring(2);
+                parameters.put(ALIASES.getOrDefault(name, name), equals > 0 ? arg.substring(equals + 1) : "true");
+            } else if (arg.equals("bgav") || arg.equals("plan")) {
+                goal = arg;
+            } else {
+                out.println("usage: bgav [bgav|plan] -Dnamespace=<groupIds> [-D<parameter>=<value> ...]");
+                return USAGE;
+            }
+        }
+        final File basedir = new File(parameters.getOrDefault("basedir", ".")).toPath().toAbsolutePath().normalize().toFile();
+
+        if (Boolean.parseBoolean(parameters.get("daemon"))) {
+            final File daemonFile = new File(parameters.getOrDefault("daemonFile", System.getProperty("user.home") + "/.bgav/daemon"));
+            final int exitCode = BgavClient.run(daemonFile, goal, basedir, parameters.get("branchName"), out);
+            if (exitCode != BgavClient.NO_DAEMON) {
+                return exitCode;
+            }
+        }
+        if ("bgav".equals(goal) && isNoOp(basedir, parameters)) {
+            out.println("[INFO] BGAV: nothing to do");
+            return 0;
+        }
+        return Runner.run(goal, basedir, parameters, out);
+    }
+
+    /**
+     * decide with the JDK only, if a run can not change anything: the project is not in a Git repository, its branch
+     * is neither a BGAV nor a non BGAV branch, or it is a non BGAV branch and no version in the POMs carries BGAV
+     * information. Anything else is left to the goal.
+     *
+     * @param basedir
+     * @param parameters
+     * @return true, if the goal would not change anything
+     */
+    static boolean isNoOp(File basedir, Map<String, String> parameters) {
+        final File gitDir = new File(basedir, ".git");
+        if (!gitDir.exists()) {
+            return true;
+        }
+        String branch = parameters.get("branchName");
+        if (branch == null || branch.isEmpty()) {
+            branch = readBranch(gitDir);
+            if (branch == null) {
+                return false;
+            }
+        }
+        if (matches(branch, parameters.get("regex_bgav_branch"), Plugin.REGEX_BGAV_BRANCH)) {
+            return false;
+        }
+        if (!matches(branch, parameters.get("regex_not_bgav_branch"), Plugin.REGEX_NON_BGAV_BRANCH)) {
+            return true;
+        }
+        try {
+            return !hasBgavVersion(new File(basedir, parameters.get("pomFile")), parameters.get("pomFile"), parameters.get("regex_ticket"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param gitDir
+     * @return the checked out branch or null, if HEAD is detached or can not be read
+     */
+    static String readBranch(File gitDir) {
+        try {
+            File dir = gitDir;
+            if (gitDir.isFile()) {
+                final String link = new String(Files.readAllBytes(gitDir.toPath()), StandardCharsets.UTF_8).trim();
+                if (!link.startsWith("gitdir:")) {
+                    return null;
+                }
+                dir = new File(link.substring(7).trim());
+                if (!dir.isAbsolute()) {
+                    dir = new File(gitDir.getParentFile(), dir.getPath());
+                }
+            }
+            final String head = new String(Files.readAllBytes(new File(dir, "HEAD").toPath()), StandardCharsets.UTF_8).trim();
+            final Matcher matcher = HEAD_REF.matcher(head);
+            return matcher.matches() ? matcher.group(1) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean matches(String branch, String regex, String defaultRegex) {
+        return Pattern.compile(regex == null || regex.isEmpty() ? defaultRegex : regex).matcher(branch).find();
+    }
+
+    /**
+     * scan a POM and its modules as text for versions the non BGAV branch would change
+     *
+     * @param pomfile
+     * @param pomFileName
+     * @param regexTicket
+     * @return true, if a version or a property value carries a ticket id
+     * @throws IOException
+     */
+    private static boolean hasBgavVersion(File pomfile, String pomFileName, String regexTicket) throws IOException {
+        final String pom = new String(Files.readAllBytes(pomfile.toPath()), StandardCharsets.UTF_8);
+        final Matcher version = VERSION.matcher(pom);
+        while (version.find()) {
+            if (!isNonBgavVersion(version.group(1))) {
+                return true;
+            }
+        }
+        final Pattern ticket = Pattern.compile("-" + (regexTicket == null || regexTicket.isEmpty() ? Plugin.REGEX_TICKET : regexTicket));
+        final Matcher properties = PROPERTIES.matcher(pom);
+        while (properties.find()) {
+            final Matcher value = PROPERTY_VALUE.matcher(properties.group(1));
+            while (value.find()) {
+                if (ticket.matcher(value.group(1)).find()) {
+                    return true;
+                }
+            }
+        }
+        final List<String> modules = new ArrayList<>();
+        final Matcher module = MODULE.matcher(pom);
+        while (module.find()) {
+            modules.add(module.group(1));
+        }
+        for (String name : modules) {
+            if (hasBgavVersion(new File(new File(pomfile.getAbsoluteFile().getParentFile(), name), pomFileName), pomFileName, regexTicket)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param version
+     * @return true, if the version is left unchanged on a non BGAV branch
+     * @see MavenHandler#determineNonBgavPomVersion(String)
+     */
+    private static boolean isNonBgavVersion(String version) {
+        return !BgavVersion.parse(version).isBgav();
+    }
+
+    /**
+     * runs a goal, the first class loading Maven and JGit classes
+     */
+    static final class Runner {
+
+        private static final List<String> CLI_PARAMETERS = Arrays.asList("basedir", "branchName", "planFile", "localRepository", "daemon", "daemonFile");
+
+        private Runner() {
+        }
+
+        /**
+         * @param goal bgav or plan
+         * @param basedir
+         * @param parameters
+         * @param out
+         * @return exit code
+         */
+        static int run(String goal, File basedir, Map<String, String> parameters, PrintStream out) {
+            final String localRepository = parameters.getOrDefault("localRepository", System.getProperty("user.home") + "/.m2/repository");
+            final File planFile = "plan".equals(goal) ? new File(parameters.getOrDefault("planFile", new File(basedir, "target/bgav-plan.txt").getPath())) : null;
+            final Plugin plugin = new Plugin();
+            try {
+                plugin.prepareRun(basedir, parameters.get("branchName"), planFile);
+                for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                    if (!CLI_PARAMETERS.contains(parameter.getKey())) {
+                        plugin.setParameter(parameter.getKey(), parameter.getValue());
+                    }
+                }
+                plugin.setLocalRepositoryPath(localRepository);
+                plugin.setProjectResolver(new LocalRepositoryProjectResolver(localRepository));
+                plugin.execute();
+                return 0;
+            } catch (MojoExecutionException | MojoFailureException e) {
+                out.println("[ERROR] " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+}
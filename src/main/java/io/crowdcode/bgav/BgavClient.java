@@ -0,0 +1,89 @@
+package io.crowdcode.bgav;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * thin client of the {@link BgavDaemon}, needs the JDK only and starts in milliseconds
+ *
+ * <pre>
+ * java -cp bgav-maven-plugin.jar io.crowdcode.bgav.BgavClient [bgav|plan|status|stop] [dir] [branch]
+ * </pre>
+ *
+ * The daemon file is taken from the system property bgav.daemonFile, default ~/.bgav/daemon.
+ * Exit codes: 0 success, 1 failed request, 2 no daemon running.
+ */
+public class BgavClient {
+
+    static final int NO_DAEMON = 2;
+
+    public static void main(String[] args) {
+        final File daemonFile = new File(System.getProperty("bgav.daemonFile", System.getProperty("user.home") + "/.bgav/daemon"));
+        final String goal = args.length > 0 ? args[0] : "bgav";
+        final File dir = new File(args.length > 1 ? args[1] : ".").getAbsoluteFile();
+        final String branch = args.length > 2 ? args[2] : null;
+        System.exit(run(daemonFile, goal, dir, branch, System.out));
+    }
+
+    /**
+     * send a request to the daemon and print its log
+     *
+     * @param daemonFile file the daemon published its port and token in
+     * @param goal bgav, plan, status or stop
+     * @param dir project directory, null for status and stop
+     * @param branch branch, null to get it from Git
+     * @param out
+     * @return exit code
+     */
+    static int run(File daemonFile, String goal, File dir, String branch, PrintStream out) {
+        final String[] daemon;
+        try {
+            daemon = new String(Files.readAllBytes(daemonFile.toPath()), StandardCharsets.UTF_8).trim().split(" ");
+        } catch (IOException e) {
+            out.println("[ERROR] no BGAV daemon running, " + daemonFile + " not found");
+            return NO_DAEMON;
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(daemon[0]))) {
+            final PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            writer.println(BgavDaemon.PROTOCOL);
+            writer.println("token " + daemon[1]);
+            writer.println("goal " + goal);
+            if (dir != null) {
+                writer.println("dir " + dir.getAbsolutePath());
+            }
+            if (branch != null) {
+                writer.println("branch " + branch);
+            }
+            writer.println("end");
+            writer.flush();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("log ")) {
+                    final int space = line.indexOf(' ', 4);
+                    out.println("[" + line.substring(4, space).toUpperCase() + "] " + line.substring(space + 1));
+                } else if (line.startsWith("ok")) {
+                    out.println("[INFO] " + line.substring(2).trim());
+                    return 0;
+                } else if (line.startsWith("error")) {
+                    out.println("[ERROR] " + line.substring(5).trim());
+                    return 1;
+                }
+            }
+            out.println("[ERROR] BGAV daemon closed the connection");
+            return 1;
+        } catch (IOException | RuntimeException e) {
+            out.println("[ERROR] no BGAV daemon running: " + e);
+            return NO_DAEMON;
+        }
+    }
+}
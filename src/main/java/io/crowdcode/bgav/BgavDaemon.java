@@ -0,0 +1,339 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * local server of the daemon goal: accepts requests of the {@link BgavClient} on a loopback port and runs them one
+ * after another with warm caches
+ *
+ * <p>The port and a random token are written to the daemon file, readable by the owner only. A request is a list of
+ * "key value" lines terminated by "end"; the response are "log level message" lines and a final "ok" or
+ * "error message" line.</p>
+ */
+public class BgavDaemon implements AutoCloseable {
+
+    static final String PROTOCOL = "bgav-daemon 1";
+    private static final int READ_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * a request of a client
+     */
+    public static class Request {
+        private final Map<String, String> values;
+
+        Request(Map<String, String> values) {
+            this.values = values;
+        }
+
+        /**
+         * @return bgav, plan, status or stop
+         */
+        public String getGoal() {
+            return values.getOrDefault("goal", "bgav");
+        }
+
+        public File getDir() {
+            return values.containsKey("dir") ? new File(values.get("dir")) : null;
+        }
+
+        public String getBranch() {
+            return values.get("branch");
+        }
+
+        public File getPlanFile() {
+            return values.containsKey("planFile") ? new File(values.get("planFile")) : null;
+        }
+    }
+
+    /**
+     * runs a request
+     */
+    public interface Handler {
+        /**
+         * @param request
+         * @param log log of the response
+         * @return summary of the result
+         * @throws Exception if the request failed
+         */
+        String handle(Request request, Log log) throws Exception;
+    }
+
+    private final Log log;
+    private final File daemonFile;
+    private final int port;
+    private final long idleMillis;
+    private final Handler handler;
+    private final String token;
+    private ServerSocket serverSocket;
+    private int readTimeoutMillis = READ_TIMEOUT_MILLIS;
+    private volatile boolean stopped;
+
+    /**
+     * @param log
+     * @param daemonFile file to publish port and token in
+     * @param port loopback port, 0 for any free port
+     * @param idleMillis stop after this time without requests, 0 for never
+     * @param handler
+     */
+    public BgavDaemon(Log log, File daemonFile, int port, long idleMillis, Handler handler) {
+        this.log = log;
+        this.daemonFile = daemonFile;
+        this.port = port;
+        this.idleMillis = idleMillis;
+        this.handler = handler;
+        final byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        this.token = hex.toString();
+    }
+
+    /**
+     * bind the port and publish it in the daemon file
+     *
+     * @return this
+     * @throws IOException
+     */
+    public BgavDaemon start() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        if (idleMillis > 0) {
+            serverSocket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, idleMillis));
+        }
+        if (daemonFile.getParentFile() != null) {
+            Files.createDirectories(daemonFile.getParentFile().toPath());
+        }
+        final File temp = new File(daemonFile.getPath() + ".tmp");
+        Files.deleteIfExists(temp.toPath());
+        try {
+            // readable by the owner only before the token is written
+            Files.createFile(temp.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            log.debug("no POSIX file permissions for " + daemonFile);
+            Files.createFile(temp.toPath());
+        }
+        Files.write(temp.toPath(), (serverSocket.getLocalPort() + " " + token + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), daemonFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("BGAV daemon listening on port " + serverSocket.getLocalPort() + ", published in " + daemonFile);
+        return this;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * serve requests until a stop request, the idle timeout or close
+     */
+    public void serve() {
+        while (!stopped) {
+            try (Socket socket = serverSocket.accept()) {
+                // a stalled client must not block the daemon
+                socket.setSoTimeout(readTimeoutMillis);
+                try {
+                    handle(socket);
+                } catch (SocketTimeoutException e) {
+                    log.warn("BGAV daemon request not received within " + readTimeoutMillis + " ms");
+                }
+            } catch (SocketTimeoutException e) {
+                log.info("BGAV daemon idle for " + idleMillis + " ms, stopping");
+                break;
+            } catch (IOException e) {
+                if (!stopped && !serverSocket.isClosed()) {
+                    log.warn("BGAV daemon request failed: " + e);
+                } else {
+                    break;
+                }
+            }
+        }
+        close();
+    }
+
+    /**
+     * @param readTimeoutMillis time to wait for the request of a client
+     */
+    void setReadTimeout(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.debug("could not close daemon socket: " + e);
+        }
+        if (daemonFile.exists() && !daemonFile.delete()) {
+            log.warn("could not delete " + daemonFile);
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        if (!PROTOCOL.equals(reader.readLine())) {
+            respond(writer, "error unknown protocol");
+            return;
+        }
+        final Map<String, String> values = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null && !line.equals("end")) {
+            final int space = line.indexOf(' ');
+            if (space > 0) {
+                values.put(line.substring(0, space), line.substring(space + 1));
+            }
+        }
+        if (!token.equals(values.get("token"))) {
+            respond(writer, "error invalid token");
+            return;
+        }
+        final Request request = new Request(values);
+        switch (request.getGoal()) {
+            case "status":
+                respond(writer, "ok running on port " + getPort());
+                return;
+            case "stop":
+                stopped = true;
+                respond(writer, "ok stopping");
+                return;
+            default:
+                if (request.getDir() == null) {
+                    respond(writer, "error no project directory");
+                    return;
+                }
+        }
+        log.info("BGAV daemon: " + request.getGoal() + " " + request.getDir());
+        try {
+            final String summary = handler.handle(request, new ResponseLog(writer));
+            respond(writer, "ok " + (summary != null ? summary : ""));
+        } catch (Exception e) {
+            respond(writer, "error " + String.valueOf(e.getMessage()).replace('\n', ' '));
+        }
+    }
+
+    private static void respond(PrintWriter writer, String line) {
+        writer.println(line);
+        writer.flush();
+    }
+
+    /**
+     * sends the log of a request to the client
+     */
+    private static final class ResponseLog implements Log {
+        private final PrintWriter writer;
+
+        ResponseLog(PrintWriter writer) {
+            this.writer = writer;
+        }
+
+        private void log(String level, CharSequence content, Throwable error) {
+            synchronized (writer) {
+                final String message = (content != null ? content.toString() : "") + (error != null ? (content != null ? ": " : "") + error : "");
+                for (String line : message.split("\n")) {
+                    writer.println("log " + level + " " + line);
+                }
+                writer.flush();
+            }
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public void debug(CharSequence content) {
+        }
+
+        @Override
+        public void debug(CharSequence content, Throwable error) {
+        }
+
+        @Override
+        public void debug(Throwable error) {
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return true;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+            log("info", content, null);
+        }
+
+        @Override
+        public void info(CharSequence content, Throwable error) {
+            log("info", content, error);
+        }
+
+        @Override
+        public void info(Throwable error) {
+            log("info", null, error);
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return true;
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            log("warn", content, null);
+        }
+
+        @Override
+        public void warn(CharSequence content, Throwable error) {
+            log("warn", content, error);
+        }
+
+        @Override
+        public void warn(Throwable error) {
+            log("warn", null, error);
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return true;
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            log("error", content, null);
+        }
+
+        @Override
+        public void error(CharSequence content, Throwable error) {
+            log("error", content, error);
+        }
+
+        @Override
+        public void error(Throwable error) {
+            log("error", null, error);
+        }
+    }
+
+}
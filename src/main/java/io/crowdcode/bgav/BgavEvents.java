@@ -0,0 +1,100 @@
+package io.crowdcode.bgav;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the hot paths of the plugin, to correlate them with GC and I/O in a recording of the
+ * whole build. The events are created by {@link BgavMetrics.Timer}, only if JFR is available in the running JVM.
+ */
+final class BgavEvents {
+
+    private BgavEvents() {
+    }
+
+    /**
+     * create and begin the event of a phase
+     *
+     * @param phase
+     * @return event or null, if the phase has no event
+     */
+    static BgavMetrics.EventRecorder begin(String phase) {
+        final BgavEvent event;
+        if (BgavMetrics.PROJECT_RESOLUTION.equals(phase)) {
+            event = new ResolveProjectEvent();
+        } else if (BgavMetrics.MODEL_READ.equals(phase)) {
+            event = new ModelReadEvent();
+        } else if (BgavMetrics.POM_PARSE.equals(phase) || BgavMetrics.POM_WRITE.equals(phase)) {
+            event = new PomXmlEvent();
+        } else if (BgavMetrics.COMMIT_PUSH.equals(phase)) {
+            event = new CommitPushEvent();
+        } else if (phase.startsWith(BgavMetrics.REMOTE_GIT)) {
+            event = new RemoteGitEvent();
+        } else {
+            return null;
+        }
+        event.operation = phase;
+        event.begin();
+        return event;
+    }
+
+    @Category({"Maven", "BGAV"})
+    abstract static class BgavEvent extends Event implements BgavMetrics.EventRecorder {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Subject")
+        @Description("artifact, file or URL the operation works on")
+        String subject;
+
+        @Label("Outcome")
+        String outcome;
+
+        @Override
+        public void end(String subject, long bytes, String outcome) {
+            this.subject = subject;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+
+    @Name("io.crowdcode.bgav.ResolveProject")
+    @Label("BGAV Resolve Project")
+    static class ResolveProjectEvent extends BgavEvent {
+    }
+
+    @Name("io.crowdcode.bgav.ModelRead")
+    @Label("BGAV Model Read")
+    static class ModelReadEvent extends BgavEvent {
+    }
+
+    @Name("io.crowdcode.bgav.PomXml")
+    @Label("BGAV POM Parse/Write")
+    static class PomXmlEvent extends BgavEvent {
+    }
+
+    @Name("io.crowdcode.bgav.CommitPush")
+    @Label("BGAV Commit/Push")
+    static class CommitPushEvent extends BgavEvent {
+    }
+
+    @Name("io.crowdcode.bgav.RemoteGit")
+    @Label("BGAV Remote Git Operation")
+    static class RemoteGitEvent extends BgavEvent {
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Override
+        public void end(String subject, long bytes, String outcome) {
+            this.bytes = bytes;
+            super.end(subject, bytes, outcome);
+        }
+    }
+}
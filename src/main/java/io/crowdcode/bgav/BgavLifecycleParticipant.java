@@ -0,0 +1,352 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectBuilder;
+import org.apache.maven.repository.RepositorySystem;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.crowdcode.bgav.PropertyHelper.*;
+
+/**
+ * build extension, which applies the BGAV versions to the reactor before any mojo runs, instead of rewriting the POMs
+ * and failing the build with failOnAlteredPom
+ *
+ * <p>At session start the versions are computed once, like the bgav goal does. The edited POM of every changed project
+ * is written to {@value #BGAV_POM} next to its pom.xml and becomes the project file, so installed and deployed POMs
+ * carry the new versions. Versions and dependencies of the in-memory models are updated accordingly. Optionally the
+ * changes are copied to the pom.xml files, committed and pushed in the background, the session end waits for it.</p>
+ *
+ * <p>Enabled by registering the plugin as extension. It is configured by the user properties bgav.namespace,
+ * bgav.namespaceFile, bgav.branchName, bgav.regex_ticket, bgav.regex_bgav_branch, bgav.gituser, bgav.gitpassword, bgav.persist,
+ * bgav.push and bgav.offline, or by the configuration of the bgav plugin in the top level project. Offline, by
+ * bgav.offline or Maven's offline mode, only the local repository and the clones next to the project are used.</p>
+ */
+@Named("bgav")
+@Singleton
+public class BgavLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+    static final String PLUGIN_KEY = "io.crowdcode:bgav-maven-plugin";
+    static final String BGAV_POM = ".bgav-pom.xml";
+
+    @Inject
+    private RepositorySystem repositorySystem;
+
+    @Inject
+    private MavenProjectBuilder mavenProjectBuilder;
+
+    @Inject
+    private Logger logger;
+
+    private ProjectResolver projectResolver;
+    private final List<File> bgavPoms = new ArrayList<>();
+    private ExecutorService persister;
+    private Future<?> persisting;
+
+    @Override
+    public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        final Log log = getLog();
+        final MavenProject topLevelProject = session.getTopLevelProject();
+        final String namespaceValue = getConfiguration(session, topLevelProject, "namespace");
+        final String namespaceFile = getConfiguration(session, topLevelProject, "namespaceFile");
+        final NamespaceMatcher namespace;
+        try {
+            namespace = NamespaceMatcher.of(namespaceValue != null ? namespaceValue.split("\\s*,\\s*") : null,
+                    namespaceFile != null ? topLevelProject.getBasedir().toPath().resolve(namespaceFile).toFile() : null);
+        } catch (MojoExecutionException e) {
+            throw new MavenExecutionException("BGAV extension: " + e.getMessage(), e);
+        }
+        if (namespace.isEmpty()) {
+            log.debug("BGAV extension: no namespace configured, nothing to do");
+            return;
+        }
+        final String gituser = getConfiguration(session, topLevelProject, "gituser");
+        final String gitpassword = getConfiguration(session, topLevelProject, "gitpassword");
+        final boolean persist = Boolean.parseBoolean(getConfiguration(session, topLevelProject, "persist"));
+        final boolean push = persist && !"false".equals(getConfiguration(session, topLevelProject, "push"));
+        final boolean offline = session.isOffline() || Boolean.parseBoolean(getConfiguration(session, topLevelProject, "offline"));
+        final File basedir = topLevelProject.getBasedir();
+
+        final Git git;
+        try {
+            git = Git.wrap(new FileRepositoryBuilder().findGitDir(basedir).setMustExist(true).build());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("BGAV extension: no Git repository found for " + basedir + " - skipping");
+            return;
+        }
+        final GitHandler gitHandler = new GitHandler(log, gituser, gitpassword, false, !push, "pom.xml", basedir);
+        final MavenHandler mavenHandler = new MavenHandler(log, true, true, basedir, repositorySystem, mavenProjectBuilder,
+                topLevelProject.getRemoteArtifactRepositories(), session.getLocalRepository(), "pom.xml");
+        gitHandler.setOffline(offline);
+        if (projectResolver != null) {
+            mavenHandler.setProjectResolver(projectResolver);
+        } else if (offline) {
+            mavenHandler.setProjectResolver(new LocalRepositoryProjectResolver(getLocalRepositoryPath(session)));
+        }
+        if (offline) {
+            mavenHandler.setOfflineProbe(new OfflineProbe(basedir.getAbsoluteFile().getParentFile(), null, log));
+        }
+        // only the copied POM of a project is edited, properties of parents are left to their own project
+        mavenHandler.setPropertyResolver(new PropertyResolver(mavenHandler::resolveProject, null));
+        final String branch;
+        try {
+            branch = gitHandler.checkBranchName(git.getRepository(), gitHandler.getCommitId(git), getConfiguration(session, topLevelProject, "branchName"));
+        } catch (MojoExecutionException e) {
+            git.close();
+            throw new MavenExecutionException("BGAV extension: " + e.getMessage(), e);
+        }
+        final BranchClassifier classifier = new BranchClassifier(getConfiguration(session, topLevelProject, "regex_ticket"),
+                getConfiguration(session, topLevelProject, "regex_bgav_branch"), null);
+        final String ticketId = classifier.getTicketId(branch);
+        if (!classifier.isBgavBranch(branch) || ticketId == null) {
+            log.info("BGAV extension: branch " + branch + " is no BGAV branch with a ticket id");
+            git.close();
+            return;
+        }
+
+        final String localRepositoryPath = getLocalRepositoryPath(session);
+        final Map<File, String> changes = new LinkedHashMap<>();
+        final Map<String, String> reactorVersions = new HashMap<>();
+        try (DependencyPrefetcher prefetcher = new DependencyPrefetcher(log, 4)) {
+            final Map<MavenProject, Model> models = new LinkedHashMap<>();
+            for (MavenProject project : session.getProjects()) {
+                final Model model = mavenHandler.getModel(project.getFile());
+                models.put(project, model);
+                for (Dependency dependency : mavenHandler.getNamespaceDependencies(model, namespace)) {
+                    prefetcher.prefetch(mavenHandler, model, dependency, ticketId, gituser, gitpassword, localRepositoryPath);
+                }
+            }
+            mavenHandler.setPrefetcher(prefetcher);
+            for (Map.Entry<MavenProject, Model> entry : models.entrySet()) {
+                final String message = rewrite(entry.getKey(), entry.getValue(), mavenHandler, namespace, ticketId,
+                        gituser, gitpassword, localRepositoryPath, reactorVersions);
+                if (message != null) {
+                    changes.put(entry.getValue().getPomFile(), message);
+                }
+            }
+        } catch (Exception e) {
+            git.close();
+            throw new MavenExecutionException("BGAV extension: could not compute versions: " + e, e);
+        }
+        updateReactorDependencies(session.getProjects(), reactorVersions);
+        log.info("BGAV extension: " + changes.size() + " project(s) rewritten in memory for " + ticketId);
+        mavenHandler.getMetrics().getUndecided().forEach((dependency, reason) ->
+                log.warn("BGAV extension: " + dependency + " could not be decided: " + reason));
+
+        if (persist && !changes.isEmpty()) {
+            persister = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "bgav-persist");
+                thread.setDaemon(true);
+                return thread;
+            });
+            persisting = persister.submit(() -> {
+                persist(gitHandler, git, changes);
+                return null;
+            });
+        } else {
+            git.close();
+        }
+    }
+
+    @Override
+    public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+        try {
+            if (persisting != null) {
+                persisting.get();
+                getLog().info("BGAV extension: POM changes persisted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenExecutionException("BGAV extension: interrupted while persisting POM changes", e);
+        } catch (ExecutionException e) {
+            throw new MavenExecutionException("BGAV extension: could not persist POM changes: " + e.getCause(), e.getCause());
+        } finally {
+            persisting = null;
+            if (persister != null) {
+                persister.shutdown();
+                persister = null;
+            }
+            for (File bgavPom : bgavPoms) {
+                if (!bgavPom.delete()) {
+                    getLog().debug("could not delete " + bgavPom);
+                }
+            }
+            bgavPoms.clear();
+        }
+    }
+
+    /**
+     * resolve dependency projects with another resolver than the Maven project builder
+     *
+     * @param projectResolver
+     */
+    void setProjectResolver(ProjectResolver projectResolver) {
+        this.projectResolver = projectResolver;
+    }
+
+    /**
+     * edit a copy of the POM like the bgav goal does and apply the changes to the project
+     *
+     * @return commit message or null, if nothing has changed
+     */
+    private String rewrite(MavenProject project, Model model, MavenHandler mavenHandler, NamespaceMatcher namespace, String ticketId,
+                           String gituser, String gitpassword, String localRepositoryPath, Map<String, String> reactorVersions) throws Exception {
+        final File bgavPom = new File(project.getBasedir(), BGAV_POM);
+        Files.copy(model.getPomFile().toPath(), bgavPom.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final XMLHandler xmlHandler = new XMLHandler(getLog(), true, true, mavenHandler);
+        boolean changed = false;
+        if (model.getVersion() != null) {
+            changed |= xmlHandler.setBgavOnVersion(bgavPom, ticketId);
+        }
+        if (model.getParent() != null && model.getParent().getVersion() != null
+                && namespace.matches(model.getParent().getGroupId())) {
+            changed |= xmlHandler.setBgavOnParentVersion(bgavPom, ticketId);
+        }
+        final String artifacts = mavenHandler.checkforDependencies(bgavPom, model, namespace, ticketId, gituser, gitpassword, localRepositoryPath);
+        changed |= !artifacts.isEmpty();
+        if (!changed) {
+            Files.delete(bgavPom.toPath());
+            return null;
+        }
+        bgavPoms.add(bgavPom);
+
+        final Model rewritten = mavenHandler.getModel(bgavPom);
+        final Model projectModel = project.getModel();
+        if (rewritten.getParent() != null && projectModel.getParent() != null) {
+            projectModel.getParent().setVersion(rewritten.getParent().getVersion());
+        }
+        final String version = rewritten.getVersion() != null ? rewritten.getVersion()
+                : rewritten.getParent() != null ? rewritten.getParent().getVersion() : null;
+        if (version != null && !version.equals(project.getVersion())) {
+            project.setVersion(version);
+            if (project.getArtifact() != null) {
+                project.getArtifact().setVersion(version);
+            }
+            reactorVersions.put(project.getGroupId() + ":" + project.getArtifactId(), version);
+        }
+        rewritten.getProperties().forEach((name, value) -> {
+            if (projectModel.getProperties().containsKey(name)) {
+                projectModel.getProperties().put(name, value);
+            }
+        });
+        for (Dependency dependency : rewritten.getDependencies()) {
+            final String dependencyVersion = isPlaceholder(dependency.getVersion())
+                    ? resolveProperty(rewritten, dependency.getVersion()) : dependency.getVersion();
+            if (dependencyVersion != null) {
+                setDependencyVersion(projectModel.getDependencies(), dependency.getGroupId(), dependency.getArtifactId(), dependencyVersion);
+            }
+        }
+        project.setFile(bgavPom);
+        return ticketId + " - BGAV - set correct branched version" + (artifacts.isEmpty() ? "" : " for "
+                + (artifacts.endsWith(", ") ? artifacts.substring(0, artifacts.length() - 2) : artifacts));
+    }
+
+    /**
+     * point dependencies on rewritten reactor projects to their new versions
+     */
+    private void updateReactorDependencies(List<MavenProject> projects, Map<String, String> reactorVersions) {
+        if (reactorVersions.isEmpty()) {
+            return;
+        }
+        for (MavenProject project : projects) {
+            reactorVersions.forEach((key, version) -> {
+                final String[] coordinates = key.split(":");
+                setDependencyVersion(project.getModel().getDependencies(), coordinates[0], coordinates[1], version);
+                if (project.getModel().getDependencyManagement() != null) {
+                    setDependencyVersion(project.getModel().getDependencyManagement().getDependencies(), coordinates[0], coordinates[1], version);
+                }
+                if (project.getModel().getParent() != null && key.equals(project.getModel().getParent().getGroupId() + ":" + project.getModel().getParent().getArtifactId())) {
+                    project.getModel().getParent().setVersion(version);
+                }
+            });
+        }
+    }
+
+    private static void setDependencyVersion(List<Dependency> dependencies, String groupId, String artifactId, String version) {
+        for (Dependency dependency : dependencies) {
+            if (groupId.equals(dependency.getGroupId()) && artifactId.equals(dependency.getArtifactId())) {
+                dependency.setVersion(version);
+            }
+        }
+    }
+
+    private void persist(GitHandler gitHandler, Git git, Map<File, String> changes) throws IOException, MojoExecutionException, GitAPIException {
+        try {
+            for (Map.Entry<File, String> change : changes.entrySet()) {
+                final File pomfile = change.getKey();
+                Files.copy(new File(pomfile.getParentFile(), BGAV_POM).toPath(), pomfile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                gitHandler.add(git, change.getValue(), pomfile);
+            }
+            // the build goes on while persisting: commit the rewritten POMs only, not the .bgav-pom.xml files
+            gitHandler.commitAndPush(git, changes.keySet());
+        } finally {
+            git.close();
+        }
+    }
+
+    private static String getLocalRepositoryPath(MavenSession session) {
+        if (session.getRequest() != null && session.getRequest().getLocalRepositoryPath() != null) {
+            return session.getRequest().getLocalRepositoryPath().getAbsolutePath();
+        }
+        return session.getLocalRepository() != null ? session.getLocalRepository().getBasedir() : null;
+    }
+
+    /**
+     * @return value of the user or system property bgav.name or of the configuration of the bgav plugin
+     */
+    private static String getConfiguration(MavenSession session, MavenProject project, String name) {
+        final String property = session.getUserProperties().getProperty("bgav." + name, session.getSystemProperties().getProperty("bgav." + name));
+        if (property != null) {
+            return property;
+        }
+        final org.apache.maven.model.Plugin plugin = project.getPlugin(PLUGIN_KEY);
+        if (plugin == null || !(plugin.getConfiguration() instanceof Xpp3Dom)) {
+            return null;
+        }
+        final Xpp3Dom child = ((Xpp3Dom) plugin.getConfiguration()).getChild(name);
+        if (child == null) {
+            return null;
+        }
+        if (child.getChildCount() > 0) {
+            final List<String> values = new ArrayList<>();
+            for (Xpp3Dom value : child.getChildren()) {
+                values.add(value.getValue());
+            }
+            return String.join(",", values);
+        }
+        return child.getValue();
+    }
+
+    private Log getLog() {
+        return logger != null ? new DefaultLog(logger) : new SystemStreamLog();
+    }
+}
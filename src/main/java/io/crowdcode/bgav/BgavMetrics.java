@@ -0,0 +1,349 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * timings and counters of a BGAV run
+ *
+ * <p>Phases are timed with {@link #start(String)} in a try-with-resources block, remote work of a dependency with
+ * {@link #start(String, String)}. At the end of the run a summary table is logged and a JSON report is written.
+ * If Java Flight Recorder is available, the hot paths are also emitted as JFR events, see {@link BgavEvents}.</p>
+ */
+public class BgavMetrics {
+
+    public static final String MODEL_READ = "model read";
+    public static final String GIT_STATUS = "git status";
+    public static final String BRANCH_RESOLUTION = "commit/branch resolution";
+    public static final String PROJECT_RESOLUTION = "project resolution";
+    public static final String PROBE = "clone/probe";
+    public static final String POM_PARSE = "pom parse";
+    public static final String POM_WRITE = "pom edit/write";
+    /**
+     * prefix of remote Git operations, e.g. "remote clone"
+     */
+    public static final String REMOTE_GIT = "remote ";
+    public static final String COMMIT_PUSH = "commit and push";
+
+    public static final String BYTES_FETCHED = "bytes fetched";
+    public static final String CACHE_HITS = "cache hits";
+    public static final String POMS_TOUCHED = "poms touched";
+    public static final String CLONES = "clones";
+
+    private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+    /**
+     * statistics of a phase
+     */
+    public static class Phase {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        public synchronized long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+        }
+    }
+
+    /**
+     * receives the end of a timed phase, implemented by the JFR events
+     */
+    interface EventRecorder {
+        void end(String subject, long bytes, String outcome);
+    }
+
+    /**
+     * a running timer, stops on close. The outcome is "failure", unless {@link #success()} has been called.
+     */
+    public class Timer implements AutoCloseable {
+        private final String phase;
+        private final String dependency;
+        private final EventRecorder event;
+        private final long start = System.nanoTime();
+        private String detail;
+        private long bytes;
+        private boolean success;
+
+        private Timer(String phase, String dependency) {
+            this.phase = phase;
+            this.dependency = dependency;
+            this.detail = dependency;
+            this.event = JFR_AVAILABLE ? BgavEvents.begin(phase) : null;
+        }
+
+        /**
+         * @param detail artifact, file or URL the phase works on
+         * @return this
+         */
+        public Timer detail(String detail) {
+            this.detail = detail;
+            return this;
+        }
+
+        /**
+         * @param bytes bytes transferred in the phase
+         * @return this
+         */
+        public Timer bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        /**
+         * mark the phase as successful
+         */
+        public void success() {
+            success = true;
+        }
+
+        @Override
+        public void close() {
+            record(phase, dependency, System.nanoTime() - start);
+            if (event != null) {
+                event.end(detail, bytes, success ? "success" : "failure");
+            }
+        }
+    }
+
+    private final long start = System.currentTimeMillis();
+    private final Map<String, Phase> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Map<String, Long>> dependencies = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Long> counters = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final List<String> touchedPoms = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, String> undecided = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public BgavMetrics() {
+        counters.put(BYTES_FETCHED, 0L);
+        counters.put(CACHE_HITS, 0L);
+        counters.put(POMS_TOUCHED, 0L);
+        counters.put(CLONES, 0L);
+    }
+
+    /**
+     * start timing a phase
+     *
+     * @param phase
+     * @return timer, which has to be closed
+     */
+    public Timer start(String phase) {
+        return new Timer(phase, null);
+    }
+
+    /**
+     * start timing a phase of a dependency
+     *
+     * @param phase
+     * @param dependency groupId:artifactId:version
+     * @return timer, which has to be closed
+     */
+    public Timer start(String phase, String dependency) {
+        return new Timer(phase, dependency);
+    }
+
+    /**
+     * increment a counter
+     *
+     * @param counter
+     * @param delta
+     */
+    public void increment(String counter, long delta) {
+        counters.merge(counter, delta, Long::sum);
+    }
+
+    /**
+     * count a written POM, every POM is counted once
+     *
+     * @param pomfile
+     */
+    public void touched(File pomfile) {
+        final String path = pomfile.getAbsolutePath();
+        synchronized (touchedPoms) {
+            if (!touchedPoms.contains(path)) {
+                touchedPoms.add(path);
+                increment(POMS_TOUCHED, 1);
+            }
+        }
+    }
+
+    /**
+     * record a dependency, which could not be decided, e.g. offline without local data of its repository. Every
+     * dependency is recorded once.
+     *
+     * @param dependency groupId:artifactId:version
+     * @param reason
+     */
+    public void undecided(String dependency, String reason) {
+        undecided.putIfAbsent(dependency, reason);
+    }
+
+    /**
+     * @return reasons of the dependencies, which could not be decided
+     */
+    public Map<String, String> getUndecided() {
+        synchronized (undecided) {
+            return new LinkedHashMap<>(undecided);
+        }
+    }
+
+    void record(String phase, String dependency, long nanos) {
+        phases.computeIfAbsent(phase, p -> new Phase()).add(nanos);
+        if (dependency != null) {
+            synchronized (dependencies) {
+                dependencies.computeIfAbsent(dependency, d -> new LinkedHashMap<>())
+                        .merge(phase, TimeUnit.NANOSECONDS.toMillis(nanos), Long::sum);
+            }
+        }
+    }
+
+    public Phase getPhase(String phase) {
+        return phases.get(phase);
+    }
+
+    public long getCounter(String counter) {
+        return counters.getOrDefault(counter, 0L);
+    }
+
+    public long getWallMillis() {
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * @return milliseconds per phase of every dependency
+     */
+    public Map<String, Map<String, Long>> getDependencies() {
+        synchronized (dependencies) {
+            final Map<String, Map<String, Long>> copy = new LinkedHashMap<>();
+            dependencies.forEach((dependency, timings) -> copy.put(dependency, new LinkedHashMap<>(timings)));
+            return copy;
+        }
+    }
+
+    /**
+     * @return statistics per phase
+     */
+    public Map<String, Phase> getPhases() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+
+    /**
+     * log a summary table
+     *
+     * @param log
+     */
+    public void logSummary(Log log) {
+        log.info("------------------------------------------------------------------------");
+        log.info(String.format("%-28s %8s %12s %10s", "BGAV phase", "count", "total ms", "max ms"));
+        log.info("------------------------------------------------------------------------");
+        getPhases().forEach((name, phase) ->
+                log.info(String.format("%-28s %8d %12d %10d", name, phase.getCount(), phase.getTotalMillis(), phase.getMaxMillis())));
+        log.info("------------------------------------------------------------------------");
+        synchronized (counters) {
+            counters.forEach((name, value) -> log.info(String.format("%-28s %8d", name, value)));
+        }
+        log.info(String.format("%-28s %8d ms", "wall time", getWallMillis()));
+        log.info("------------------------------------------------------------------------");
+        final Map<String, String> undecidedDependencies = getUndecided();
+        if (!undecidedDependencies.isEmpty()) {
+            log.warn(undecidedDependencies.size() + " dependencies could not be decided:");
+            undecidedDependencies.forEach((dependency, reason) -> log.warn("  " + dependency + ": " + reason));
+            log.info("------------------------------------------------------------------------");
+        }
+    }
+
+    /**
+     * write a JSON report
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void writeReport(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            Files.createDirectories(file.getParentFile().toPath());
+        }
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+    }
+
+    String toJson() {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n  \"wallMillis\": ").append(getWallMillis()).append(",\n  \"phases\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Phase> entry : getPhases().entrySet()) {
+            final Phase phase = entry.getValue();
+            json.append(separator).append("    ").append(quote(entry.getKey()))
+                    .append(": {\"count\": ").append(phase.getCount())
+                    .append(", \"totalMillis\": ").append(phase.getTotalMillis())
+                    .append(", \"maxMillis\": ").append(phase.getMaxMillis()).append("}");
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"counters\": {");
+        separator = "\n";
+        synchronized (counters) {
+            for (Map.Entry<String, Long> entry : counters.entrySet()) {
+                json.append(separator).append("    ").append(quote(entry.getKey())).append(": ").append(entry.getValue());
+                separator = ",\n";
+            }
+        }
+        json.append("\n  },\n  \"dependencies\": {");
+        separator = "\n";
+        for (Map.Entry<String, Map<String, Long>> entry : getDependencies().entrySet()) {
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": {");
+            String innerSeparator = "";
+            for (Map.Entry<String, Long> timing : entry.getValue().entrySet()) {
+                json.append(innerSeparator).append(quote(timing.getKey())).append(": ").append(timing.getValue());
+                innerSeparator = ", ";
+            }
+            json.append("}");
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"undecided\": {");
+        separator = "\n";
+        for (Map.Entry<String, String> entry : getUndecided().entrySet()) {
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": ").append(quote(entry.getValue()));
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t") + "\"";
+    }
+}
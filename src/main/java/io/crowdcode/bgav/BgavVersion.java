@@ -0,0 +1,153 @@
+package io.crowdcode.bgav;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * a version parsed into base, ticket qualifier and SNAPSHOT flag
+ *
+ * <p>{@code 1.0-rc1-NCX-7-SNAPSHOT} has the base {@code 1.0-rc1}, the ticket {@code NCX-7} and is a SNAPSHOT. A ticket
+ * is recognised as the last qualifier before {@code -SNAPSHOT}, like the default ticket expression
+ * {@link Plugin#REGEX_TICKET}: letters, a dash and digits. Versions are parsed once and cached per distinct string,
+ * the transformed versions are kept with the parsed one. The class uses the JDK only, so the command line can use it
+ * without loading Maven.</p>
+ */
+public final class BgavVersion {
+
+    private static final String SNAPSHOT = "-SNAPSHOT";
+    private static final int MAX_CACHED = 10_000;
+    private static final Map<String, BgavVersion> CACHE = new ConcurrentHashMap<>();
+
+    private final String version;
+    private final String base;
+    private final String ticket;
+    private final boolean snapshot;
+    private String withoutTicket;
+    private volatile String[] branched;
+
+    private BgavVersion(String version, String base, String ticket, boolean snapshot) {
+        this.version = version;
+        this.base = base;
+        this.ticket = ticket;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @param version
+     * @return the parsed version, cached per distinct string
+     */
+    public static BgavVersion parse(String version) {
+        final BgavVersion parsed = CACHE.get(version);
+        if (parsed != null) {
+            return parsed;
+        }
+        if (CACHE.size() >= MAX_CACHED) {
+            CACHE.clear();
+        }
+        return CACHE.computeIfAbsent(version, BgavVersion::doParse);
+    }
+
+    private static BgavVersion doParse(String version) {
+        final boolean snapshot = version.endsWith(SNAPSHOT);
+        final int end = snapshot ? version.length() - SNAPSHOT.length() : version.length();
+        // scan the qualifier backwards: digits, dash, letters, dash
+        int i = end - 1;
+        while (i >= 0 && isDigit(version.charAt(i))) {
+            i--;
+        }
+        if (i < end - 1 && i > 0 && version.charAt(i) == '-') {
+            int j = i - 1;
+            while (j >= 0 && isAlpha(version.charAt(j))) {
+                j--;
+            }
+            if (j < i - 1 && j > 0 && version.charAt(j) == '-') {
+                return new BgavVersion(version, version.substring(0, j), version.substring(j + 1, end), snapshot);
+            }
+        }
+        return new BgavVersion(version, version.substring(0, end), null, snapshot);
+    }
+
+    /**
+     * @return the version without ticket and SNAPSHOT
+     */
+    public String getBase() {
+        return base;
+    }
+
+    /**
+     * @return the ticket qualifier as written in the version or null
+     */
+    public String getTicket() {
+        return ticket;
+    }
+
+    /**
+     * @return the upper case ticket id or null
+     */
+    public String getTicketId() {
+        return ticket != null ? ticket.toUpperCase() : null;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return true, if the version carries a ticket
+     */
+    public boolean isBgav() {
+        return ticket != null;
+    }
+
+    /**
+     * @param ticketId
+     * @return the version with the ticket instead of the current one, e.g. 1.0-NCX-7-SNAPSHOT for 1.0-SNAPSHOT; a
+     * version ending with the ticket is kept, also if it is not recognised as a ticket, e.g. 1.0-1234-SNAPSHOT for a
+     * custom ticket expression
+     */
+    public String withTicket(String ticketId) {
+        if (ticketId.equals(ticket) || endsWithTicket(ticketId)) {
+            return version;
+        }
+        final String[] last = branched;
+        if (last != null && last[0].equals(ticketId)) {
+            return last[1];
+        }
+        final String result = new StringBuilder(base.length() + ticketId.length() + 1 + (snapshot ? SNAPSHOT.length() : 0))
+                .append(base).append('-').append(ticketId).append(snapshot ? SNAPSHOT : "").toString();
+        branched = new String[]{ticketId, result};
+        return result;
+    }
+
+    /**
+     * @return the version without the ticket, e.g. 1.0-SNAPSHOT for 1.0-NCX-7-SNAPSHOT
+     */
+    public String withoutTicket() {
+        if (ticket == null) {
+            return version;
+        }
+        if (withoutTicket == null) {
+            withoutTicket = snapshot ? base + SNAPSHOT : base;
+        }
+        return withoutTicket;
+    }
+
+    private boolean endsWithTicket(String ticketId) {
+        final int end = snapshot ? version.length() - SNAPSHOT.length() : version.length();
+        final int start = end - ticketId.length();
+        return start > 0 && version.charAt(start - 1) == '-' && version.regionMatches(start, ticketId, 0, ticketId.length());
+    }
+
+    @Override
+    public String toString() {
+        return version;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
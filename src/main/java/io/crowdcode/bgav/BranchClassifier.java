@@ -0,0 +1,126 @@
+package io.crowdcode.bgav;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * classifies branches and extracts ticket ids with the regular expressions of a run
+ *
+ * <p>The expressions are compiled once, the results are memoized per input string, so the regex work is done once
+ * per distinct branch or version, however many modules and dependencies refer to it. An instance is shared by the
+ * plugin and its {@link MavenHandler}s and is safe for concurrent use.</p>
+ */
+public class BranchClassifier {
+
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+    /**
+     * memoized "no match", the maps do not hold null values
+     */
+    private static final String NO_MATCH = new String("");
+
+    private final Pattern ticket;
+    private final Pattern bgavBranch;
+    private final Pattern nonBgavBranch;
+    private final Map<String, Boolean> bgavBranches = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> nonBgavBranches = new ConcurrentHashMap<>();
+    private final Map<String, String> tickets = new ConcurrentHashMap<>();
+
+    /**
+     * classifier with the default expressions
+     */
+    public BranchClassifier() {
+        this(null, null, null);
+    }
+
+    /**
+     * @param regexTicket expression of the ticket id, the default one if null or empty
+     * @param regexBgavBranch expression of BGAV branches, the default one if null or empty
+     * @param regexNonBgavBranch expression of non BGAV branches, the default one if null or empty
+     */
+    public BranchClassifier(String regexTicket, String regexBgavBranch, String regexNonBgavBranch) {
+        this.ticket = compile(orDefault(regexTicket, Plugin.REGEX_TICKET));
+        this.bgavBranch = compile(orDefault(regexBgavBranch, Plugin.REGEX_BGAV_BRANCH));
+        this.nonBgavBranch = compile(orDefault(regexNonBgavBranch, Plugin.REGEX_NON_BGAV_BRANCH));
+    }
+
+    /**
+     * @param branch
+     * @return true, if the branch gets BGAV versions
+     */
+    public boolean isBgavBranch(String branch) {
+        return branch != null && bgavBranches.computeIfAbsent(branch, b -> !isEmpty(getMatchLast(b, bgavBranch)));
+    }
+
+    /**
+     * @param branch
+     * @return true, if the BGAV versions are removed on the branch
+     */
+    public boolean isNonBgavBranch(String branch) {
+        return branch != null && nonBgavBranches.computeIfAbsent(branch, b -> !isEmpty(getMatchLast(b, nonBgavBranch)));
+    }
+
+    /**
+     * extract the ticket id with the configured expression
+     *
+     * @param search branch or version
+     * @return the upper case ticket id or null
+     */
+    public String getTicketId(String search) {
+        return lookup(tickets, search, ticket);
+    }
+
+    public String getTicketPattern() {
+        return ticket.pattern();
+    }
+
+    public String getBgavBranchPattern() {
+        return bgavBranch.pattern();
+    }
+
+    public String getNonBgavBranchPattern() {
+        return nonBgavBranch.pattern();
+    }
+
+    /**
+     * @param search
+     * @param regex
+     * @return group 1 of the last match of the (cached) compiled expression or null
+     */
+    static String getMatchLast(String search, String regex) {
+        return getMatchLast(search, compile(regex));
+    }
+
+    private static String getMatchLast(String search, Pattern pattern) {
+        String match = null;
+        final Matcher matcher = pattern.matcher(search);
+        while (matcher.find()) {
+            match = matcher.group(1);
+        }
+        return match;
+    }
+
+    private static String lookup(Map<String, String> memo, String search, Pattern pattern) {
+        if (search == null) {
+            return null;
+        }
+        final String ticketId = memo.computeIfAbsent(search, s -> {
+            final String match = getMatchLast(s, pattern);
+            return match != null ? match.toUpperCase() : NO_MATCH;
+        });
+        return ticketId == NO_MATCH ? null : ticketId;
+    }
+
+    private static Pattern compile(String regex) {
+        return PATTERNS.computeIfAbsent(regex, Pattern::compile);
+    }
+
+    private static String orDefault(String regex, String defaultRegex) {
+        return regex == null || regex.isEmpty() ? defaultRegex : regex;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
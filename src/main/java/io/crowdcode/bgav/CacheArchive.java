@@ -0,0 +1,438 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * a portable archive of the caches of a {@link DiskCache}: the mirrors of dependency repositories and the probe
+ * results, e.g. to start an ephemeral build agent with the caches restored from a CI cache layer
+ *
+ * <p>The archive is a plain ustar tar file, named by a key derived from the namespace dependencies of the project.
+ * The files are stored uncompressed, the packs of the mirrors are compressed already. The last file is a manifest with
+ * the SHA-256 hash and the size of every other file. An import verifies all of them against the archive mapped into
+ * memory, before it touches the cache, then copies the files by {@link FileChannel#transferTo} into a temp directory
+ * next to each entry, without passing them through the heap, and moves them into place holding the lock of the
+ * entry. Entries present in the cache are kept, incomplete mirrors are replaced.</p>
+ */
+public class CacheArchive {
+
+    static final String MANIFEST = "bgav-manifest";
+    private static final String PREFIX = "bgav-cache-";
+    private static final String SUFFIX = ".tar";
+    private static final int BLOCK = 512;
+    private static final int MAP_SIZE = 64 * 1024 * 1024;
+    private static final long MAX_SIZE = 077777777777L;
+
+    /**
+     * a file of the archive
+     */
+    private static final class Item {
+        private final String path;
+        private final long offset;
+        private final long size;
+        private final boolean directory;
+
+        Item(String path, long offset, long size, boolean directory) {
+            this.path = path;
+            this.offset = offset;
+            this.size = size;
+            this.directory = directory;
+        }
+    }
+
+    private final DiskCache cache;
+    private final Log log;
+
+    /**
+     * @param cache
+     * @param log
+     */
+    public CacheArchive(DiskCache cache, Log log) {
+        this.cache = cache;
+        this.log = log;
+    }
+
+    /**
+     * @param mavenHandler handler resolving version properties
+     * @param models the POMs of the project, e.g. the root POM and its modules
+     * @param namespace
+     * @return key of the archive, the SHA-256 hash of the sorted groupId:artifactId:version of the namespace
+     * dependencies with their versions resolved
+     */
+    public static String key(MavenHandler mavenHandler, List<Model> models, NamespaceMatcher namespace) {
+        final TreeSet<String> dependencies = new TreeSet<>();
+        for (Model model : models) {
+            for (Dependency dependency : mavenHandler.getNamespaceDependencies(model, namespace)) {
+                final String version = mavenHandler.resolveVersion(model, dependency);
+                dependencies.add(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + (version != null ? version : dependency.getVersion()));
+            }
+        }
+        return ChangePlan.hash(String.join("\n", dependencies).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param directory directory of the archives
+     * @param key
+     * @return the archive of the key
+     */
+    public static File getArchive(File directory, String key) {
+        return new File(directory, PREFIX + key + SUFFIX);
+    }
+
+    /**
+     * write the complete mirrors of the repositories and all probe results of the cache into an archive, replacing it
+     * atomically
+     *
+     * @param archive
+     * @param scmUrls URLs of the repositories whose mirrors are exported
+     * @return number of cache entries exported
+     * @throws MojoExecutionException
+     */
+    public int export(File archive, Collection<String> scmUrls) throws MojoExecutionException {
+        final File temp = DiskCache.newTempFile(archive);
+        try {
+            Files.createDirectories(archive.getAbsoluteFile().getParentFile().toPath());
+            final StringBuilder manifest = new StringBuilder();
+            int entries = 0;
+            long bytes = 0;
+            try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (String scmUrl : scmUrls) {
+                    final Long written = cache.read(GitMirrorCache.KIND, scmUrl, mirror -> GitMirrorCache.isComplete(mirror)
+                            ? writeTree(out, GitMirrorCache.KIND + "/" + mirror.getName(), mirror, manifest) : null);
+                    if (written != null) {
+                        entries++;
+                        bytes += written;
+                    } else {
+                        log.info("no complete mirror of " + scmUrl + " to export");
+                    }
+                }
+                for (String name : cache.list(ProbeCache.KIND)) {
+                    bytes += cache.readEntry(ProbeCache.KIND, name, entry -> entry.isFile()
+                            ? writeFile(out, ProbeCache.KIND + "/" + name, entry, manifest) : 0L);
+                    entries++;
+                }
+                writeHeader(out, MANIFEST, manifest.length(), false);
+                out.write(ByteBuffer.wrap(manifest.toString().getBytes(StandardCharsets.US_ASCII)));
+                pad(out, manifest.length());
+                out.write(ByteBuffer.allocate(2 * BLOCK));
+            }
+            DiskCache.moveIntoPlace(temp, archive);
+            log.info("exported " + entries + " cache entries with " + bytes + " bytes to " + archive);
+            return entries;
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not write cache archive " + archive + ": " + e, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp.toPath());
+            } catch (IOException e) {
+                log.debug("could not delete " + temp + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * verify an archive and extract its entries into the cache
+     *
+     * @param archive
+     * @return number of cache entries imported, without those kept
+     * @throws MojoExecutionException if the archive is corrupt
+     */
+    public int extract(File archive) throws MojoExecutionException {
+        try (FileChannel in = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+            final Map<String, List<Item>> entries = verify(archive, in);
+            int imported = 0;
+            for (Map.Entry<String, List<Item>> entry : entries.entrySet()) {
+                final String[] kindAndName = entry.getKey().split("/");
+                final boolean extracted = cache.writeEntry(kindAndName[0], kindAndName[1], file -> {
+                    if (file.exists() && (!GitMirrorCache.KIND.equals(kindAndName[0]) || GitMirrorCache.isComplete(file))) {
+                        return false;
+                    }
+                    final File temp = DiskCache.newTempFile(file);
+                    try {
+                        for (Item item : entry.getValue()) {
+                            extractItem(in, item, new File(temp, item.path.substring(entry.getKey().length())));
+                        }
+                        DiskCache.deleteRecursively(file);
+                        DiskCache.moveIntoPlace(temp, file);
+                    } finally {
+                        DiskCache.deleteRecursively(temp);
+                    }
+                    return true;
+                });
+                if (extracted) {
+                    imported++;
+                }
+            }
+            log.info("imported " + imported + " of " + entries.size() + " cache entries from " + archive);
+            return imported;
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not read cache archive " + archive + ": " + e, e);
+        }
+    }
+
+    /**
+     * check the files of the archive against its manifest
+     *
+     * @return the files of the archive by cache entry
+     */
+    private static Map<String, List<Item>> verify(File archive, FileChannel in) throws IOException, MojoExecutionException {
+        final List<Item> items = readItems(archive, in);
+        final Item manifestItem = items.isEmpty() ? null : items.get(items.size() - 1);
+        if (manifestItem == null || !MANIFEST.equals(manifestItem.path)) {
+            throw new MojoExecutionException("cache archive " + archive + " has no manifest");
+        }
+        if (manifestItem.size > MAP_SIZE) {
+            throw new MojoExecutionException("cache archive " + archive + " has a corrupt manifest");
+        }
+        final Map<String, String> manifest = new LinkedHashMap<>();
+        final ByteBuffer manifestContent = ByteBuffer.allocate((int) manifestItem.size);
+        readFully(in, manifestContent, manifestItem.offset);
+        for (String line : new String(manifestContent.array(), StandardCharsets.US_ASCII).split("\n")) {
+            if (!line.isEmpty()) {
+                final String[] fields = line.split(" ", 3);
+                if (fields.length != 3) {
+                    throw new MojoExecutionException("cache archive " + archive + " has a corrupt manifest");
+                }
+                manifest.put(fields[2], fields[0] + " " + fields[1]);
+            }
+        }
+
+        final Map<String, List<Item>> entries = new LinkedHashMap<>();
+        for (Item item : items.subList(0, items.size() - 1)) {
+            final String[] segments = item.path.split("/");
+            final boolean valid = segments.length >= 2 && DiskCache.isEntryName(segments[1])
+                    && (GitMirrorCache.KIND.equals(segments[0]) || ProbeCache.KIND.equals(segments[0]) && segments.length == 2 && !item.directory)
+                    && Arrays.stream(segments).noneMatch(segment -> segment.isEmpty() || ".".equals(segment) || "..".equals(segment));
+            if (!valid) {
+                throw new MojoExecutionException("cache archive " + archive + " contains " + item.path + ", which is no cache entry");
+            }
+            if (!item.directory) {
+                final String expected = manifest.remove(item.path);
+                if (expected == null || !expected.equals(hash(in, item.offset, item.size) + " " + item.size)) {
+                    throw new MojoExecutionException("cache archive " + archive + " is corrupt: " + item.path + " does not match the manifest");
+                }
+            }
+            entries.computeIfAbsent(segments[0] + "/" + segments[1], entry -> new ArrayList<>()).add(item);
+        }
+        if (!manifest.isEmpty()) {
+            throw new MojoExecutionException("cache archive " + archive + " is incomplete: " + manifest.keySet().iterator().next() + " is missing");
+        }
+        return entries;
+    }
+
+    private static List<Item> readItems(File archive, FileChannel in) throws IOException, MojoExecutionException {
+        final List<Item> items = new ArrayList<>();
+        final ByteBuffer header = ByteBuffer.allocate(BLOCK);
+        long position = 0;
+        while (true) {
+            header.clear();
+            if (position + BLOCK > in.size()) {
+                throw new MojoExecutionException("cache archive " + archive + " is truncated");
+            }
+            readFully(in, header, position);
+            final byte[] block = header.array();
+            if (isZero(block)) {
+                return items;
+            }
+            if (checksum(block) != parseOctal(block, 148, 8)) {
+                throw new MojoExecutionException("cache archive " + archive + " is corrupt at offset " + position);
+            }
+            final String name = parseString(block, 0, 100);
+            final String prefix = parseString(block, 345, 155);
+            final String path = prefix.isEmpty() ? name : prefix + "/" + name;
+            final long size = parseOctal(block, 124, 12);
+            final byte type = block[156];
+            if (type != '0' && type != 0 && type != '5') {
+                throw new MojoExecutionException("cache archive " + archive + " contains " + path + ", which is no file or directory");
+            }
+            final boolean directory = type == '5';
+            position += BLOCK;
+            if (position + size > in.size()) {
+                throw new MojoExecutionException("cache archive " + archive + " is truncated");
+            }
+            items.add(new Item(directory && path.endsWith("/") ? path.substring(0, path.length() - 1) : path, position, directory ? 0 : size, directory));
+            position += directory ? 0 : (size + BLOCK - 1) / BLOCK * BLOCK;
+        }
+    }
+
+    private static void extractItem(FileChannel in, Item item, File target) throws IOException {
+        if (item.directory) {
+            Files.createDirectories(target.toPath());
+            return;
+        }
+        Files.createDirectories(target.getParentFile().toPath());
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long transferred = 0;
+            while (transferred < item.size) {
+                final long count = in.transferTo(item.offset + transferred, item.size - transferred, out);
+                if (count <= 0) {
+                    throw new IOException("could not copy " + item.path);
+                }
+                transferred += count;
+            }
+        }
+    }
+
+    private static long writeTree(FileChannel out, String path, File file, StringBuilder manifest) throws IOException {
+        if (!file.isDirectory()) {
+            return writeFile(out, path, file, manifest);
+        }
+        writeHeader(out, path + "/", 0, true);
+        final String[] children = file.list();
+        long bytes = 0;
+        if (children != null) {
+            Arrays.sort(children);
+            for (String child : children) {
+                bytes += writeTree(out, path + "/" + child, new File(file, child), manifest);
+            }
+        }
+        return bytes;
+    }
+
+    private static long writeFile(FileChannel out, String path, File file, StringBuilder manifest) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = in.size();
+            manifest.append(hash(in, 0, size)).append(' ').append(size).append(' ').append(path).append('\n');
+            writeHeader(out, path, size, false);
+            long transferred = 0;
+            while (transferred < size) {
+                final long count = in.transferTo(transferred, size - transferred, out);
+                if (count <= 0) {
+                    throw new IOException("could not copy " + file);
+                }
+                transferred += count;
+            }
+            pad(out, size);
+            return size;
+        }
+    }
+
+    private static void writeHeader(FileChannel out, String path, long size, boolean directory) throws IOException {
+        if (size > MAX_SIZE) {
+            throw new IOException(path + " is too large for the cache archive");
+        }
+        final byte[] block = new byte[BLOCK];
+        final byte[] name = path.getBytes(StandardCharsets.UTF_8);
+        int split = 0;
+        if (name.length > 100) {
+            // ustar keeps long paths in a prefix of up to 155 bytes, split at a slash
+            split = Math.min(155, name.length - 1);
+            while (split > 0 && (name[split] != '/' || name.length - split - 1 > 100)) {
+                split--;
+            }
+            if (split == 0) {
+                throw new IOException(path + " is too long for the cache archive");
+            }
+            System.arraycopy(name, 0, block, 345, split);
+            System.arraycopy(name, split + 1, block, 0, name.length - split - 1);
+        } else {
+            System.arraycopy(name, 0, block, 0, name.length);
+        }
+        putOctal(block, 100, 8, directory ? 0755 : 0644);
+        putOctal(block, 108, 8, 0);
+        putOctal(block, 116, 8, 0);
+        putOctal(block, 124, 12, size);
+        putOctal(block, 136, 12, 0);
+        block[156] = (byte) (directory ? '5' : '0');
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, block, 257, 8);
+        Arrays.fill(block, 148, 156, (byte) ' ');
+        final String checksum = String.format("%06o", checksum(block));
+        System.arraycopy(checksum.getBytes(StandardCharsets.US_ASCII), 0, block, 148, 6);
+        block[154] = 0;
+        block[155] = ' ';
+        out.write(ByteBuffer.wrap(block));
+    }
+
+    private static void pad(FileChannel out, long size) throws IOException {
+        final int padding = (int) ((BLOCK - size % BLOCK) % BLOCK);
+        if (padding > 0) {
+            out.write(ByteBuffer.allocate(padding));
+        }
+    }
+
+    /**
+     * @return hex SHA-256 of a region of a file, read through a memory map instead of the heap
+     */
+    private static String hash(FileChannel channel, long offset, long size) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (long position = 0; position < size; position += MAP_SIZE) {
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, offset + position, Math.min(MAP_SIZE, size - position)));
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of the archive");
+            }
+        }
+    }
+
+    private static int checksum(byte[] block) {
+        int sum = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            sum += i >= 148 && i < 156 ? ' ' : block[i] & 0xff;
+        }
+        return sum;
+    }
+
+    private static boolean isZero(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putOctal(byte[] block, int offset, int length, long value) {
+        final String octal = String.format("%0" + (length - 1) + "o", value);
+        System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, block, offset, length - 1);
+    }
+
+    private static long parseOctal(byte[] block, int offset, int length) throws MojoExecutionException {
+        final String value = parseString(block, offset, length).trim();
+        try {
+            return value.isEmpty() ? 0 : Long.parseLong(value, 8);
+        } catch (NumberFormatException e) {
+            throw new MojoExecutionException("invalid number in cache archive header: " + value);
+        }
+    }
+
+    private static String parseString(byte[] block, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && block[end] != 0) {
+            end++;
+        }
+        return new String(block, offset, end - offset, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+
+/**
+ * exports the mirrors of the namespace dependency repositories and the probe results of the cacheDir into one archive,
+ * named by the hash of the namespace dependencies, e.g. to be saved as a CI cache layer and restored by the
+ * cache-import goal on a fresh build agent
+ */
+@Mojo(name = "cache-export")
+public class CacheExportMojo extends Plugin {
+
+    /**
+     * directory of the cache archives
+     */
+    @Parameter(property = "cacheArchiveDir", defaultValue = "${project.build.directory}/bgav-cache")
+    private File cacheArchiveDir;
+
+    private File archive;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        archive = exportCaches(cacheArchiveDir != null ? cacheArchiveDir : new File("target/bgav-cache"));
+    }
+
+    /**
+     * @return the archive written by the last run
+     */
+    File getArchive() {
+        return archive;
+    }
+}
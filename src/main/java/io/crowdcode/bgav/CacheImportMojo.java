@@ -0,0 +1,37 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+
+/**
+ * imports the archive of the namespace dependencies written by the cache-export goal into the cacheDir. The archive is
+ * verified against the hashes of its manifest before anything is extracted, entries present in the cacheDir are kept.
+ * Without an archive of the namespace dependencies nothing happens.
+ */
+@Mojo(name = "cache-import")
+public class CacheImportMojo extends Plugin {
+
+    /**
+     * directory of the cache archives
+     */
+    @Parameter(property = "cacheArchiveDir", defaultValue = "${project.build.directory}/bgav-cache")
+    private File cacheArchiveDir;
+
+    private File archive;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        archive = importCaches(cacheArchiveDir != null ? cacheArchiveDir : new File("target/bgav-cache"));
+    }
+
+    /**
+     * @return the archive imported by the last run or null
+     */
+    File getArchive() {
+        return archive;
+    }
+}
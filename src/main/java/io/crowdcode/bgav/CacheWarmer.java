@@ -0,0 +1,216 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * fills the local caches with everything the namespace dependencies of a project need, e.g. when a build agent is
+ * provisioned: the POMs of the dependency projects and of their parents in the local Maven repository, with their SCM
+ * and distribution metadata, and the mirrors of their repositories in the cache directory
+ *
+ * <p>The projects are resolved in parallel first, then the mirrors are fetched in parallel, every repository once.
+ * Mirrors, which are still fresh, are not fetched again, so warming twice is cheap.</p>
+ */
+public class CacheWarmer implements AutoCloseable {
+
+    /**
+     * what has been done for a namespace dependency
+     */
+    public enum Status {
+        /**
+         * the mirror of the repository has been fetched
+         */
+        FETCHED,
+        /**
+         * the mirror of the repository was fresh
+         */
+        FRESH,
+        /**
+         * the project has been resolved, there is no mirror cache
+         */
+        RESOLVED,
+        /**
+         * the project has no SCM URL
+         */
+        NO_SCM,
+        /**
+         * the project or its repository could not be fetched
+         */
+        FAILED
+    }
+
+    /**
+     * result of a namespace dependency
+     */
+    public static final class Result {
+        private final String key;
+        private final Model model;
+        private final Dependency dependency;
+        private String scmUrl;
+        private Status status;
+        private String message;
+
+        Result(String key, Model model, Dependency dependency) {
+            this.key = key;
+            this.model = model;
+            this.dependency = dependency;
+        }
+
+        /**
+         * @return groupId:artifactId:version with the version resolved
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public String getScmUrl() {
+            return scmUrl;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the reason of a failure or null
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return key + ": " + status + (message != null ? " (" + message + ")" : "");
+        }
+    }
+
+    private final Log log;
+    private final MavenHandler mavenHandler;
+    private final boolean mirrors;
+    private final ExecutorService executor;
+    private final Map<String, Result> results = new LinkedHashMap<>();
+
+    /**
+     * @param log
+     * @param mavenHandler handler resolving the dependency projects and fetching the mirrors
+     * @param mirrors true to fetch the mirrors, false if there is no cache directory
+     * @param threads number of projects resolved and repositories fetched in parallel
+     */
+    public CacheWarmer(Log log, MavenHandler mavenHandler, boolean mirrors, int threads) {
+        this.log = log;
+        this.mavenHandler = mavenHandler;
+        this.mirrors = mirrors;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "bgav-warm-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * warm the caches for the namespace dependencies of the models
+     *
+     * @param models the POMs of the project, e.g. the root POM and its modules
+     * @param namespace
+     * @param gituser
+     * @param gitpassword
+     * @return the namespace dependencies, in the order of the models
+     * @throws MojoExecutionException if interrupted
+     */
+    public List<Result> warm(List<Model> models, NamespaceMatcher namespace, String gituser, String gitpassword) throws MojoExecutionException {
+        for (Model model : models) {
+            for (Dependency dependency : mavenHandler.getNamespaceDependencies(model, namespace)) {
+                final String version = mavenHandler.resolveVersion(model, dependency);
+                final String key = dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + (version != null ? version : dependency.getVersion());
+                results.putIfAbsent(key, new Result(key, model, dependency));
+            }
+        }
+        log.info("warming the caches for " + results.size() + " namespace dependencies");
+
+        final Map<Result, Future<String>> resolutions = new LinkedHashMap<>();
+        for (Result result : results.values()) {
+            resolutions.put(result, executor.submit(() -> mavenHandler.resolveScmUrl(result.model, result.dependency)));
+        }
+        final Map<String, List<Result>> repositories = new LinkedHashMap<>();
+        for (Map.Entry<Result, Future<String>> resolution : resolutions.entrySet()) {
+            final Result result = resolution.getKey();
+            try {
+                result.scmUrl = await(result.key, resolution.getValue());
+            } catch (ExecutionException e) {
+                fail(result, e.getCause());
+                continue;
+            }
+            if (result.scmUrl == null) {
+                result.status = Status.NO_SCM;
+            } else if (!mirrors) {
+                result.status = Status.RESOLVED;
+            } else {
+                repositories.computeIfAbsent(result.scmUrl, url -> new ArrayList<>()).add(result);
+            }
+        }
+
+        final Map<String, Future<Boolean>> fetches = new LinkedHashMap<>();
+        for (String scmUrl : repositories.keySet()) {
+            fetches.put(scmUrl, executor.submit(() -> mavenHandler.warmMirror(scmUrl, gituser, gitpassword)));
+        }
+        for (Map.Entry<String, Future<Boolean>> fetch : fetches.entrySet()) {
+            for (Result result : repositories.get(fetch.getKey())) {
+                try {
+                    result.status = await(fetch.getKey(), fetch.getValue()) ? Status.FETCHED : Status.FRESH;
+                } catch (ExecutionException e) {
+                    fail(result, e.getCause());
+                }
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * log the namespace dependencies with what has been done for them
+     */
+    public void report() {
+        log.info("------------------------------------------------------------------------");
+        log.info("BGAV caches warmed:");
+        final Map<Status, Integer> counts = new LinkedHashMap<>();
+        for (Result result : results.values()) {
+            counts.merge(result.status, 1, Integer::sum);
+            log.info(String.format("  %-50s %-8s %s", result.key, result.status,
+                    result.message != null ? result.message : result.scmUrl != null ? result.scmUrl : ""));
+        }
+        log.info(results.size() + " namespace dependencies: " + counts);
+        log.info("------------------------------------------------------------------------");
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void fail(Result result, Throwable cause) {
+        result.status = Status.FAILED;
+        result.message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+        log.warn("could not warm the caches for " + result.key + ": " + result.message);
+    }
+
+    private static <T> T await(String name, Future<T> future) throws MojoExecutionException, ExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("interrupted while warming the caches for " + name, e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * caches the resolved projects of another resolver. Released projects are kept, SNAPSHOT projects expire, because
+ * their POMs may be redeployed.
+ */
+public class CachingProjectResolver implements ProjectResolver {
+
+    private static final class Entry {
+        private final MavenProject project;
+        private final long expires;
+
+        Entry(MavenProject project, long expires) {
+            this.project = project;
+            this.expires = expires;
+        }
+    }
+
+    private final ProjectResolver delegate;
+    private final long snapshotTtlMillis;
+    private final Map<String, Entry> projects = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate
+     * @param snapshotTtlMillis time to live of SNAPSHOT projects
+     */
+    public CachingProjectResolver(ProjectResolver delegate, long snapshotTtlMillis) {
+        this.delegate = delegate;
+        this.snapshotTtlMillis = snapshotTtlMillis;
+    }
+
+    @Override
+    public MavenProject resolveProject(String groupId, String artifactId, String version) throws ProjectBuildingException {
+        final String key = groupId + ":" + artifactId + ":" + version;
+        final Entry entry = projects.get(key);
+        if (entry != null && System.currentTimeMillis() < entry.expires) {
+            return entry.project;
+        }
+        final MavenProject project = delegate.resolveProject(groupId, artifactId, version);
+        final long expires = version != null && version.endsWith("-SNAPSHOT") ? System.currentTimeMillis() + snapshotTtlMillis : Long.MAX_VALUE;
+        projects.put(key, new Entry(project, expires));
+        return project;
+    }
+
+    public int size() {
+        return projects.size();
+    }
+}
@@ -0,0 +1,381 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the changes a BGAV run would make, recorded by the plan goal and applied by the apply goal with local I/O only
+ *
+ * <p>The plan is a tab separated text file. Every POM is listed with its SHA-256 before and after the changes, so the
+ * apply goal can refuse POMs changed since planning and skip POMs the plan has already been applied to.</p>
+ *
+ * <pre>
+ * bgav-plan	1
+ * branch	feature/NCX-7-foobar
+ * ticket	NCX-7
+ * pom	module/pom.xml	&lt;sha-256 before&gt;	&lt;sha-256 after&gt;	&lt;commit message&gt;
+ * change	module/pom.xml	/project[1]/version[1]	1.0.0-SNAPSHOT	1.0.0-NCX-7-SNAPSHOT	version
+ * </pre>
+ */
+public class ChangePlan {
+
+    private static final String HEADER = "bgav-plan";
+    private static final String FORMAT_VERSION = "1";
+
+    /**
+     * change of the text of a single element of a POM
+     */
+    public static class Change {
+        private final String path;
+        private final String location;
+        private final String oldValue;
+        private final String newValue;
+        private final String reason;
+
+        Change(String path, String location, String oldValue, String newValue, String reason) {
+            this.path = path;
+            this.location = location;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.reason = reason;
+        }
+
+        /**
+         * @return POM path relative to the base directory
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return XPath of the changed element
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        public String getNewValue() {
+            return newValue;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return path + " " + location + ": " + oldValue + " -> " + newValue + " (" + reason + ")";
+        }
+    }
+
+    /**
+     * a POM of the plan
+     */
+    public static class Pom {
+        private final String path;
+        private final String hash;
+        private String appliedHash;
+        private String commitMessage;
+
+        Pom(String path, String hash) {
+            this.path = path;
+            this.hash = hash;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return SHA-256 of the POM at planning
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * @return SHA-256 of the POM after applying the plan
+         */
+        public String getAppliedHash() {
+            return appliedHash;
+        }
+
+        void setAppliedHash(String appliedHash) {
+            this.appliedHash = appliedHash;
+        }
+
+        public String getCommitMessage() {
+            return commitMessage;
+        }
+    }
+
+    private final File baseDir;
+    private final Map<String, Pom> poms = new LinkedHashMap<>();
+    private final List<Change> changes = new ArrayList<>();
+    private String branch;
+    private String ticketId;
+
+    /**
+     * @param baseDir directory the POM paths are relative to
+     */
+    public ChangePlan(File baseDir) {
+        this.baseDir = baseDir.getAbsoluteFile();
+    }
+
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public void setBranch(String branch) {
+        this.branch = branch;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public synchronized List<Change> getChanges() {
+        return Collections.unmodifiableList(new ArrayList<>(changes));
+    }
+
+    public synchronized List<Pom> getPoms() {
+        return Collections.unmodifiableList(new ArrayList<>(poms.values()));
+    }
+
+    /**
+     * @param path
+     * @return the changes of a POM
+     */
+    public synchronized List<Change> getChanges(String path) {
+        final List<Change> pomChanges = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.getPath().equals(path)) {
+                pomChanges.add(change);
+            }
+        }
+        return pomChanges;
+    }
+
+    public synchronized boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * record a change
+     *
+     * @param pomfile
+     * @param location XPath of the element
+     * @param oldValue
+     * @param newValue
+     * @param reason
+     * @throws MojoExecutionException if the POM could not be hashed
+     */
+    public synchronized void record(File pomfile, String location, String oldValue, String newValue, String reason) throws MojoExecutionException {
+        final String path = getPom(pomfile).getPath();
+        changes.removeIf(change -> change.getPath().equals(path) && change.getLocation().equals(location));
+        changes.add(new Change(path, location, oldValue, newValue, reason));
+    }
+
+    /**
+     * record the commit message of a POM, the first message of a POM wins
+     *
+     * @param pomfile
+     * @param commitMessage
+     * @throws MojoExecutionException if the POM could not be hashed
+     */
+    public synchronized void addCommitMessage(File pomfile, String commitMessage) throws MojoExecutionException {
+        final Pom pom = getPom(pomfile);
+        if (pom.commitMessage == null) {
+            pom.commitMessage = commitMessage;
+        }
+    }
+
+    /**
+     * @param path
+     * @return POM file of a path of the plan
+     */
+    public File getFile(String path) {
+        return new File(baseDir, path);
+    }
+
+    /**
+     * write the plan
+     *
+     * @param file
+     * @throws IOException
+     */
+    public synchronized void write(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            Files.createDirectories(file.getParentFile().toPath());
+        }
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writeLine(writer, HEADER, FORMAT_VERSION);
+            writeLine(writer, "branch", branch);
+            writeLine(writer, "ticket", ticketId);
+            for (Pom pom : poms.values()) {
+                writeLine(writer, "pom", pom.path, pom.hash, pom.appliedHash, pom.commitMessage);
+            }
+            for (Change change : changes) {
+                writeLine(writer, "change", change.path, change.location, change.oldValue, change.newValue, change.reason);
+            }
+        }
+    }
+
+    /**
+     * read a plan
+     *
+     * @param file
+     * @param baseDir directory the POM paths are relative to
+     * @return plan
+     * @throws IOException if the plan could not be read or is invalid
+     */
+    public static ChangePlan read(File file, File baseDir) throws IOException {
+        final ChangePlan plan = new ChangePlan(baseDir);
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line == null || !line.equals(HEADER + "\t" + FORMAT_VERSION)) {
+                throw new IOException(file + " is no BGAV plan of version " + FORMAT_VERSION);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final String[] fields = line.split("\t", -1);
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = unescape(fields[i]);
+                }
+                switch (fields[0]) {
+                    case "branch":
+                        plan.branch = fields[1];
+                        break;
+                    case "ticket":
+                        plan.ticketId = fields[1];
+                        break;
+                    case "pom":
+                        checkFields(file, fields, 5);
+                        final Pom pom = new Pom(fields[1], fields[2]);
+                        pom.appliedHash = fields[3];
+                        pom.commitMessage = fields[4].isEmpty() ? null : fields[4];
+                        plan.poms.put(pom.path, pom);
+                        break;
+                    case "change":
+                        checkFields(file, fields, 6);
+                        plan.changes.add(new Change(fields[1], fields[2], fields[3], fields[4], fields[5]));
+                        break;
+                    default:
+                        throw new IOException(file + " has an unknown entry: " + fields[0]);
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @param file
+     * @return hex SHA-256 of the file
+     * @throws IOException
+     */
+    public static String hash(File file) throws IOException {
+        return hash(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * @param content
+     * @return hex SHA-256 of the content
+     */
+    public static String hash(byte[] content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Pom getPom(File pomfile) throws MojoExecutionException {
+        final String path = getPath(pomfile);
+        Pom pom = poms.get(path);
+        if (pom == null) {
+            try {
+                pom = new Pom(path, hash(pomfile));
+            } catch (IOException e) {
+                throw new MojoExecutionException("could not hash " + pomfile + ": " + e, e);
+            }
+            poms.put(path, pom);
+        }
+        return pom;
+    }
+
+    private String getPath(File pomfile) {
+        final String base = baseDir.toPath().normalize().toString();
+        final String absolute = pomfile.getAbsoluteFile().toPath().normalize().toString();
+        final String path = absolute.startsWith(base + File.separator) ? absolute.substring(base.length() + 1) : absolute;
+        return path.replace(File.separatorChar, '/');
+    }
+
+    private static void checkFields(File file, String[] fields, int count) throws IOException {
+        if (fields.length != count) {
+            throw new IOException(file + " has an invalid " + fields[0] + " entry");
+        }
+    }
+
+    private static void writeLine(Writer writer, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            writer.write(escape(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        final StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                final char next = value.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
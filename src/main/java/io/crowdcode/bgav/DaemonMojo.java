@@ -0,0 +1,126 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runs the plugin as a long-lived local daemon, which keeps the resolved dependency projects and the results of the
+ * remote probes warm between runs. Requests are sent by the {@link BgavClient}, e.g. from a Git hook, without starting
+ * Maven again.
+ *
+ * <p>Every request runs with the configuration the daemon was started with, the plugin configuration of the requested
+ * directory is not read. Requests for another project than the one the daemon was started in are rejected.</p>
+ */
+@Mojo(name = "daemon", requiresProject = false)
+public class DaemonMojo extends Plugin {
+
+    /**
+     * loopback port of the daemon, 0 for any free port
+     */
+    @Parameter(property = "daemonPort", defaultValue = "0")
+    private int daemonPort;
+
+    /**
+     * file the port and the access token of the daemon are published in
+     */
+    @Parameter(property = "daemonFile", defaultValue = "${user.home}/.bgav/daemon")
+    private File daemonFile;
+
+    /**
+     * seconds without requests after which the daemon stops, 0 for never
+     */
+    @Parameter(property = "daemonIdleTimeout", defaultValue = "3600")
+    private int daemonIdleTimeout;
+
+    /**
+     * seconds the result of a remote probe and a resolved SNAPSHOT project are kept
+     */
+    @Parameter(property = "daemonCacheTtl", defaultValue = "60")
+    private int daemonCacheTtl;
+
+    private BgavDaemon daemon;
+    private String project;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final File pom = getProjectPom();
+        project = pom.isFile() ? getProjectKey(WorkspaceGraph.readModel(pom)) : null;
+        if (project == null) {
+            getLog().warn("BGAV daemon started outside of a project, every request uses the configuration of the command line");
+        }
+        final long ttl = TimeUnit.SECONDS.toMillis(daemonCacheTtl);
+        setProbeCache(new ProbeCache(ttl));
+        setProjectResolver(new CachingProjectResolver(getProjectResolver(), ttl));
+        final File file = daemonFile != null ? daemonFile : new File(System.getProperty("user.home"), ".bgav/daemon");
+        daemon = new BgavDaemon(getLog(), file, daemonPort, TimeUnit.SECONDS.toMillis(daemonIdleTimeout), this::handle);
+        try {
+            daemon.start();
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not start BGAV daemon: " + e, e);
+        }
+        daemon.serve();
+    }
+
+    /**
+     * @return the running daemon, null before execution
+     */
+    BgavDaemon getDaemon() {
+        return daemon;
+    }
+
+    private String handle(BgavDaemon.Request request, Log responseLog) throws MojoExecutionException, MojoFailureException {
+        final Log daemonLog = getLog();
+        File planFile = null;
+        if ("plan".equals(request.getGoal())) {
+            planFile = request.getPlanFile() != null ? request.getPlanFile() : new File(request.getDir(), "target/bgav-plan.txt");
+        } else if (!"bgav".equals(request.getGoal())) {
+            throw new MojoExecutionException("unknown goal " + request.getGoal());
+        }
+        prepareRun(request.getDir(), request.getBranch(), planFile);
+        checkProject(responseLog);
+        setLog(responseLog);
+        try {
+            super.execute();
+        } finally {
+            setLog(daemonLog);
+        }
+        return planFile != null ? "plan written to " + planFile : request.getDir().getPath();
+    }
+
+    /**
+     * reject a request for another project, it would run with the configuration of the daemon's project
+     *
+     * @param responseLog log of the request
+     * @throws MojoExecutionException if the requested directory is another project
+     */
+    private void checkProject(Log responseLog) throws MojoExecutionException {
+        final File pom = getProjectPom();
+        if (!pom.isFile()) {
+            throw new MojoExecutionException("no POM " + pom);
+        }
+        final String requested = getProjectKey(WorkspaceGraph.readModel(pom));
+        if (project == null) {
+            responseLog.warn("running " + requested + " with the configuration the BGAV daemon was started with");
+        } else if (!project.equals(requested)) {
+            throw new MojoExecutionException(pom + " is the project " + requested + ", the BGAV daemon serves " + project
+                    + " with its configuration; start a daemon in that project");
+        }
+    }
+
+    /**
+     * @param model
+     * @return groupId:artifactId of the project, the groupId may be inherited
+     */
+    private static String getProjectKey(Model model) {
+        final String groupId = model.getGroupId() != null ? model.getGroupId() : model.getParent() != null ? model.getParent().getGroupId() : null;
+        return groupId + ":" + model.getArtifactId();
+    }
+}
@@ -0,0 +1,101 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * starts the remote probes of namespace dependencies in the background, as soon as the ticket id is known, so they
+ * overlap with the local work of the plugin. The results are awaited, when the dependencies are edited.
+ *
+ * @see MavenHandler#checkforDependencies
+ */
+public class DependencyPrefetcher implements AutoCloseable {
+
+    private final Log log;
+    private final ExecutorService executor;
+    private final Map<String, Future<DependencyProbe>> probes = new ConcurrentHashMap<>();
+
+    public DependencyPrefetcher(Log log, int threads) {
+        this.log = log;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "bgav-prefetch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * start probing the dependency, if it is not probed yet
+     *
+     * @param mavenHandler
+     * @param model model declaring the dependency
+     * @param dependency
+     * @param ticketId
+     * @param gituser
+     * @param gitpassword
+     * @param localRepositoryPath
+     */
+    public void prefetch(MavenHandler mavenHandler, Model model, Dependency dependency, String ticketId, String gituser, String gitpassword, String localRepositoryPath) {
+        probes.computeIfAbsent(key(mavenHandler, model, dependency, ticketId), key -> {
+            log.debug("prefetching " + key);
+            return executor.submit(() -> mavenHandler.probeDependency(model, dependency, ticketId, gituser, gitpassword, localRepositoryPath));
+        });
+    }
+
+    /**
+     * wait for a prefetched probe
+     *
+     * @param mavenHandler
+     * @param model model declaring the dependency
+     * @param dependency
+     * @param ticketId
+     * @return the probe or null, if the dependency was not prefetched
+     * @throws MojoExecutionException if the probe failed
+     */
+    public DependencyProbe await(MavenHandler mavenHandler, Model model, Dependency dependency, String ticketId) throws MojoExecutionException {
+        final Future<DependencyProbe> future = probes.get(key(mavenHandler, model, dependency, ticketId));
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("interrupted while waiting for " + dependency, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("could not probe " + dependency + ": " + e.getCause(), e.getCause());
+        }
+    }
+
+    public int size() {
+        return probes.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return key of the probe with the version resolved in the declaring model, the same expression may resolve to
+     * different versions in different models
+     */
+    private static String key(MavenHandler mavenHandler, Model model, Dependency dependency, String ticketId) {
+        final String version = mavenHandler.resolveVersion(model, dependency);
+        return dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + (version != null ? version : dependency.getVersion()) + "@" + ticketId;
+    }
+}
@@ -0,0 +1,108 @@
+package io.crowdcode.bgav;
+
+/**
+ * result of probing the remote repository of a namespace dependency for a branch of the current ticket
+ */
+public class DependencyProbe {
+
+    public enum Status {
+        /**
+         * the dependency project could not be resolved
+         */
+        UNRESOLVED,
+        /**
+         * the dependency project has no SCM configured
+         */
+        NO_SCM,
+        /**
+         * the dependency project has SCM configured, but no URL
+         */
+        NO_SCM_URL,
+        /**
+         * the dependency repository has no branch for the ticket
+         */
+        NO_BRANCH,
+        /**
+         * the dependency repository is not available and has been skipped
+         */
+        SKIPPED,
+        /**
+         * offline, there is no local data of the dependency repository to decide, whether it has a branch for the ticket
+         */
+        UNDECIDED,
+        /**
+         * the dependency repository has a branch for the ticket
+         */
+        BRANCH_FOUND
+    }
+
+    private final Status status;
+    private final String scmUrl;
+    private final String branch;
+    private final String branchVersion;
+    private final String message;
+
+    private DependencyProbe(Status status, String scmUrl, String branch, String branchVersion, String message) {
+        this.status = status;
+        this.scmUrl = scmUrl;
+        this.branch = branch;
+        this.branchVersion = branchVersion;
+        this.message = message;
+    }
+
+    static DependencyProbe unresolved(String message) {
+        return new DependencyProbe(Status.UNRESOLVED, null, null, null, message);
+    }
+
+    static DependencyProbe noScm() {
+        return new DependencyProbe(Status.NO_SCM, null, null, null, null);
+    }
+
+    static DependencyProbe noScmUrl() {
+        return new DependencyProbe(Status.NO_SCM_URL, null, null, null, null);
+    }
+
+    static DependencyProbe noBranch(String scmUrl) {
+        return new DependencyProbe(Status.NO_BRANCH, scmUrl, null, null, null);
+    }
+
+    static DependencyProbe skipped(String scmUrl, String message) {
+        return new DependencyProbe(Status.SKIPPED, scmUrl, null, null, message);
+    }
+
+    static DependencyProbe undecided(String scmUrl, String message) {
+        return new DependencyProbe(Status.UNDECIDED, scmUrl, null, null, message);
+    }
+
+    static DependencyProbe branchFound(String scmUrl, String branch, String branchVersion) {
+        return new DependencyProbe(Status.BRANCH_FOUND, scmUrl, branch, branchVersion, null);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getScmUrl() {
+        return scmUrl;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    /**
+     * @return the version of the dependency's POM on the ticket branch
+     */
+    public String getBranchVersion() {
+        return branchVersion;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "DependencyProbe{" + status + (scmUrl != null ? ", " + scmUrl : "") + (branch != null ? ", " + branch : "") + "}";
+    }
+}
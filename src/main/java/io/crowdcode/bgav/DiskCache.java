@@ -0,0 +1,321 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * a directory of cache entries shared by concurrent builds on the same host
+ *
+ * <p>Every entry has its own lock file next to it. Readers hold a shared lock, writers an exclusive one, across
+ * processes by a {@link FileLock} and across the threads of a process by a {@link ReentrantReadWriteLock}, because file
+ * locks are held per process. Files are written to a temp file and moved into place, so a reader sees either the old
+ * or the new content, and a process crashing while writing leaves only a temp file behind.</p>
+ */
+public class DiskCache {
+
+    /**
+     * works on a cache entry while its lock is held
+     */
+    public interface EntryAction<T> {
+        T apply(File entry) throws MojoExecutionException, IOException;
+    }
+
+    private static final String LOCK = ".lock";
+    private static final String TEMP = ".tmp-";
+    private static final Map<String, LocalLock> LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * the lock of an entry within this process: the threads share the file lock of the process
+     */
+    private static final class LocalLock {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private int readers;
+        private FileChannel channel;
+        private FileLock fileLock;
+    }
+
+    private final File directory;
+
+    /**
+     * @param directory directory of the cache, created on demand
+     */
+    public DiskCache(File directory) {
+        this.directory = directory.getAbsoluteFile();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param kind kind of the entries, e.g. git
+     * @param key key of the entry, e.g. a Git URL
+     * @return the file or directory of the entry, which may not exist yet
+     */
+    public File getEntry(String kind, String key) {
+        return new File(new File(directory, kind), hash(key));
+    }
+
+    /**
+     * @param kind
+     * @return the names of the entries of a kind, without lock and temp files
+     */
+    public List<String> list(String kind) {
+        final String[] names = new File(directory, kind).list((dir, name) -> isEntryName(name));
+        final List<String> entries = names != null ? new ArrayList<>(Arrays.asList(names)) : new ArrayList<>();
+        Collections.sort(entries);
+        return entries;
+    }
+
+    /**
+     * @param name
+     * @return true, if the name is the name of an entry file, the hash of a key
+     */
+    static boolean isEntryName(String name) {
+        return name.matches("[0-9a-f]{40}");
+    }
+
+    private File getNamedEntry(String kind, String name) throws MojoExecutionException {
+        if (!isEntryName(name) || !kind.matches("[a-z]+")) {
+            throw new MojoExecutionException("no cache entry: " + kind + "/" + name);
+        }
+        return new File(new File(directory, kind), name);
+    }
+
+    /**
+     * work on an entry holding a shared lock, other readers may work on it at the same time
+     *
+     * @param kind
+     * @param key
+     * @param action
+     * @return result of the action
+     * @throws MojoExecutionException
+     */
+    public <T> T read(String kind, String key, EntryAction<T> action) throws MojoExecutionException {
+        return read(getEntry(kind, key), action);
+    }
+
+    /**
+     * work on an entry by its name holding a shared lock, e.g. to export it
+     *
+     * @param kind
+     * @param name name of the entry file, as listed by {@link #list(String)}
+     * @param action
+     * @return result of the action
+     * @throws MojoExecutionException if the name is no entry name
+     */
+    public <T> T readEntry(String kind, String name, EntryAction<T> action) throws MojoExecutionException {
+        return read(getNamedEntry(kind, name), action);
+    }
+
+    private <T> T read(File entry, EntryAction<T> action) throws MojoExecutionException {
+        final LocalLock local = getLocalLock(entry);
+        local.lock.readLock().lock();
+        try {
+            synchronized (local) {
+                if (local.readers == 0) {
+                    lockFile(local, entry, true);
+                }
+                local.readers++;
+            }
+            try {
+                return action.apply(entry);
+            } finally {
+                synchronized (local) {
+                    if (--local.readers == 0) {
+                        unlockFile(local);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not read cache entry " + entry + ": " + e, e);
+        } finally {
+            local.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * work on an entry holding an exclusive lock. Temp files left behind by a crashed writer are deleted before.
+     *
+     * @param kind
+     * @param key
+     * @param action
+     * @return result of the action
+     * @throws MojoExecutionException
+     */
+    public <T> T write(String kind, String key, EntryAction<T> action) throws MojoExecutionException {
+        return write(getEntry(kind, key), action);
+    }
+
+    /**
+     * work on an entry by its name holding an exclusive lock, e.g. to import it
+     *
+     * @param kind
+     * @param name name of the entry file, as listed by {@link #list(String)}
+     * @param action
+     * @return result of the action
+     * @throws MojoExecutionException if the name is no entry name
+     */
+    public <T> T writeEntry(String kind, String name, EntryAction<T> action) throws MojoExecutionException {
+        return write(getNamedEntry(kind, name), action);
+    }
+
+    private <T> T write(File entry, EntryAction<T> action) throws MojoExecutionException {
+        final LocalLock local = getLocalLock(entry);
+        local.lock.writeLock().lock();
+        try {
+            synchronized (local) {
+                lockFile(local, entry, false);
+            }
+            try {
+                deleteTempFiles(entry);
+                return action.apply(entry);
+            } finally {
+                synchronized (local) {
+                    unlockFile(local);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not write cache entry " + entry + ": " + e, e);
+        } finally {
+            local.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param entry
+     * @return a new temp file or directory name next to the entry, to be moved into place by {@link #moveIntoPlace}
+     */
+    public static File newTempFile(File entry) {
+        return new File(entry.getParentFile(), entry.getName() + TEMP + UUID.randomUUID());
+    }
+
+    /**
+     * write a file atomically
+     *
+     * @param file
+     * @param content
+     * @throws IOException
+     */
+    public static void writeAtomically(File file, String content) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        final File temp = newTempFile(file);
+        try {
+            Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            moveIntoPlace(temp, file);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * replace a file or an empty directory by a temp file or directory
+     *
+     * @param temp
+     * @param target
+     * @throws IOException
+     */
+    public static void moveIntoPlace(File temp, File target) throws IOException {
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param file
+     * @return the content of the file or null, if it does not exist
+     * @throws IOException
+     */
+    public static String readString(File file) throws IOException {
+        return file.isFile() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : null;
+    }
+
+    private static LocalLock getLocalLock(File entry) {
+        return LOCKS.computeIfAbsent(entry.getPath(), path -> new LocalLock());
+    }
+
+    private static void lockFile(LocalLock local, File entry, boolean shared) throws IOException {
+        final Path lockFile = new File(entry.getPath() + LOCK).toPath();
+        Files.createDirectories(lockFile.getParent());
+        final FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            local.fileLock = channel.lock(0, Long.MAX_VALUE, shared);
+            local.channel = channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void unlockFile(LocalLock local) throws IOException {
+        try {
+            if (local.fileLock != null) {
+                local.fileLock.release();
+            }
+        } finally {
+            local.fileLock = null;
+            if (local.channel != null) {
+                local.channel.close();
+                local.channel = null;
+            }
+        }
+    }
+
+    private static void deleteTempFiles(File entry) throws IOException {
+        final File[] temps = entry.getParentFile().listFiles((dir, name) -> name.startsWith(entry.getName() + TEMP));
+        if (temps != null) {
+            for (File temp : temps) {
+                deleteRecursively(temp);
+            }
+        }
+    }
+
+    /**
+     * @param file file or directory to delete with its content
+     * @throws IOException
+     */
+    static void deleteRecursively(File file) throws IOException {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private static String hash(String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
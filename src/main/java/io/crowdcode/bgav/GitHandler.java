@@ -1,26 +1,41 @@
 package io.crowdcode.bgav;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.CommitCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.errors.NoWorkTreeException;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PackParser;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.FS;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.ToLongFunction;
 
 /**
  *
@@ -46,6 +61,10 @@ public class GitHandler {
 
     private final Map<File, String> commitMessages = new HashMap<>();
     private final File baseDir;
+    private RemoteGitScheduler scheduler;
+    private BgavMetrics metrics = new BgavMetrics();
+    private ChangePlan plan;
+    private boolean offline;
 
 //    public GitHandler() {
 //        log = null;
@@ -69,6 +88,42 @@ public class GitHandler {
         this.baseDir = baseDir;
     }
 
+    /**
+     * run remote operations through the scheduler, if available
+     *
+     * @param scheduler
+     */
+    public void setScheduler(RemoteGitScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * record timings and counters of the run
+     *
+     * @param metrics
+     */
+    public void setMetrics(BgavMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * never access a remote repository: remote operations fail immediately and commits are not pushed
+     *
+     * @param offline
+     */
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    /**
+     * record the commit messages into a plan instead of adding the POMs
+     *
+     * @param plan
+     */
+    public void setPlan(ChangePlan plan) {
+        this.plan = plan;
+    }
+
     /**
      * check for Git status abort if POM has changed
      *
@@ -76,7 +131,7 @@ public class GitHandler {
      * @throws MojoExecutionException
      */
     public void checkStatus(Git git) throws MojoExecutionException {
-        try {
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.GIT_STATUS)) {
             Status status = git.status().call();
 //            log.info("Git status: " + status);
             log.info("hasUncommittedChanges: " + status.hasUncommittedChanges());
@@ -128,18 +183,233 @@ public class GitHandler {
      */
     public Git cloneGitRemoteRepo(String uri, File localDirectory) throws MojoExecutionException {
         log.info("Git clone " + uri + " to " + localDirectory);
-        Git git = null;
-        try {
-            CredentialsProvider cp = getCredentialsProvider();
-            git = Git.cloneRepository().setCredentialsProvider(cp).setDirectory( localDirectory).setURI(uri).call();
-            log.info(git.toString());
-        } catch (GitAPIException ex) {
-            throw new MojoExecutionException("could not get Git repo: " + ex);
-        }
+        Git git = remote(uri, "clone", timeout -> {
+            try {
+                CredentialsProvider cp = getCredentialsProvider();
+                return Git.cloneRepository().setCredentialsProvider(cp).setDirectory( localDirectory).setURI(uri).setTimeout(timeout).call();
+            } catch (GitAPIException ex) {
+                throw new MojoExecutionException("could not get Git repo: " + ex);
+            }
+        }, clone -> FileUtils.sizeOfDirectory(clone.getRepository().getDirectory()));
+        metrics.increment(BgavMetrics.CLONES, 1);
+        log.info(git.toString());
         return git;
     }
 
+    /**
+     * run a remote operation through the scheduler, if available
+     *
+     * @param uri
+     * @param operation
+     * @param remoteOperation
+     * @return result of the operation
+     * @throws MojoExecutionException
+     */
+    private <T> T remote(String uri, String operation, RemoteGitScheduler.RemoteOperation<T> remoteOperation) throws MojoExecutionException {
+        return remote(uri, operation, remoteOperation, result -> 0);
+    }
+
+    /**
+     * run a remote operation through the scheduler, if available, and count the fetched bytes
+     *
+     * @param uri
+     * @param operation
+     * @param remoteOperation
+     * @param fetchedBytes bytes fetched by the operation
+     * @return result of the operation
+     * @throws MojoExecutionException
+     */
+    private <T> T remote(String uri, String operation, RemoteGitScheduler.RemoteOperation<T> remoteOperation, ToLongFunction<T> fetchedBytes) throws MojoExecutionException {
+        if (offline) {
+            throw new MojoExecutionException("offline: Git " + operation + " " + uri + " is not possible");
+        }
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.REMOTE_GIT + operation).detail(uri)) {
+            final T result;
+            if (scheduler != null) {
+                result = scheduler.execute(uri, operation, remoteOperation);
+            } else {
+                try {
+                    result = remoteOperation.call(0);
+                } catch (MojoExecutionException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new MojoExecutionException(operation + " on " + uri + " failed: " + ex, ex);
+                }
+            }
+            final long bytes = fetchedBytes.applyAsLong(result);
+            metrics.increment(BgavMetrics.BYTES_FETCHED, bytes);
+            timer.bytes(bytes).success();
+            return result;
+        }
+    }
+
+    /**
+     * list the branches of a remote repository without cloning it
+     *
+     * @param uri
+     * @return branch refs, e.g. refs/heads/feature/NCX-7-foobar
+     * @throws MojoExecutionException
+     */
+    public String[] getRemoteBranches(String uri) throws MojoExecutionException {
+        log.info("Git ls-remote " + uri);
+        final Collection<Ref> refs = remote(uri, "ls-remote", timeout -> {
+            try {
+                return Git.lsRemoteRepository().setCredentialsProvider(getCredentialsProvider()).setRemote(uri).setHeads(true).setTimeout(timeout).call();
+            } catch (GitAPIException ex) {
+                throw new MojoExecutionException("could not list Git repo: " + ex);
+            }
+        });
+        return refs.stream().map(Ref::getName).toArray(String[]::new);
+    }
+
+    /**
+     * read a file from a remote branch by fetching the branch shallow into an in-memory repository, nothing is written
+     * to disk
+     *
+     * @param uri
+     * @param branch branch ref
+     * @param path path of the file in the repository
+     * @param maxBytes maximum size of the fetched pack, the fetch is aborted as soon as it is exceeded
+     * @return content of the file or null, if the pack exceeds maxBytes
+     * @throws MojoExecutionException if the branch or the file could not be read
+     */
+    public byte[] readRemoteFile(String uri, String branch, String path, long maxBytes) throws MojoExecutionException {
+        log.info("Git fetch " + uri + " " + branch + " into memory");
+        try (LimitedRepository repository = new LimitedRepository(uri, maxBytes)) {
+            final String probeRef = "refs/heads/bgav-probe";
+            final boolean complete = remote(uri, "fetch", timeout -> {
+                try {
+                    Git.wrap(repository).fetch().setCredentialsProvider(getCredentialsProvider()).setRemote(uri)
+                            .setRefSpecs(new RefSpec("+" + branch + ":" + probeRef)).setDepth(1).setTimeout(timeout).call();
+                    return true;
+                } catch (GitAPIException | JGitInternalException ex) {
+                    if (repository.isExceeded()) {
+                        return false;
+                    }
+                    throw new MojoExecutionException("could not fetch Git repo: " + ex);
+                }
+            }, result -> repository.getReceivedBytes());
+            if (!complete) {
+                log.warn("pack of " + uri + " exceeds the limit of " + maxBytes + " bytes, fetch aborted after "
+                        + repository.getReceivedBytes() + " bytes");
+                return null;
+            }
+            final ObjectId commitId = repository.resolve(probeRef);
+            if (commitId == null) {
+                throw new MojoExecutionException("could not fetch " + branch + " from " + uri);
+            }
+            try (RevWalk revWalk = new RevWalk(repository);
+                 TreeWalk treeWalk = TreeWalk.forPath(repository, path, revWalk.parseCommit(commitId).getTree())) {
+                if (treeWalk == null) {
+                    throw new MojoExecutionException("no " + path + " on " + branch + " of " + uri);
+                }
+                return repository.open(treeWalk.getObjectId(0)).getBytes();
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("could not read " + path + " from " + uri + ": " + ex, ex);
+        }
+    }
+
+    /**
+     * fetch all branches of a remote repository into a bare mirror, which is created if it does not exist
+     *
+     * @param uri
+     * @param directory directory of the bare mirror
+     * @throws MojoExecutionException
+     */
+    public void fetchMirror(String uri, File directory) throws MojoExecutionException {
+        final boolean exists = directory.isDirectory();
+        log.info("Git fetch " + uri + " into " + (exists ? "" : "new ") + "mirror " + directory);
+        final long sizeBefore = exists ? FileUtils.sizeOfDirectory(directory) : 0;
+        remote(uri, "fetch", timeout -> {
+            try (Git git = exists ? Git.open(directory) : Git.init().setBare(true).setDirectory(directory).call()) {
+                return git.fetch().setCredentialsProvider(getCredentialsProvider()).setRemote(uri)
+                        .setRefSpecs(new RefSpec("+refs/heads/*:refs/heads/*")).setRemoveDeletedRefs(true).setTimeout(timeout).call();
+            } catch (GitAPIException | IOException ex) {
+                throw new MojoExecutionException("could not fetch Git repo: " + ex);
+            }
+        }, result -> Math.max(0, FileUtils.sizeOfDirectory(directory) - sizeBefore));
+        if (!exists) {
+            metrics.increment(BgavMetrics.CLONES, 1);
+        }
+    }
+
+    /**
+     * in-memory repository, whose fetch fails as soon as the received pack exceeds a limit, so an oversized pack is
+     * never buffered on the heap
+     */
+    private static final class LimitedRepository extends InMemoryRepository {
+        private final long maxBytes;
+        private long receivedBytes;
+        private boolean exceeded;
+
+        LimitedRepository(String uri, long maxBytes) {
+            super(new DfsRepositoryDescription(uri));
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public FS getFS() {
+            // the public constructor leaves the file system unset, the local transport needs it
+            return FS.DETECTED;
+        }
+
+        @Override
+        public ObjectInserter newObjectInserter() {
+            final ObjectInserter inserter = super.newObjectInserter();
+            return new ObjectInserter.Filter() {
+                @Override
+                protected ObjectInserter delegate() {
+                    return inserter;
+                }
+
+                @Override
+                public PackParser newPackParser(InputStream in) throws IOException {
+                    return inserter.newPackParser(new FilterInputStream(in) {
+                        @Override
+                        public int read() throws IOException {
+                            final int b = super.read();
+                            if (b >= 0) {
+                                received(1);
+                            }
+                            return b;
+                        }
+
+                        @Override
+                        public int read(byte[] buffer, int offset, int length) throws IOException {
+                            final int n = super.read(buffer, offset, length);
+                            if (n > 0) {
+                                received(n);
+                            }
+                            return n;
+                        }
+                    });
+                }
+            };
+        }
+
+        private synchronized void received(int bytes) throws IOException {
+            receivedBytes += bytes;
+            if (receivedBytes > maxBytes) {
+                exceeded = true;
+                throw new IOException("pack exceeds the limit of " + maxBytes + " bytes");
+            }
+        }
+
+        synchronized long getReceivedBytes() {
+            return receivedBytes;
+        }
+
+        synchronized boolean isExceeded() {
+            return exceeded;
+        }
+    }
+
     private CredentialsProvider getCredentialsProvider() {
+        if (gituser == null || gitpassword == null) {
+            // no Git credentials provided, use the default credentials provider
+            return null;
+        }
         return new UsernamePasswordCredentialsProvider(gituser, gitpassword);
     }
 
@@ -174,7 +444,9 @@ public class GitHandler {
      */
     void add(Git git, String commitMessage, File pom) throws MojoExecutionException {
 
-        if (!suppressCommit) {
+        if (plan != null) {
+            plan.addCommitMessage(pom, commitMessage);
+        } else if (!suppressCommit) {
             try {
                 final AddCommand add = git.add();
                 add.addFilepattern("pom.xml");
@@ -193,19 +465,72 @@ public class GitHandler {
     }
 
     void commitAndPush(Git git) throws GitAPIException {
-        if (!suppressCommit) {
-            final AddCommand add = git.add();
-            add.addFilepattern(".");
-            add.call();
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.COMMIT_PUSH)) {
+            if (!suppressCommit) {
+                final AddCommand add = git.add();
+                add.addFilepattern(".");
+                add.call();
 
-            git.commit().setMessage(String.join("\n", commitMessages.values())).call();
+                git.commit().setMessage(String.join("\n", commitMessages.values())).call();
+            }
+            push(git);
+            timer.success();
+        }
+    }
+
+    /**
+     * Git commit of the given POMs only and push, other files of the work tree are neither added nor committed
+     *
+     * @param git
+     * @param poms changed POM files within the work tree
+     * @throws GitAPIException
+     */
+    void commitAndPush(Git git, Collection<File> poms) throws GitAPIException {
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.COMMIT_PUSH)) {
+            if (!suppressCommit) {
+                final Path workTree = git.getRepository().getWorkTree().getAbsoluteFile().toPath().normalize();
+                final AddCommand add = git.add();
+                final CommitCommand commit = git.commit().setMessage(String.join("\n", commitMessages.values()));
+                for (File pom : poms) {
+                    final String path = workTree.relativize(pom.getAbsoluteFile().toPath().normalize()).toString().replace(File.separatorChar, '/');
+                    add.addFilepattern(path);
+                    commit.setOnly(path);
+                }
+                add.call();
+                commit.call();
+            }
+            push(git);
+            timer.success();
         }
-        if (!suppressCommit && !suppressPush) {
+    }
+
+    private void push(Git git) throws GitAPIException {
+        if (!suppressCommit && !suppressPush && offline) {
+            log.warn("offline: the commit is not pushed, please push it later");
+        } else if (!suppressCommit && !suppressPush) {
             CredentialsProvider cp = getCredentialsProvider();
             git.push().setCredentialsProvider(cp).call();
         }
     }
 
+    /**
+     * push a branch to origin, e.g. as part of a batch after several commits
+     *
+     * @param git
+     * @param branch
+     * @throws GitAPIException
+     */
+    void push(Git git, String branch) throws GitAPIException {
+        if (offline) {
+            log.warn("offline: " + branch + " is not pushed, please push it later");
+            return;
+        }
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.COMMIT_PUSH)) {
+            git.push().setCredentialsProvider(getCredentialsProvider()).add(branch).call();
+            timer.success();
+        }
+    }
+
     /**
      * write changed POM
      *
@@ -274,8 +599,8 @@ public class GitHandler {
         try {
 //            Git git = cloneGitRemoteRepo(gitURL);
             List<Ref> refs = git.branchList().setListMode(ListBranchCommand.ListMode.ALL).call();
-            branches = new String[refs.size() - 1];
-            for (int i = 0; i < refs.size() - 1; i++) {
+            branches = new String[refs.size()];
+            for (int i = 0; i < refs.size(); i++) {
                 branches[i] = refs.get(i).getName();
                 log.info("found branches: " + branches[i]);
             }
@@ -287,8 +612,15 @@ public class GitHandler {
     }
 
     public void checkoutBranch(Git git, String branch) throws MojoExecutionException{
+        final String uri = git.getRepository().getConfig().getString("remote", "origin", "url");
+        remote(uri, "pull", timeout -> {
+            try {
+                return git.pull().setCredentialsProvider(getCredentialsProvider()).setTimeout(timeout).call();
+            } catch (GitAPIException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+        });
         try {
-            git.pull().setCredentialsProvider(getCredentialsProvider()).call();
             git.branchCreate().setForce(true).setName(branch).setStartPoint(branch).call();
             git.checkout().setName(branch).call();
         } catch (GitAPIException e) {
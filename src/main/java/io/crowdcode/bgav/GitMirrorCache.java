@@ -0,0 +1,211 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * bare mirrors of dependency repositories in a {@link DiskCache}, shared by the builds of a host
+ *
+ * <p>A mirror is fetched by one build holding the exclusive lock of its entry, the others wait and reuse it as long as
+ * it is fresh. Files are read from the branches of a mirror holding a shared lock. A new mirror is fetched into a temp
+ * directory and moved into place. A fetch into an existing mirror is marked, a mirror still marked, because a build
+ * crashed or failed while fetching it, is fetched again from scratch.</p>
+ */
+public class GitMirrorCache {
+
+    /**
+     * a file of the first branch matching a ticket id
+     */
+    public static final class BranchFile {
+        private final String branch;
+        private final byte[] content;
+
+        BranchFile(String branch, byte[] content) {
+            this.branch = branch;
+            this.content = content;
+        }
+
+        /**
+         * @return branch ref or null, if there is no branch of the ticket
+         */
+        public String getBranch() {
+            return branch;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+    }
+
+    static final String KIND = "git";
+    private static final String FETCHED = "bgav-fetched";
+    private static final String FETCHING = "bgav-fetching";
+
+    private final DiskCache cache;
+    private final long ttlMillis;
+    private final Log log;
+
+    /**
+     * @param cache
+     * @param ttlMillis time a fetched mirror is reused without fetching again
+     * @param log
+     */
+    public GitMirrorCache(DiskCache cache, long ttlMillis, Log log) {
+        this.cache = cache;
+        this.ttlMillis = ttlMillis;
+        this.log = log;
+    }
+
+    /**
+     * read a file from the first branch of the repository containing the ticket id, fetching the mirror if it is
+     * missing or outdated
+     *
+     * @param gitHandler handler fetching the mirror
+     * @param metrics
+     * @param uri URL of the repository
+     * @param ticketId
+     * @param path path of the file in the repository
+     * @return the branch and the file, the branch is null if there is no branch of the ticket
+     * @throws MojoExecutionException
+     */
+    public BranchFile readBranchFile(GitHandler gitHandler, BgavMetrics metrics, String uri, String ticketId, String path) throws MojoExecutionException {
+        final BranchFile cached = cache.read(KIND, uri, mirror -> isFresh(mirror) ? read(mirror, uri, ticketId, path) : null);
+        if (cached != null) {
+            metrics.increment(BgavMetrics.CACHE_HITS, 1);
+            return cached;
+        }
+        return cache.write(KIND, uri, mirror -> {
+            if (isFresh(mirror)) {
+                // fetched by another build while waiting for the lock
+                metrics.increment(BgavMetrics.CACHE_HITS, 1);
+            } else {
+                update(gitHandler, uri, mirror);
+            }
+            return read(mirror, uri, ticketId, path);
+        });
+    }
+
+    /**
+     * fetch the mirror of a repository, if it is missing or outdated, e.g. to warm the cache of a new build agent
+     *
+     * @param gitHandler handler fetching the mirror
+     * @param metrics
+     * @param uri URL of the repository
+     * @return true, if the mirror has been fetched, false if it was fresh
+     * @throws MojoExecutionException
+     */
+    public boolean warm(GitHandler gitHandler, BgavMetrics metrics, String uri) throws MojoExecutionException {
+        if (cache.read(KIND, uri, this::isFresh)) {
+            metrics.increment(BgavMetrics.CACHE_HITS, 1);
+            return false;
+        }
+        return cache.write(KIND, uri, mirror -> {
+            if (isFresh(mirror)) {
+                metrics.increment(BgavMetrics.CACHE_HITS, 1);
+                return false;
+            }
+            update(gitHandler, uri, mirror);
+            return true;
+        });
+    }
+
+    private boolean isFresh(File mirror) throws IOException {
+        if (new File(mirror, FETCHING).exists()) {
+            return false;
+        }
+        final String fetched = DiskCache.readString(new File(mirror, FETCHED));
+        try {
+            return fetched != null && System.currentTimeMillis() - Long.parseLong(fetched.trim()) < ttlMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void update(GitHandler gitHandler, String uri, File mirror) throws MojoExecutionException, IOException {
+        final File fetching = new File(mirror, FETCHING);
+        if (mirror.isDirectory() && !fetching.exists()) {
+            Files.createFile(fetching.toPath());
+            gitHandler.fetchMirror(uri, mirror);
+            DiskCache.writeAtomically(new File(mirror, FETCHED), Long.toString(System.currentTimeMillis()));
+            Files.delete(fetching.toPath());
+            return;
+        }
+        if (mirror.exists()) {
+            log.warn("mirror of " + uri + " has not been fetched completely, fetching it again");
+            DiskCache.deleteRecursively(mirror);
+        }
+        final File temp = DiskCache.newTempFile(mirror);
+        try {
+            gitHandler.fetchMirror(uri, temp);
+            DiskCache.writeAtomically(new File(temp, FETCHED), Long.toString(System.currentTimeMillis()));
+            DiskCache.moveIntoPlace(temp, mirror);
+        } finally {
+            DiskCache.deleteRecursively(temp);
+        }
+    }
+
+    /**
+     * read a file from the mirror without fetching, however old it is, e.g. offline
+     *
+     * @param uri URL of the repository
+     * @param ticketId
+     * @param path path of the file in the repository
+     * @return the branch and the file, or null if there is no complete mirror of the repository
+     * @throws MojoExecutionException
+     */
+    public BranchFile readCachedBranchFile(String uri, String ticketId, String path) throws MojoExecutionException {
+        return cache.read(KIND, uri, mirror -> isComplete(mirror) ? read(mirror, uri, ticketId, path) : null);
+    }
+
+    /**
+     * @param mirror
+     * @return true, if the mirror has been fetched completely, however old it is
+     */
+    static boolean isComplete(File mirror) {
+        return mirror.isDirectory() && !new File(mirror, FETCHING).exists() && new File(mirror, FETCHED).exists();
+    }
+
+    private static BranchFile read(File mirror, String uri, String ticketId, String path) throws MojoExecutionException, IOException {
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(mirror).setMustExist(true).build()) {
+            return readBranchFile(repository, uri, ticketId, path);
+        }
+    }
+
+    /**
+     * read a file from the first local or remote tracking branch of a repository containing the ticket id
+     *
+     * @param repository a mirror or a clone
+     * @param name name of the repository in messages
+     * @param ticketId
+     * @param path path of the file in the repository
+     * @return the branch and the file, the branch is null if there is no branch of the ticket
+     * @throws MojoExecutionException if the branch has no such file
+     * @throws IOException
+     */
+    static BranchFile readBranchFile(Repository repository, String name, String ticketId, String path) throws MojoExecutionException, IOException {
+        for (String prefix : new String[]{Constants.R_HEADS, Constants.R_REMOTES}) {
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(prefix)) {
+                if (ref.getName().contains(ticketId) && ref.getObjectId() != null) {
+                    try (RevWalk revWalk = new RevWalk(repository);
+                         TreeWalk treeWalk = TreeWalk.forPath(repository, path, revWalk.parseCommit(ref.getObjectId()).getTree())) {
+                        if (treeWalk == null) {
+                            throw new MojoExecutionException("no " + path + " on " + ref.getName() + " of " + name);
+                        }
+                        return new BranchFile(ref.getName(), repository.open(treeWalk.getObjectId(0)).getBytes());
+                    }
+                }
+            }
+        }
+        return new BranchFile(null, null);
+    }
+}
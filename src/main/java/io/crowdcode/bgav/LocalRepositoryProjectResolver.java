@@ -0,0 +1,81 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingException;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * resolves projects only from the POMs in the local Maven repository, without any network access. SCM and
+ * distribution management are inherited from the parents, as far as they are in the local repository.
+ */
+public class LocalRepositoryProjectResolver implements ProjectResolver {
+
+    private final String localRepositoryPath;
+
+    public LocalRepositoryProjectResolver(String localRepositoryPath) {
+        this.localRepositoryPath = localRepositoryPath;
+    }
+
+    @Override
+    public MavenProject resolveProject(String groupId, String artifactId, String version) throws ProjectBuildingException {
+        final Model model = readModel(groupId, artifactId, version);
+        if (model == null) {
+            throw new ProjectBuildingException(groupId + ":" + artifactId + ":" + version,
+                    "POM is not in the local repository " + localRepositoryPath, getPomFile(groupId, artifactId, version));
+        }
+        Model current = model;
+        while ((model.getScm() == null || model.getDistributionManagement() == null) && current.getParent() != null) {
+            final Parent parent = current.getParent();
+            current = readModel(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+            if (current == null) {
+                break;
+            }
+            if (model.getScm() == null) {
+                model.setScm(current.getScm());
+            }
+            if (model.getDistributionManagement() == null) {
+                model.setDistributionManagement(current.getDistributionManagement());
+            }
+        }
+        return new MavenProject(model);
+    }
+
+    /**
+     * @param groupId
+     * @param artifactId
+     * @param version
+     * @return POM file in the local repository
+     */
+    public File getPomFile(String groupId, String artifactId, String version) {
+        return new File(localRepositoryPath + "/" + groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/" +
+                artifactId + "-" + version + ".pom");
+    }
+
+    private Model readModel(String groupId, String artifactId, String version) throws ProjectBuildingException {
+        final File pomFile = getPomFile(groupId, artifactId, version);
+        if (!pomFile.isFile()) {
+            return null;
+        }
+        try (Reader reader = new FileReader(pomFile)) {
+            final Model model = new MavenXpp3Reader().read(reader);
+            model.setPomFile(pomFile);
+            if (model.getGroupId() == null && model.getParent() != null) {
+                model.setGroupId(model.getParent().getGroupId());
+            }
+            if (model.getVersion() == null && model.getParent() != null) {
+                model.setVersion(model.getParent().getVersion());
+            }
+            return model;
+        } catch (IOException | XmlPullParserException e) {
+            throw new ProjectBuildingException(groupId + ":" + artifactId + ":" + version, "could not read POM: " + e, pomFile);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package io.crowdcode.bgav;
 
-import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.model.*;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
@@ -16,13 +15,13 @@ import org.apache.maven.shared.utils.ReaderFactory;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.eclipse.jgit.api.Git;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static io.crowdcode.bgav.PropertyHelper.*;
 
@@ -41,16 +40,30 @@ public class MavenHandler {
     private final List<ArtifactRepository> remoteRepositories;
     private final ArtifactRepository localRepository;
     private final String pomFile;
-    private static final Map<String, DistributionManagement> distributionMap = new HashMap<>();
-    private static final Map<String, Scm> scmMap = new HashMap<>();
-
-    private class CheckOutDependency{
+    private static final Map<String, DistributionManagement> distributionMap = Collections.synchronizedMap(new HashMap<>());
+    private static final Map<String, Scm> scmMap = Collections.synchronizedMap(new HashMap<>());
+    private DependencyPrefetcher prefetcher;
+    private RemoteGitScheduler scheduler;
+    private boolean inMemoryProbe;
+    private long probeMemoryLimit;
+    private BgavMetrics metrics = new BgavMetrics();
+    private ProjectResolver projectResolver;
+    private ChangePlan plan;
+    private ProbeCache probeCache;
+    private PropertyResolver propertyResolver;
+    private GitMirrorCache mirrorCache;
+    private OfflineProbe offlineProbe;
+    private boolean transitive;
+
+    private static class CheckOutDependency{
         public final File checkoutDir;
         public final Boolean hasBranch;
+        public final String branch;
 
-        public CheckOutDependency(File checkoutDir, Boolean hasBranch) {
+        public CheckOutDependency(File checkoutDir, Boolean hasBranch, String branch) {
             this.checkoutDir = checkoutDir;
             this.hasBranch = hasBranch;
+            this.branch = branch;
         }
     }
 
@@ -64,9 +77,133 @@ public class MavenHandler {
         this.remoteRepositories = remoteRepositories;
         this.localRepository = localRepository;
         this.pomFile = pomFile;
+        this.projectResolver = new MavenProjectResolver(repositorySystem, mavenProjectBuilder, remoteRepositories, localRepository);
         xmlHandler = new XMLHandler(log, suppressCommit, suppressPush, this);
     }
 
+    /**
+     * share the results of remote probes between runs, e.g. in the daemon
+     *
+     * @param probeCache
+     */
+    public void setProbeCache(ProbeCache probeCache) {
+        this.probeCache = probeCache;
+    }
+
+    /**
+     * share the resolved property expressions between the handlers of a run
+     *
+     * @param propertyResolver
+     */
+    public void setPropertyResolver(PropertyResolver propertyResolver) {
+        this.propertyResolver = propertyResolver;
+    }
+
+    /**
+     * @return resolver of property expressions, shared with the other handlers of the run if set
+     */
+    public PropertyResolver getPropertyResolver() {
+        if (propertyResolver == null) {
+            propertyResolver = new PropertyResolver(this::resolveProject, baseDir);
+        }
+        return propertyResolver;
+    }
+
+    /**
+     * probe dependency repositories in mirrors shared by the builds of the host instead of probing them remotely
+     *
+     * @param mirrorCache
+     */
+    public void setMirrorCache(GitMirrorCache mirrorCache) {
+        this.mirrorCache = mirrorCache;
+    }
+
+    /**
+     * probe dependency repositories only in local data, without any remote access: the mirrors of the cache, however
+     * old they are, and the clones in the workspace next to the project. Dependencies, which can not be decided this
+     * way, are recorded in the metrics.
+     *
+     * @param offlineProbe probe of the local data, null to probe remotely
+     */
+    public void setOfflineProbe(OfflineProbe offlineProbe) {
+        this.offlineProbe = offlineProbe;
+    }
+
+    /**
+     * apply the branches found by the transitive walk to the managed namespace dependencies, too. The walk has to probe
+     * them by the prefetcher.
+     *
+     * @param transitive
+     * @see TransitiveProbe
+     */
+    public void setTransitive(boolean transitive) {
+        this.transitive = transitive;
+    }
+
+    /**
+     * record the POM changes into a plan instead of writing them
+     *
+     * @param plan
+     */
+    public void setPlan(ChangePlan plan) {
+        this.plan = plan;
+    }
+
+    public ChangePlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * resolve the projects of dependencies with another resolver than the Maven project builder
+     *
+     * @param projectResolver
+     */
+    public void setProjectResolver(ProjectResolver projectResolver) {
+        this.projectResolver = projectResolver;
+    }
+
+    /**
+     * use the prefetched probes of the dependencies, if available
+     *
+     * @param prefetcher
+     */
+    public void setPrefetcher(DependencyPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * run the remote Git operations of the dependency probes through the scheduler
+     *
+     * @param scheduler
+     */
+    public void setScheduler(RemoteGitScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * record timings and counters of the run
+     *
+     * @param metrics
+     */
+    public void setMetrics(BgavMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public BgavMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * probe the dependency repositories in memory instead of cloning them into temp directories
+     *
+     * @param inMemoryProbe
+     * @param probeMemoryLimit maximum size of a pack fetched into memory, larger ones are cloned into a temp directory
+     */
+    public void setInMemoryProbe(boolean inMemoryProbe, long probeMemoryLimit) {
+        this.inMemoryProbe = inMemoryProbe;
+        this.probeMemoryLimit = probeMemoryLimit;
+    }
+
     /**
      * get Maven project model from POM
      *
@@ -76,12 +213,12 @@ public class MavenHandler {
      */
     public Model getModel(File pomfile) throws MojoExecutionException {
         Model model = null;
-        FileReader reader = null;
         MavenXpp3Reader mavenreader = new MavenXpp3Reader();
-        try {
-            reader = new FileReader(pomfile);
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.MODEL_READ).detail(pomfile.getPath());
+             FileReader reader = new FileReader(pomfile)) {
             model = mavenreader.read(reader);
             model.setPomFile(pomfile);
+            timer.success();
         } catch (IOException | XmlPullParserException ex) {
             log.error("Error: " + ex);
             throw new MojoExecutionException("could not read POM: " + ex);
@@ -89,6 +226,23 @@ public class MavenHandler {
         return model;
     }
 
+    /**
+     * get Maven project model from POM content
+     *
+     * @param content
+     * @param name name of the POM for error messages
+     * @return
+     * @throws MojoExecutionException
+     */
+    public Model getModel(byte[] content, String name) throws MojoExecutionException {
+        try (InputStream inputStream = new ByteArrayInputStream(content)) {
+            return new MavenXpp3Reader().read(inputStream);
+        } catch (IOException | XmlPullParserException ex) {
+            log.error("Error: " + ex);
+            throw new MojoExecutionException("could not read POM " + name + ": " + ex);
+        }
+    }
+
     /**
      * set new POM Version
      *
@@ -97,41 +251,21 @@ public class MavenHandler {
      * @return new POM Version
      */
     public String determinePomVersion(String pomVersion, String ticketID) {
-        // check is dependency has wrong ticketId
-        String ticketId = extractTicketId(pomVersion);
-        log.info("found ticketId in dependency: " + ticketId);
-        if (ticketId != null && !ticketId.isEmpty()) {
-            pomVersion = determineNonBgavPomVersion(pomVersion);
-            log.info("removed wrong ticketId from POM Version: " + pomVersion);
-        }
-        String newPomVersion = "";
-        if (pomVersion.contains(ticketID)) {
-            return pomVersion;
-        }
-        if (pomVersion.contains("-SNAPSHOT")) {
-            newPomVersion = pomVersion.substring(0, pomVersion.indexOf("-SNAPSHOT"));
-            newPomVersion += "-" + ticketID + "-SNAPSHOT";
-        } else {
-            newPomVersion = pomVersion + "-" + ticketID;
-        }
-        log.info("new POM Version: " + newPomVersion);
+        // a wrong ticket id of a dependency is replaced
+        final String newPomVersion = BgavVersion.parse(pomVersion).withTicket(ticketID);
+        log.debug("new POM Version: " + newPomVersion);
         return newPomVersion;
     }
 
+    /**
+     * remove the ticket id from a POM Version
+     *
+     * @param pomVersion
+     * @return POM Version without ticket id, other qualifiers are kept
+     */
     public String determineNonBgavPomVersion(String pomVersion) {
-        String newPomVersion = "";
-        log.info("non BGAV POM Version: " + pomVersion);
-        if (pomVersion.contains("-SNAPSHOT")) {
-            newPomVersion = pomVersion.substring(0, pomVersion.indexOf("-"));
-            newPomVersion += "-SNAPSHOT";
-        } else {
-            if (pomVersion.indexOf("-") > 0) {
-                newPomVersion = pomVersion.substring(0, pomVersion.indexOf("-"));
-            } else {
-                newPomVersion = pomVersion;
-            }
-        }
-        log.info("new non BGAV POM Version: " + newPomVersion);
+        final String newPomVersion = BgavVersion.parse(pomVersion).withoutTicket();
+        log.debug("new non BGAV POM Version: " + newPomVersion);
         return newPomVersion;
     }
 
@@ -153,7 +287,18 @@ public class MavenHandler {
      * @throws org.apache.maven.plugin.MojoExecutionException
      */
     public String checkforDependencies(File pomfile, Model model, String[] groupIds, String ticketId, String gituser, String gitpassword, String localRepositoryPath) throws MojoExecutionException, Exception {
-        if (groupIds == null) {
+        return checkforDependencies(pomfile, model, NamespaceMatcher.of(groupIds), ticketId, gituser, gitpassword, localRepositoryPath);
+    }
+
+    /**
+     * checkForDependencies for affected GroupIDs
+     *
+     * @param model
+     * @param namespace
+     * @throws org.apache.maven.plugin.MojoExecutionException
+     */
+    public String checkforDependencies(File pomfile, Model model, NamespaceMatcher namespace, String ticketId, String gituser, String gitpassword, String localRepositoryPath) throws MojoExecutionException, Exception {
+        if (namespace.isEmpty()) {
             log.info("no group id(s) defined ... finished.");
             return "";
         }
@@ -170,90 +315,276 @@ public class MavenHandler {
         log.info("using deployment repository: " + deploymentRepository + " with URL: " + deploymentRepository.getUrl());
         List<Dependency> dependencyListmodel = model.getDependencies();
         String artifact = "";
+        final Map<String, String> dependencyVersions = new LinkedHashMap<>();
         for (Dependency dependency : dependencyListmodel) {
-            for (String groupid : groupIds) {
-                if (dependency.getGroupId().contains(groupid)) {
-                    String nativeVersion = dependency.getVersion();
-                    if (nativeVersion != null && !nativeVersion.trim().isEmpty()) {
-                        if (nativeVersion != null && !nativeVersion.trim().isEmpty())
-                            log.info("affected dependency found: " + dependency + " with version " + nativeVersion);
-                        // @todo: check if branched version of dep exists
-                        // ->> get POM from dependency --> Git --> SCM --> getDatas
-                        MavenProject dependentProject = null;
-                        try {
-                            dependentProject = getSCMfromPOM(model, dependency, localRepositoryPath);
-                        } catch (MojoExecutionException e) {
-                            log.warn("could not get POM file: " + e);
-                            return artifact;
-                        }
-                        // --> get POM from SCM from project POM file
-                        // get Git Project URI
-
-                        final Scm scm = getScm(dependentProject.getModel());
-                        if (scm != null) {
-                            String dependencyScmUrl = scm.getUrl();
-                            String artifactId = dependency.getArtifactId();
-                            if (dependencyScmUrl == null || dependencyScmUrl.isEmpty()) {
-                                if (!scm.getConnection().isEmpty()) {
-                                    log.info("Dependency SCM entries found");
-                                }
-                                log.warn("no SCM URL for affected dependency found, please add <url></url> tag to " +
-                                        artifactId + "/" + nativeVersion + " POM file - skipping");
-                            } else {
-                                log.info("Dependency SCM URL found: " + dependencyScmUrl);
-                                final CheckOutDependency checkOutDependency = checkoutFromDependencyRepository(dependency, dependencyScmUrl, gituser, gitpassword, ticketId);
-                                try {
-                                    if (checkOutDependency.hasBranch) {
-                                        //@todo: commit and push changes --> throw an error --> Jenkins build will start again, or trigger the build manual again
-                                        if (!isPlaceholder(nativeVersion)) {
-                                            final Model checkedOutModel = getModel(new File(checkOutDependency.checkoutDir + "/pom.xml"));
-                                            log.info("want to change: " + nativeVersion + " -- " + ticketId);
-                                            String newVersion = determinePomVersion(checkedOutModel.getVersion(), ticketId);
-                                            if (nativeVersion.contains(ticketId)) {
-                                                log.info("POM contains ticketId - do nothing");
-                                            } else {
-                                                dependency.setVersion(determinePomVersion(nativeVersion, ticketId));
-                                                artifact += artifactId + ", ";
-                                                log.info("changed dep: " + dependency);
-                                                //                                log.info("POM FILE: " + model.getPomFile());
-                                                xmlHandler.alterDependency(pomfile, artifactId, newVersion);
-                                            }
-                                        } else {
-                                            String resolvedVersion = resolveProperty(model, nativeVersion);
-                                            log.info("want to change placeholder: " + nativeVersion + " (" + resolvedVersion + ") -- " + ticketId);
-                                            if (resolvedVersion.contains(ticketId)) {
-                                                log.info("POM contains ticketId - do nothing");
-                                            } else {
-                                                String newVersion = determinePomVersion(resolvedVersion, ticketId);
-                                                setProperty(model, nativeVersion, newVersion);
-                                                artifact += artifactId + ", ";
-                                                log.info("changed dep: " + dependency);
-                                                //                                log.info("POM FILE: " + model.getPomFile());
-                                                xmlHandler.alterProperty(pomfile, unkey(nativeVersion), newVersion);
-                                            }
-                                        }
-                                    }
-                                } finally {
-                                    new FileHelper(log).deleteTempGitCheckoutDirectory(checkOutDependency.checkoutDir);
-                                }
-                            }
-                        } else {
-                            log.info(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getVersion() + " has no SCM configured");
+            if (namespace.matches(dependency.getGroupId())) {
+                String nativeVersion = dependency.getVersion();
+                if (nativeVersion != null && !nativeVersion.trim().isEmpty()) {
+                    log.info("affected dependency found: " + dependency + " with version " + nativeVersion);
+                    DependencyProbe probe = prefetcher != null ? prefetcher.await(this, model, dependency, ticketId) : null;
+                    if (probe == null) {
+                        probe = probeDependency(model, dependency, ticketId, gituser, gitpassword, localRepositoryPath);
+                    }
+                    if (probe.getStatus() == DependencyProbe.Status.UNRESOLVED) {
+                        log.warn("could not get POM file: " + probe.getMessage());
+                        break;
+                    }
+                    if (probe.getStatus() == DependencyProbe.Status.BRANCH_FOUND) {
+                        //@todo: commit and push changes --> throw an error --> Jenkins build will start again, or trigger the build manual again
+                        if (applyTicketVersion(pomfile, model, dependency, ticketId, probe, dependencyVersions)) {
+                            artifact += dependency.getArtifactId() + ", ";
                         }
-                    } else {
-                        log.debug("Dependency "+dependency+" skipped due to no version.");
                     }
+                } else {
+                    log.debug("Dependency "+dependency+" skipped due to no version.");
+                }
+            }
+        }
+        if (!dependencyVersions.isEmpty()) {
+            xmlHandler.alterDependencies(pomfile, XMLHandler.DependencySection.DEPENDENCIES, dependencyVersions);
+        }
+        if (transitive && prefetcher != null) {
+            artifact = checkforManagedDependencies(pomfile, model, namespace, ticketId, artifact);
+        }
+        return artifact;
+    }
+
+    /**
+     * apply the versions of the branches found by the transitive walk to the managed namespace dependencies, which
+     * pin the versions of transitive dependencies
+     *
+     * @return artifact list extended by the changed managed dependencies
+     */
+    private String checkforManagedDependencies(File pomfile, Model model, NamespaceMatcher namespace, String ticketId, String artifact) throws MojoExecutionException {
+        final Map<String, String> dependencyVersions = new LinkedHashMap<>();
+        for (Dependency dependency : getManagedNamespaceDependencies(model, namespace)) {
+            final DependencyProbe probe = prefetcher.await(this, model, dependency, ticketId);
+            if (probe != null && probe.getStatus() == DependencyProbe.Status.BRANCH_FOUND) {
+                log.info("affected managed dependency found: " + dependency + " with version " + dependency.getVersion());
+                if (applyTicketVersion(pomfile, model, dependency, ticketId, probe, dependencyVersions)) {
+                    artifact = appendArtifact(artifact, dependency.getArtifactId());
                 }
             }
         }
+        if (!dependencyVersions.isEmpty()) {
+            xmlHandler.alterDependencies(pomfile, XMLHandler.DependencySection.DEPENDENCY_MANAGEMENT, dependencyVersions);
+        }
         return artifact;
     }
 
+    /**
+     * apply the ticket version to a dependency of a repository with a branch of the ticket, or to the property of its
+     * version
+     *
+     * @param pomfile
+     * @param model
+     * @param dependency
+     * @param ticketId
+     * @param probe probe of the dependency, which found the branch
+     * @param dependencyVersions new literal versions by groupId:artifactId
+     * @return true, if the version has been changed
+     * @throws MojoExecutionException
+     */
+    private boolean applyTicketVersion(File pomfile, Model model, Dependency dependency, String ticketId, DependencyProbe probe, Map<String, String> dependencyVersions) throws MojoExecutionException {
+        final String nativeVersion = dependency.getVersion();
+        final String artifactId = dependency.getArtifactId();
+        if (!isPlaceholder(nativeVersion)) {
+            log.info("want to change: " + nativeVersion + " -- " + ticketId);
+            String newVersion = determinePomVersion(probe.getBranchVersion(), ticketId);
+            if (nativeVersion.contains(ticketId)) {
+                log.info("POM contains ticketId - do nothing");
+                return false;
+            }
+            dependency.setVersion(determinePomVersion(nativeVersion, ticketId));
+            log.info("changed dep: " + dependency);
+            dependencyVersions.put(dependency.getGroupId() + ":" + artifactId, newVersion);
+            return true;
+        }
+        PropertyResolver.Resolution resolution = getPropertyResolver().resolve(model, nativeVersion);
+        log.info("want to change placeholder: " + nativeVersion + " (" + resolution + ") -- " + ticketId);
+        if (resolution == null) {
+            log.warn("could not resolve " + nativeVersion + " of " + artifactId + " - skipping");
+        } else if (resolution.getValue().contains(ticketId)) {
+            log.info("POM contains ticketId - do nothing");
+        } else if (!resolution.isEditable()) {
+            log.warn(nativeVersion + " of " + artifactId + " is not a property of a local POM - skipping");
+        } else {
+            String newVersion = determinePomVersion(resolution.getValue(), ticketId);
+            getPropertyResolver().setProperty(resolution, newVersion);
+            log.info("changed dep: " + dependency);
+            xmlHandler.alterProperty(resolution.isOwn() ? pomfile : resolution.getOwner(), resolution.getProperty(), newVersion);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * collect the dependencies of the model, which are affected by the namespace
+     *
+     * @param model
+     * @param groupIds
+     * @return affected dependencies with a version
+     */
+    public List<Dependency> getNamespaceDependencies(Model model, String[] groupIds) {
+        return getNamespaceDependencies(model, NamespaceMatcher.of(groupIds));
+    }
+
+    /**
+     * collect the dependencies of the model, which are affected by the namespace
+     *
+     * @param model
+     * @param namespace
+     * @return affected dependencies with a version
+     */
+    public List<Dependency> getNamespaceDependencies(Model model, NamespaceMatcher namespace) {
+        final List<Dependency> dependencies = new ArrayList<>();
+        for (Dependency dependency : model.getDependencies()) {
+            final String version = dependency.getVersion();
+            if (version != null && !version.trim().isEmpty() && namespace.matches(dependency.getGroupId())) {
+                dependencies.add(dependency);
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * collect the managed dependencies of the model, which are affected by the namespace
+     *
+     * @param model
+     * @param namespace
+     * @return affected managed dependencies with a version
+     */
+    public List<Dependency> getManagedNamespaceDependencies(Model model, NamespaceMatcher namespace) {
+        final List<Dependency> dependencies = new ArrayList<>();
+        if (model.getDependencyManagement() != null) {
+            for (Dependency dependency : model.getDependencyManagement().getDependencies()) {
+                final String version = dependency.getVersion();
+                if (version != null && !version.trim().isEmpty() && namespace.matches(dependency.getGroupId())) {
+                    dependencies.add(dependency);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * probe the remote repository of a dependency for a branch of the ticket: resolve the dependency project, get its
+     * SCM URL and read the POM version from the ticket branch. Offline only the local data of the repository is probed.
+     *
+     * @param model model declaring the dependency
+     * @param dependency
+     * @param ticketId
+     * @param gituser
+     * @param gitpassword
+     * @param localRepositoryPath
+     * @return probe result
+     * @throws MojoExecutionException
+     */
+    DependencyProbe probeDependency(Model model, Dependency dependency, String ticketId, String gituser, String gitpassword, String localRepositoryPath) throws MojoExecutionException {
+        final DependencyProbe probe = probeDependencyProject(model, dependency, ticketId, gituser, gitpassword, localRepositoryPath);
+        if (offlineProbe != null && (probe.getStatus() == DependencyProbe.Status.UNRESOLVED || probe.getStatus() == DependencyProbe.Status.UNDECIDED)) {
+            metrics.undecided(getKey(model, dependency), probe.getMessage());
+        }
+        return probe;
+    }
+
+    private DependencyProbe probeDependencyProject(Model model, Dependency dependency, String ticketId, String gituser, String gitpassword, String localRepositoryPath) throws MojoExecutionException {
+        // ->> get POM from dependency --> Git --> SCM --> getDatas
+        MavenProject dependentProject;
+        try {
+            dependentProject = getSCMfromPOM(model, dependency, localRepositoryPath);
+        } catch (MojoExecutionException e) {
+            return DependencyProbe.unresolved(e.toString());
+        }
+        // --> get POM from SCM from project POM file
+        // get Git Project URI
+        final Scm scm = getScm(dependentProject.getModel());
+        if (scm == null) {
+            log.info(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getVersion() + " has no SCM configured");
+            return DependencyProbe.noScm();
+        }
+        String dependencyScmUrl = scm.getUrl();
+        if (dependencyScmUrl == null || dependencyScmUrl.isEmpty()) {
+            if (scm.getConnection() != null && !scm.getConnection().isEmpty()) {
+                log.info("Dependency SCM entries found");
+            }
+            log.warn("no SCM URL for affected dependency found, please add <url></url> tag to " +
+                    dependency.getArtifactId() + "/" + dependency.getVersion() + " POM file - skipping");
+            return DependencyProbe.noScmUrl();
+        }
+        log.info("Dependency SCM URL found: " + dependencyScmUrl);
+        DependencyProbe probe = probeCache != null ? probeCache.get(dependencyScmUrl, ticketId) : null;
+        if (probe != null) {
+            metrics.increment(BgavMetrics.CACHE_HITS, 1);
+            return probe;
+        }
+        if (offlineProbe != null) {
+            // offline results may be outdated, they are not shared with later runs
+            return probeOffline(model, dependency, dependencyScmUrl, ticketId);
+        }
+        probe = probeRemote(model, dependency, dependencyScmUrl, ticketId, gituser, gitpassword);
+        if (probeCache != null) {
+            probeCache.put(dependencyScmUrl, ticketId, probe);
+        }
+        return probe;
+    }
+
+    /**
+     * probe the local data of the repository of a dependency for a branch of the ticket
+     */
+    private DependencyProbe probeOffline(Model model, Dependency dependency, String dependencyScmUrl, String ticketId) throws MojoExecutionException {
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.PROBE, getKey(model, dependency))) {
+            final GitMirrorCache.BranchFile pom = offlineProbe.readBranchFile(dependencyScmUrl, ticketId, "pom.xml");
+            if (pom == null) {
+                log.warn("offline: no mirror or clone of " + dependencyScmUrl + " - " + dependency.getArtifactId() + " can not be decided");
+                return DependencyProbe.undecided(dependencyScmUrl, "offline, no mirror or clone of " + dependencyScmUrl);
+            }
+            return toProbe(dependencyScmUrl, pom);
+        }
+    }
+
+    /**
+     * probe the remote repository of a dependency for a branch of the ticket, in memory or by a clone
+     */
+    private DependencyProbe probeRemote(Model model, Dependency dependency, String dependencyScmUrl, String ticketId, String gituser, String gitpassword) throws MojoExecutionException {
+        final CheckOutDependency checkOutDependency;
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.PROBE, getKey(model, dependency))) {
+            if (mirrorCache != null) {
+                return probeMirror(dependencyScmUrl, gituser, gitpassword, ticketId);
+            }
+            if (inMemoryProbe) {
+                final DependencyProbe probe = probeInMemory(dependency, dependencyScmUrl, gituser, gitpassword, ticketId);
+                if (probe != null) {
+                    return probe;
+                }
+            }
+            checkOutDependency = checkoutFromDependencyRepository(dependency, dependencyScmUrl, gituser, gitpassword, ticketId);
+        } catch (RemoteGitScheduler.RemoteUnavailableException e) {
+            if (scheduler != null && scheduler.isSkipUnavailable()) {
+                log.warn("skipping " + dependency.getArtifactId() + ": " + e.getMessage());
+                return DependencyProbe.skipped(dependencyScmUrl, e.getMessage());
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not check out " + dependencyScmUrl + ": " + e, e);
+        }
+        try {
+            if (!checkOutDependency.hasBranch) {
+                return DependencyProbe.noBranch(dependencyScmUrl);
+            }
+            final Model checkedOutModel = getModel(new File(checkOutDependency.checkoutDir + "/pom.xml"));
+            return DependencyProbe.branchFound(dependencyScmUrl, checkOutDependency.branch, checkedOutModel.getVersion());
+        } finally {
+            new FileHelper(log).deleteTempGitCheckoutDirectory(checkOutDependency.checkoutDir);
+        }
+    }
+
     private DistributionManagement getDistributionManagement(File pomfile, Model model) throws MojoExecutionException {
         log.info("checking dependencies for affected group id(s)...");
         DistributionManagement distributionManagement = model.getDistributionManagement();
         if (distributionManagement == null && model.getParent() != null) {
             if (distributionMap.containsKey(model.getParent().getId())) {
+                metrics.increment(BgavMetrics.CACHE_HITS, 1);
                 distributionManagement =  distributionMap.get(model.getParent().getId());
             } else {
                 final File parentPomFile = new File(pomfile.getAbsoluteFile().getParentFile() + "/" + model.getParent().getRelativePath());
@@ -286,6 +617,7 @@ public class MavenHandler {
         Scm scm = model.getScm();
         if (scm == null && model.getParent() != null) {
             if (scmMap.containsKey(model.getParent().getId())) {
+                metrics.increment(BgavMetrics.CACHE_HITS, 1);
                 scm =  scmMap.get(model.getParent().getId());
             } else {
                 try {
@@ -316,66 +648,96 @@ public class MavenHandler {
      * @return
      */
     public String removeBgavFromPom(File pomfile, Model model, String[] groupIds) {
-        if (groupIds == null) {
+        return removeBgavFromPom(pomfile, model, NamespaceMatcher.of(groupIds));
+    }
+
+    /**
+     * remove BGAV from dependencies
+     *
+     * @param pomfile
+     * @param model
+     * @param namespace
+     * @return
+     */
+    public String removeBgavFromPom(File pomfile, Model model, NamespaceMatcher namespace) {
+        if (namespace.isEmpty()) {
             log.info("no group id(s) defined ... finished.");
             return "";
         }
         log.info("checking dependencies for affected group id(s)...");
+        String artifact = removeBgavFromDependencies(pomfile, model, namespace, XMLHandler.DependencySection.DEPENDENCIES, model.getDependencies());
+        if (model.getDependencyManagement() != null) {
+            // managed versions pin transitive dependencies, e.g. set by the transitive walk
+            for (String managed : removeBgavFromDependencies(pomfile, model, namespace, XMLHandler.DependencySection.DEPENDENCY_MANAGEMENT,
+                    model.getDependencyManagement().getDependencies()).split(", ")) {
+                if (!managed.isEmpty()) {
+                    artifact = appendArtifact(artifact, managed);
+                }
+            }
+        }
+        return artifact;
+    }
+
+    private String removeBgavFromDependencies(File pomfile, Model model, NamespaceMatcher namespace, XMLHandler.DependencySection section, List<Dependency> dependencies) {
         String artifact = "";
-        List<Dependency> dependencyListmodel = model.getDependencies();
-        for (Dependency dependency : dependencyListmodel) {
-            for (String groupid : groupIds) {
-                if (dependency.getGroupId().contains(groupid)) {
-                    String version = dependency.getVersion();
-                    log.info("affected dependency found: " + dependency + " with " + version);
-                    // @todo: check if branched version of dep exists
-                    // ->> get POM from dependency --> Git --> SCM --> getDatas
-
-                    if (version != null && !version.trim().isEmpty()){
-                        if (!isPlaceholder(version)) {
-                            String ticketId = extractTicketId(version);
-                            if (ticketId != null && !ticketId.isEmpty()) {
-                                log.info("dependency contains ticketId - remove it: " + ticketId);
-                                String newPomDepVersion = determineNonBgavPomVersion(version);
-                                dependency.setVersion(newPomDepVersion);
-                                artifact += dependency.getArtifactId() + ", ";
-                                try {
-                                    xmlHandler.alterDependency(pomfile, dependency.getArtifactId(), newPomDepVersion);
-                                } catch (MojoExecutionException ex) {
-                                    log.warn("could not write POM");
-                                }
-                            } else {
-                                log.info("dependency has no BGAV version");
-                            }
+        final Map<String, String> dependencyVersions = new LinkedHashMap<>();
+        for (Dependency dependency : dependencies) {
+            if (namespace.matches(dependency.getGroupId())) {
+                String version = dependency.getVersion();
+                log.info("affected dependency found: " + dependency + " with " + version);
+                // @todo: check if branched version of dep exists
+                // ->> get POM from dependency --> Git --> SCM --> getDatas
+
+                if (version != null && !version.trim().isEmpty()){
+                    if (!isPlaceholder(version)) {
+                        String ticketId = extractTicketId(version);
+                        if (ticketId != null && !ticketId.isEmpty()) {
+                            log.info("dependency contains ticketId - remove it: " + ticketId);
+                            String newPomDepVersion = determineNonBgavPomVersion(version);
+                            dependency.setVersion(newPomDepVersion);
+                            artifact += dependency.getArtifactId() + ", ";
+                            dependencyVersions.put(dependency.getGroupId() + ":" + dependency.getArtifactId(), newPomDepVersion);
                         } else {
-                            String property = resolveProperty(model, version);
-                            String ticketId = extractTicketId(property);
-                            if (ticketId != null && !ticketId.isEmpty()) {
-                                log.info("property " + version + " contains ticketId - remove it: " + ticketId);
-                                String newVersion = determineNonBgavPomVersion(property);
-                                Object dummy = setProperty(model, version, newVersion);
-                                artifact += dependency.getArtifactId() + ", ";
-                                try {
-                                    xmlHandler.alterProperty(pomfile, unkey(version), newVersion);
-                                } catch (MojoExecutionException ex) {
-                                    log.warn("could not write POM");
-                                }
-                            } else {
-                                log.info("dependency has no BGAV version");
-                            }
+                            log.info("dependency has no BGAV version");
                         }
                     } else {
-                        log.debug("dependency "+ dependency+ " skipped due to missing version.");
+                        PropertyResolver.Resolution resolution = getPropertyResolver().resolve(model, version);
+                        String ticketId = resolution != null ? extractTicketId(resolution.getValue()) : null;
+                        if (resolution == null) {
+                            log.warn("could not resolve " + version + " of " + dependency.getArtifactId() + " - skipping");
+                        } else if (ticketId != null && !ticketId.isEmpty() && !resolution.isEditable()) {
+                            log.warn(version + " of " + dependency.getArtifactId() + " is not a property of a local POM - skipping");
+                        } else if (ticketId != null && !ticketId.isEmpty()) {
+                            log.info("property " + version + " contains ticketId - remove it: " + ticketId);
+                            String newVersion = determineNonBgavPomVersion(resolution.getValue());
+                            getPropertyResolver().setProperty(resolution, newVersion);
+                            artifact += dependency.getArtifactId() + ", ";
+                            try {
+                                xmlHandler.alterProperty(resolution.isOwn() ? pomfile : resolution.getOwner(), resolution.getProperty(), newVersion);
+                            } catch (MojoExecutionException ex) {
+                                log.warn("could not write POM");
+                            }
+                        } else {
+                            log.info("dependency has no BGAV version");
+                        }
                     }
+                } else {
+                    log.debug("dependency "+ dependency+ " skipped due to missing version.");
                 }
             }
         }
+        if (!dependencyVersions.isEmpty()) {
+            try {
+                xmlHandler.alterDependencies(pomfile, section, dependencyVersions);
+            } catch (MojoExecutionException ex) {
+                log.warn("could not write POM");
+            }
+        }
         return artifact;
     }
 
     private String extractTicketId(String version) {
-        String ticketId = getMatchFirst(version, "(?i)(\\p{Alpha}{1,}-\\d{1,})");
-        return ticketId != null ? ticketId.toUpperCase() : null;
+        return BgavVersion.parse(version).getTicketId();
     }
 
 
@@ -391,13 +753,130 @@ public class MavenHandler {
     private MavenProject getSCMfromPOM(Model model, Dependency dependency, String localRepositoryPath) throws MojoExecutionException {
         // File pomfile = new FileHelper(log).getPOMFilePathFromDependency(model, dependency, localRepositoryPath);
         log.info("Resolviong " + dependency.getArtifactId());
+        final String version = resolveVersion(model, dependency);
+        if (version == null) {
+            throw new MojoExecutionException("could not resolve version " + dependency.getVersion() + " of " + dependency.getArtifactId());
+        }
         try {
-            return resolveProject(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion());
+            return resolveProject(dependency.getGroupId(), dependency.getArtifactId(), version);
         } catch (ProjectBuildingException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         }
     }
 
+    /**
+     * @param model model declaring the dependency
+     * @param dependency
+     * @return the version of the dependency with its property resolved, or null if the property can not be resolved
+     */
+    String resolveVersion(Model model, Dependency dependency) {
+        if (!isPlaceholder(dependency.getVersion())) {
+            return dependency.getVersion();
+        }
+        final PropertyResolver.Resolution resolution = getPropertyResolver().resolve(model, dependency.getVersion());
+        return resolution != null ? resolution.getValue() : null;
+    }
+
+    /**
+     * resolve the project of a dependency, e.g. to follow its own dependencies
+     *
+     * @param model model declaring the dependency
+     * @param dependency
+     * @return model of the dependency project
+     * @throws MojoExecutionException if the project can not be resolved
+     */
+    Model resolveDependencyModel(Model model, Dependency dependency) throws MojoExecutionException {
+        return getSCMfromPOM(model, dependency, null).getModel();
+    }
+
+    /**
+     * resolve the project of a dependency and the SCM URL of its repository, inherited from the parent if need be
+     *
+     * @param model model declaring the dependency
+     * @param dependency
+     * @return the SCM URL or null, if the project has none
+     * @throws MojoExecutionException if the project can not be resolved
+     */
+    String resolveScmUrl(Model model, Dependency dependency) throws MojoExecutionException {
+        final Scm scm = getScm(resolveDependencyModel(model, dependency));
+        return scm != null && scm.getUrl() != null && !scm.getUrl().isEmpty() ? scm.getUrl() : null;
+    }
+
+    /**
+     * fetch the shared mirror of a dependency repository, if it is missing or outdated
+     *
+     * @param dependencyScmUrl
+     * @param gituser
+     * @param gitpassword
+     * @return true, if the mirror has been fetched, false if it was fresh
+     * @throws MojoExecutionException if there is no mirror cache or the fetch fails
+     */
+    boolean warmMirror(String dependencyScmUrl, String gituser, String gitpassword) throws MojoExecutionException {
+        if (mirrorCache == null) {
+            throw new MojoExecutionException("no mirror cache, please set cacheDir");
+        }
+        return mirrorCache.warm(createRemoteGitHandler(gituser, gitpassword), metrics, dependencyScmUrl);
+    }
+
+    /**
+     * check for affected branch in the shared mirror of the dependency repository
+     *
+     * @param dependencyScmUrl
+     * @param gituser
+     * @param gitpassword
+     * @param ticketId
+     * @return probe result
+     * @throws MojoExecutionException
+     */
+    private DependencyProbe probeMirror(String dependencyScmUrl, String gituser, String gitpassword, String ticketId) throws MojoExecutionException {
+        return toProbe(dependencyScmUrl, mirrorCache.readBranchFile(createRemoteGitHandler(gituser, gitpassword), metrics, dependencyScmUrl, ticketId, "pom.xml"));
+    }
+
+    private DependencyProbe toProbe(String dependencyScmUrl, GitMirrorCache.BranchFile pom) throws MojoExecutionException {
+        if (pom.getBranch() == null) {
+            return DependencyProbe.noBranch(dependencyScmUrl);
+        }
+        final Model branchModel = getModel(pom.getContent(), dependencyScmUrl + " " + pom.getBranch());
+        return DependencyProbe.branchFound(dependencyScmUrl, pom.getBranch(), branchModel.getVersion());
+    }
+
+    private GitHandler createRemoteGitHandler(String gituser, String gitpassword) {
+        GitHandler gitHandler = new GitHandler(log, gituser, gitpassword, suppressCommit, suppressPush, pomFile, baseDir);
+        gitHandler.setScheduler(scheduler);
+        gitHandler.setMetrics(metrics);
+        gitHandler.setOffline(offlineProbe != null);
+        return gitHandler;
+    }
+
+    /**
+     * check for affected branch without a checkout: list the remote branches and fetch the POM of the ticket branch
+     * into memory
+     *
+     * @param dependency
+     * @param dependencyScmUrl
+     * @param gituser
+     * @param gitpassword
+     * @param ticketId
+     * @return probe result or null, if the fetched pack exceeds the memory limit
+     * @throws MojoExecutionException
+     */
+    private DependencyProbe probeInMemory(Dependency dependency, String dependencyScmUrl, String gituser, String gitpassword, String ticketId) throws MojoExecutionException {
+        GitHandler gitHandler = createRemoteGitHandler(gituser, gitpassword);
+        final Optional<String> branch = Arrays.stream(gitHandler.getRemoteBranches(dependencyScmUrl))
+                .filter(x -> x.contains(ticketId))
+                .findFirst();
+        if (!branch.isPresent()) {
+            return DependencyProbe.noBranch(dependencyScmUrl);
+        }
+        final byte[] pom = gitHandler.readRemoteFile(dependencyScmUrl, branch.get(), "pom.xml", probeMemoryLimit);
+        if (pom == null) {
+            log.info("falling back to checkout of " + dependency.getArtifactId());
+            return null;
+        }
+        final Model branchModel = getModel(pom, dependencyScmUrl + " " + branch.get());
+        return DependencyProbe.branchFound(dependencyScmUrl, branch.get(), branchModel.getVersion());
+    }
+
     /**
      * check for affected branch
      *
@@ -410,7 +889,7 @@ public class MavenHandler {
      * @throws MojoExecutionException
      */
     private CheckOutDependency checkoutFromDependencyRepository(Dependency dependency, String dependencyScmUrl, String gituser, String gitpassword, String ticketId) throws MojoExecutionException, IOException {
-        GitHandler gitHandler = new GitHandler(log, gituser, gitpassword, suppressCommit, suppressPush, pomFile, baseDir);
+        GitHandler gitHandler = createRemoteGitHandler(gituser, gitpassword);
 
         // setup local temporary Directory for Git checkout
         FileHelper fileHelper = new FileHelper(log);
@@ -418,19 +897,26 @@ public class MavenHandler {
 
         log.info("cloning into "+localDirectory.getAbsolutePath());
 
-        // clone Repo
-        Git gitDependency = gitHandler.cloneGitRemoteRepo(dependencyScmUrl, localDirectory);
-        String[] branches = gitHandler.getBranchesFromDependency(gitDependency);
-
-        final Optional<String> first = Arrays.asList(branches).stream()
-                .filter(x -> x.contains(ticketId))
-                .findFirst();
-        Boolean branchFound = first.isPresent();
-        String branch = first.get();
-        gitHandler.checkoutBranch(gitDependency, branch);
-        gitDependency.close();
-        // delete local Repository
-        return new CheckOutDependency(localDirectory, branchFound);
+        // clone Repo, the local Repository is deleted, if the clone or the checkout fails, e.g. on a skipped host
+        boolean checkedOut = false;
+        try (Git gitDependency = gitHandler.cloneGitRemoteRepo(dependencyScmUrl, localDirectory)) {
+            String[] branches = gitHandler.getBranchesFromDependency(gitDependency);
+
+            final Optional<String> first = Arrays.asList(branches).stream()
+                    .filter(x -> x.contains(ticketId))
+                    .findFirst();
+            Boolean branchFound = first.isPresent();
+            String branch = first.orElse(null);
+            if (branchFound) {
+                gitHandler.checkoutBranch(gitDependency, branch);
+            }
+            checkedOut = true;
+            return new CheckOutDependency(localDirectory, branchFound, branch);
+        } finally {
+            if (!checkedOut) {
+                fileHelper.deleteTempGitCheckoutDirectory(localDirectory);
+            }
+        }
     }
 
 
@@ -459,21 +945,34 @@ public class MavenHandler {
      * @return
      */
     String getMatchFirst(String search, String pat) {
-        String match = null;
-        Pattern pattern = Pattern.compile(pat);
-        Matcher matcher = pattern.matcher(search);
-        while (matcher.find()) {
-            match = matcher.group(1);
-//            log.info("Matcher: " + match);
-        }
-        return match;
+        return BranchClassifier.getMatchLast(search, pat);
     }
 
     public MavenProject resolveProject(String groupId, String artifactId, String version) throws ProjectBuildingException {
-        Artifact pomArtifact = repositorySystem.createProjectArtifact(groupId, artifactId, version);
-        MavenProject project = mavenProjectBuilder.buildFromRepository(pomArtifact
-                , remoteRepositories, localRepository);
-        return project;
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.PROJECT_RESOLUTION, groupId + ":" + artifactId + ":" + version)) {
+            MavenProject project = projectResolver.resolveProject(groupId, artifactId, version);
+            timer.success();
+            return project;
+        }
+    }
+
+    /**
+     * @param artifacts comma separated artifact list of a commit message, each followed by ", "
+     * @param artifactId
+     * @return the list with the artifact, if it is not listed yet
+     */
+    private static String appendArtifact(String artifacts, String artifactId) {
+        return Arrays.asList(artifacts.split(", ")).contains(artifactId) ? artifacts : artifacts + artifactId + ", ";
+    }
+
+    /**
+     * @param model model declaring the dependency
+     * @param dependency
+     * @return key of the dependency in the metrics, with the resolved version like the project resolution
+     */
+    private String getKey(Model model, Dependency dependency) {
+        final String version = resolveVersion(model, dependency);
+        return dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + (version != null ? version : dependency.getVersion());
     }
 
 }
@@ -0,0 +1,34 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectBuilder;
+import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.repository.RepositorySystem;
+
+import java.util.List;
+
+/**
+ * resolves projects with the Maven project builder from the local and the remote repositories
+ */
+public class MavenProjectResolver implements ProjectResolver {
+
+    private final RepositorySystem repositorySystem;
+    private final MavenProjectBuilder mavenProjectBuilder;
+    private final List<ArtifactRepository> remoteRepositories;
+    private final ArtifactRepository localRepository;
+
+    public MavenProjectResolver(RepositorySystem repositorySystem, MavenProjectBuilder mavenProjectBuilder, List<ArtifactRepository> remoteRepositories, ArtifactRepository localRepository) {
+        this.repositorySystem = repositorySystem;
+        this.mavenProjectBuilder = mavenProjectBuilder;
+        this.remoteRepositories = remoteRepositories;
+        this.localRepository = localRepository;
+    }
+
+    @Override
+    public MavenProject resolveProject(String groupId, String artifactId, String version) throws ProjectBuildingException {
+        Artifact pomArtifact = repositorySystem.createProjectArtifact(groupId, artifactId, version);
+        return mavenProjectBuilder.buildFromRepository(pomArtifact, remoteRepositories, localRepository);
+    }
+}
@@ -0,0 +1,135 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * decides, whether a groupId belongs to the namespace of the BGAV projects
+ *
+ * <p>The group prefixes of the namespace are kept in a trie of characters, a groupId is classified in a single walk
+ * over its characters. A prefix only matches whole segments: {@code com.acme} matches {@code com.acme} and
+ * {@code com.acme.lib}, but neither {@code com.acmex} nor {@code org.notacme}.</p>
+ *
+ * <p>A namespace file has one group prefix per line, blank lines and lines starting with {@code #} are ignored.</p>
+ */
+public final class NamespaceMatcher {
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private boolean terminal;
+    }
+
+    private final Node root = new Node();
+    private final List<String> namespaces = new ArrayList<>();
+
+    private NamespaceMatcher() {
+    }
+
+    /**
+     * @param namespaces group prefixes, may be null
+     * @return matcher of the group prefixes
+     */
+    public static NamespaceMatcher of(String... namespaces) {
+        final NamespaceMatcher matcher = new NamespaceMatcher();
+        if (namespaces != null) {
+            for (String namespace : namespaces) {
+                matcher.add(namespace);
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * @param namespaces group prefixes, may be null
+     * @param namespaceFile file with further group prefixes, may be null
+     * @return matcher of the group prefixes of both
+     * @throws MojoExecutionException if the file cannot be read
+     */
+    public static NamespaceMatcher of(String[] namespaces, File namespaceFile) throws MojoExecutionException {
+        final NamespaceMatcher matcher = of(namespaces);
+        if (namespaceFile != null) {
+            try {
+                for (String line : Files.readAllLines(namespaceFile.toPath(), StandardCharsets.UTF_8)) {
+                    if (!line.trim().startsWith("#")) {
+                        matcher.add(line);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new MojoExecutionException("could not read namespace file " + namespaceFile + ": " + ex);
+            }
+        }
+        return matcher;
+    }
+
+    private void add(String namespace) {
+        if (namespace == null) {
+            return;
+        }
+        String prefix = namespace.trim();
+        if (prefix.endsWith(".*")) {
+            prefix = prefix.substring(0, prefix.length() - 2);
+        }
+        if (prefix.endsWith(".")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        if (prefix.isEmpty() || namespaces.contains(prefix)) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+        }
+        node.terminal = true;
+        namespaces.add(prefix);
+    }
+
+    /**
+     * @param groupId
+     * @return true, if a group prefix of the namespace matches whole segments of the groupId
+     */
+    public boolean matches(String groupId) {
+        if (groupId == null) {
+            return false;
+        }
+        Node node = root;
+        final int length = groupId.length();
+        for (int i = 0; i < length; i++) {
+            node = node.children.get(groupId.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal && (i + 1 == length || groupId.charAt(i + 1) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true, if there are no group prefixes
+     */
+    public boolean isEmpty() {
+        return namespaces.isEmpty();
+    }
+
+    /**
+     * @return the group prefixes
+     */
+    public List<String> getNamespaces() {
+        return Collections.unmodifiableList(namespaces);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", namespaces);
+    }
+}
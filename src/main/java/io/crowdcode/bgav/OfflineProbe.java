@@ -0,0 +1,106 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * looks for a branch of the ticket in a dependency repository only in local data, without any network access: the
+ * shared mirror of the repository in the cache directory, however old it is, or a clone of it in the workspace next to
+ * the project, with its local and remote tracking branches as of its last fetch
+ *
+ * <p>A clone belongs to a repository, if the URL of one of its remotes equals the SCM URL, ignoring a trailing slash,
+ * {@code .git} and the empty authority of {@code file:///} URLs.</p>
+ */
+public class OfflineProbe {
+
+    private final File workspace;
+    private final GitMirrorCache mirrorCache;
+    private final Log log;
+    private Map<String, File> clones;
+
+    /**
+     * @param workspace directory with the clones next to the project, may be null
+     * @param mirrorCache mirrors of the cache directory, may be null
+     * @param log
+     */
+    public OfflineProbe(File workspace, GitMirrorCache mirrorCache, Log log) {
+        this.workspace = workspace;
+        this.mirrorCache = mirrorCache;
+        this.log = log;
+    }
+
+    /**
+     * read a file from the first branch of a repository containing the ticket id
+     *
+     * @param scmUrl URL of the repository
+     * @param ticketId
+     * @param path path of the file in the repository
+     * @return the branch and the file, the branch is null if there is no branch of the ticket, or null if there is no
+     * local data of the repository
+     * @throws MojoExecutionException
+     */
+    public GitMirrorCache.BranchFile readBranchFile(String scmUrl, String ticketId, String path) throws MojoExecutionException {
+        if (mirrorCache != null) {
+            final GitMirrorCache.BranchFile mirrored = mirrorCache.readCachedBranchFile(scmUrl, ticketId, path);
+            if (mirrored != null) {
+                log.info("offline: using the mirror of " + scmUrl);
+                return mirrored;
+            }
+        }
+        final File clone = getClones().get(normalize(scmUrl));
+        if (clone == null) {
+            return null;
+        }
+        log.info("offline: using the clone " + clone + " of " + scmUrl);
+        try (Repository repository = new FileRepositoryBuilder().setWorkTree(clone).setMustExist(true).build()) {
+            return GitMirrorCache.readBranchFile(repository, clone.toString(), ticketId, path);
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not read clone " + clone + ": " + e, e);
+        }
+    }
+
+    /**
+     * @return the clones of the workspace by the normalized URLs of their remotes
+     */
+    synchronized Map<String, File> getClones() {
+        if (clones == null) {
+            clones = new HashMap<>();
+            final File[] dirs = workspace != null ? workspace.listFiles(dir -> dir.isDirectory() && new File(dir, ".git").exists()) : null;
+            if (dirs != null) {
+                for (File dir : dirs) {
+                    try (Repository repository = new FileRepositoryBuilder().setWorkTree(dir).setMustExist(true).build()) {
+                        for (String remote : repository.getConfig().getSubsections("remote")) {
+                            for (String url : repository.getConfig().getStringList("remote", remote, "url")) {
+                                clones.putIfAbsent(normalize(url), dir);
+                            }
+                        }
+                    } catch (IOException | IllegalArgumentException e) {
+                        log.debug("skipping " + dir + ": " + e);
+                    }
+                }
+            }
+        }
+        return clones;
+    }
+
+    static String normalize(String url) {
+        String normalized = url.trim();
+        if (normalized.startsWith("file:///")) {
+            normalized = "file:/" + normalized.substring("file:///".length());
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        if (normalized.endsWith(".git")) {
+            normalized = normalized.substring(0, normalized.length() - 4);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,112 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * performance budget of a BGAV run, checked against the {@link BgavMetrics} at the end of the run
+ */
+public class PerformanceBudget {
+
+    private static final int SLOWEST = 5;
+
+    private final long wallMillis;
+    private final long dependencyMillis;
+    private final long clones;
+
+    /**
+     * @param wallMillis maximum wall time of the run, 0 for none
+     * @param dependencyMillis maximum time spent on resolving and probing a single dependency, 0 for none
+     * @param clones maximum number of clones of dependency repositories, negative for none
+     */
+    public PerformanceBudget(long wallMillis, long dependencyMillis, long clones) {
+        this.wallMillis = wallMillis;
+        this.dependencyMillis = dependencyMillis;
+        this.clones = clones;
+    }
+
+    /**
+     * @return true, if any limit is set
+     */
+    public boolean isEnabled() {
+        return wallMillis > 0 || dependencyMillis > 0 || clones >= 0;
+    }
+
+    /**
+     * @param metrics
+     * @return the exceeded limits, empty if the run is within the budget
+     */
+    public List<String> check(BgavMetrics metrics) {
+        final List<String> violations = new ArrayList<>();
+        if (wallMillis > 0 && metrics.getWallMillis() > wallMillis) {
+            violations.add("wall time " + metrics.getWallMillis() + " ms exceeds " + wallMillis + " ms");
+        }
+        if (dependencyMillis > 0) {
+            getDependencyMillis(metrics).entrySet().stream()
+                    .filter(entry -> entry.getValue() > dependencyMillis)
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEach(entry -> violations.add("dependency " + entry.getKey() + " took " + entry.getValue() + " ms, exceeds " + dependencyMillis + " ms"));
+        }
+        final long clonesDone = metrics.getCounter(BgavMetrics.CLONES);
+        if (clones >= 0 && clonesDone > clones) {
+            violations.add(clonesDone + " clones exceed " + clones);
+        }
+        return violations;
+    }
+
+    /**
+     * log the violations together with the slowest dependencies and phases
+     *
+     * @param log
+     * @param metrics
+     * @param violations
+     * @param fail log as error instead of warning
+     */
+    public void report(Log log, BgavMetrics metrics, List<String> violations, boolean fail) {
+        for (String violation : violations) {
+            if (fail) {
+                log.error("BGAV performance budget exceeded: " + violation);
+            } else {
+                log.warn("BGAV performance budget exceeded: " + violation);
+            }
+        }
+        log.info("slowest dependencies: " + getSlowestDependencies(metrics, SLOWEST));
+        log.info("slowest phases: " + getSlowestPhases(metrics, SLOWEST));
+    }
+
+    /**
+     * @param metrics
+     * @param limit
+     * @return the dependencies with the most time spent, as "groupId:artifactId:version (n ms)"
+     */
+    public static List<String> getSlowestDependencies(BgavMetrics metrics, int limit) {
+        return getDependencyMillis(metrics).entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> entry.getKey() + " (" + entry.getValue() + " ms)")
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param metrics
+     * @param limit
+     * @return the phases with the most total time, as "phase (n ms)"
+     */
+    public static List<String> getSlowestPhases(BgavMetrics metrics, int limit) {
+        return metrics.getPhases().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, BgavMetrics.Phase> entry) -> entry.getValue().getTotalMillis()).reversed())
+                .limit(limit)
+                .map(entry -> entry.getKey() + " (" + entry.getValue().getTotalMillis() + " ms)")
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Long> getDependencyMillis(BgavMetrics metrics) {
+        return metrics.getDependencies().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().values().stream().mapToLong(Long::longValue).sum()));
+    }
+}
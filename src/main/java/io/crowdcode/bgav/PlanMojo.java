@@ -0,0 +1,25 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+
+/**
+ * records the changes the bgav goal would make into a plan file, without changing, committing or pushing the POMs.
+ * The plan is applied by the apply goal, e.g. in a later stage of the pipeline, with local I/O only.
+ */
+@Mojo(name = "plan")
+public class PlanMojo extends Plugin {
+
+    /**
+     * plan file to write
+     */
+    @Parameter(property = "planFile", defaultValue = "${project.build.directory}/bgav-plan.txt")
+    private File planFile;
+
+    @Override
+    protected File getPlanFile() {
+        return planFile != null ? planFile : new File("target/bgav-plan.txt");
+    }
+}
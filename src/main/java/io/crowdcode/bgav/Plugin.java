@@ -1,6 +1,7 @@
 package io.crowdcode.bgav;
 
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -17,12 +18,14 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Repository;
 
 import java.io.File;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -94,11 +97,18 @@ public class Plugin extends AbstractMojo {
     private String branchName;
 
     /**
-     * setting for effected group ids walking through the dependencies
+     * setting for effected group ids walking through the dependencies, a group id is affected if one of them is a
+     * prefix of its segments. Either namespace or namespaceFile has to be set.
      */
-    @Parameter(property = "namespace", required = true)
+    @Parameter(property = "namespace")
     private String[] namespace;
 
+    /**
+     * file with further group ids of the namespace, one per line, e.g. a namespace list shared by several projects
+     */
+    @Parameter(property = "namespaceFile")
+    private File namespaceFile;
+
 
     /**
      * only debugging/testing purpose, suppress commit+push
@@ -118,31 +128,159 @@ public class Plugin extends AbstractMojo {
     @Parameter(property = "pomFile", defaultValue = "pom.xml")
     private String pomFile;
 
+    /**
+     * probe the repositories of namespace dependencies in the background, as soon as the ticket id is known
+     */
+    @Parameter(property = "prefetch", defaultValue = "true")
+    private boolean prefetch = true;
+
+    /**
+     * number of threads probing the repositories of namespace dependencies in the background
+     */
+    @Parameter(property = "prefetchThreads", defaultValue = "4")
+    private int prefetchThreads = 4;
+
+    /**
+     * walk the namespace dependencies transitively across their repositories, breadth first, probing every
+     * dependency once and the dependencies of a level in parallel, and apply the branches found to the dependencies
+     * and managed dependencies of the project in one run
+     */
+    @Parameter(property = "transitive", defaultValue = "false")
+    private boolean transitive;
 
-    final Log log = getLog();
+    /**
+     * maximum number of concurrent remote Git operations per host, adapted to the observed latency
+     */
+    @Parameter(property = "remoteMaxConcurrency", defaultValue = "4")
+    private int remoteMaxConcurrency = 4;
+
+    /**
+     * deadline of a single remote Git operation in seconds, 0 for none
+     */
+    @Parameter(property = "remoteTimeout", defaultValue = "60")
+    private int remoteTimeout = 60;
+
+    /**
+     * time budget for all remote Git operations of the run in seconds, 0 for none
+     */
+    @Parameter(property = "remoteBudget", defaultValue = "0")
+    private int remoteBudget;
+
+    /**
+     * number of consecutive failures, after which no more remote Git operations are tried on a host
+     */
+    @Parameter(property = "remoteFailureThreshold", defaultValue = "3")
+    private int remoteFailureThreshold = 3;
+
+    /**
+     * skip dependencies with a warning, if their Git host is not available, instead of failing the build
+     */
+    @Parameter(property = "skipUnavailableRemotes", defaultValue = "true")
+    private boolean skipUnavailableRemotes = true;
+
+    /**
+     * probe the repositories of dependencies in memory instead of cloning them into temp directories
+     */
+    @Parameter(property = "inMemoryProbe", defaultValue = "true")
+    private boolean inMemoryProbe = true;
+
+    /**
+     * maximum size in bytes of a pack fetched into memory, larger repositories are cloned into a temp directory
+     */
+    @Parameter(property = "probeMemoryLimit", defaultValue = "67108864")
+    private long probeMemoryLimit = 64L * 1024 * 1024;
+
+    /**
+     * directory of a cache of dependency repositories and probe results shared by the builds of the host, e.g.
+     * ${user.home}/.bgav/cache. Concurrent builds lock its entries, only one of them fetches a repository.
+     */
+    @Parameter(property = "cacheDir")
+    private File cacheDir;
+
+    /**
+     * seconds a fetched repository and a probe result of the cache are used without asking the remote again
+     */
+    @Parameter(property = "cacheTtl", defaultValue = "300")
+    private int cacheTtl = 300;
+
+    /**
+     * run only from local data without any network access: dependency projects are resolved from the local Maven
+     * repository, dependency repositories are probed in the mirrors of the cacheDir and in the clones next to the
+     * project, commits are not pushed. Maven's offline mode (-o) enables it, too.
+     */
+    @Parameter(property = "offline", defaultValue = "false")
+    private boolean offline;
+
+    /**
+     * JSON report of the timings and counters of the run
+     */
+    @Parameter(property = "reportFile", defaultValue = "${project.build.directory}/bgav-report.json")
+    private File reportFile;
+
+    /**
+     * performance budget: maximum wall time of the run in milliseconds, 0 for none
+     */
+    @Parameter(property = "budgetWallTime", defaultValue = "0")
+    private long budgetWallTime;
+
+    /**
+     * performance budget: maximum time in milliseconds spent on resolving and probing a single dependency, 0 for none
+     */
+    @Parameter(property = "budgetDependencyTime", defaultValue = "0")
+    private long budgetDependencyTime;
+
+    /**
+     * performance budget: maximum number of clones of dependency repositories, -1 for none
+     */
+    @Parameter(property = "budgetClones", defaultValue = "-1")
+    private long budgetClones = -1;
+
+    /**
+     * fail the build, if the performance budget is exceeded, instead of warning
+     */
+    @Parameter(property = "failOnBudget", defaultValue = "false")
+    private boolean failOnBudget;
+
+
+    Log log = getLog();
 
     private final String regexp = "(feature)/([A-Z0-9\\-])*-.*";
 
     /**
      * default RegEx for BGAV
      */
-    private final String REGEX_BGAV_BRANCH = "(feature|bugfix|hotfix)";
+    static final String REGEX_BGAV_BRANCH = "(feature|bugfix|hotfix)";
 
     /**
      * default RegEx for non BGAV branch
      */
-    private final String REGEX_NON_BGAV_BRANCH = "(develop|master|main|release)";
+    static final String REGEX_NON_BGAV_BRANCH = "(develop|master|main|release)";
 
     /**
      * default RegEx for ticket id
      */
-    private final String REGEX_TICKET = "(?i)(\\p{Alpha}{1,}-\\d{1,})";
+    static final String REGEX_TICKET = "(?i)(\\p{Alpha}{1,}-\\d{1,})";
 
     @Parameter( defaultValue = "${settings}", readonly = true )
     private Settings settings;
 
-    private final Map<String, Model> artifactMap = new HashMap<>();
+    /**
+     * base directory of the project, a relative pomFile is relative to it
+     */
+    @Parameter( defaultValue = "${project.basedir}", readonly = true )
+    private File basedir;
+
     private File baseDir;
+    private DependencyPrefetcher prefetcher;
+    private RemoteGitScheduler scheduler;
+    private BgavMetrics metrics = new BgavMetrics();
+    private ProjectResolver projectResolver;
+    private ChangePlan plan;
+    private ProbeCache probeCache;
+    private PropertyResolver propertyResolver;
+    private BranchClassifier branchClassifier;
+    private NamespaceMatcher namespaceMatcher;
+    private File planOutput;
 
     /**
      * Maven plugin for adding ticket id to POM Version, if Git branch is
@@ -154,9 +292,62 @@ public class Plugin extends AbstractMojo {
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
 
-        File pomfile = new File(pomFile);
+        File pomfile = getProjectPom();
         baseDir = pomfile.getAbsoluteFile().getParentFile();
-        MavenHandler mavenHandler = new MavenHandler(log, suppressCommit, suppressPush, baseDir, repositorySystem, mavenProjectBuilder, remoteRepositories, localRepository, pomFile);
+        metrics = new BgavMetrics();
+        try {
+            execute(pomfile);
+            checkBudget();
+        } finally {
+            metrics.logSummary(log);
+            final File report = reportFile != null ? reportFile : new File(baseDir, "target/bgav-report.json");
+            try {
+                metrics.writeReport(report);
+                log.info("BGAV report written to " + report);
+            } catch (IOException e) {
+                log.warn("could not write BGAV report " + report + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * check the performance budget of the run
+     *
+     * @throws MojoFailureException if the budget is exceeded and failOnBudget is set
+     */
+    private void checkBudget() throws MojoFailureException {
+        final PerformanceBudget budget = new PerformanceBudget(budgetWallTime, budgetDependencyTime, budgetClones);
+        if (!budget.isEnabled()) {
+            return;
+        }
+        final List<String> violations = budget.check(metrics);
+        if (violations.isEmpty()) {
+            log.info("BGAV performance budget met");
+            return;
+        }
+        budget.report(log, metrics, violations, failOnBudget);
+        if (failOnBudget) {
+            throw new MojoFailureException("BGAV performance budget exceeded: " + String.join(", ", violations));
+        }
+    }
+
+    private void execute(File pomfile) throws MojoExecutionException {
+        propertyResolver = null;
+        if (probeCache == null && cacheDir != null) {
+            probeCache = new ProbeCache(TimeUnit.SECONDS.toMillis(cacheTtl), new DiskCache(cacheDir));
+        }
+        branchClassifier = createBranchClassifier();
+        namespaceMatcher = NamespaceMatcher.of(namespace, namespaceFile);
+        if (namespaceMatcher.isEmpty()) {
+            throw new MojoExecutionException("no namespace configured, please set namespace or namespaceFile");
+        }
+        log.debug("namespace: " + namespaceMatcher);
+        if (isOffline()) {
+            log.info("offline: using only the local repository " + settings.getLocalRepository() + ", the clones next to the project" +
+                    (cacheDir != null ? " and the cache " + cacheDir : ""));
+        }
+        MavenHandler mavenHandler = createMavenHandler();
+        propertyResolver = mavenHandler.getPropertyResolver();
         Model model = mavenHandler.getModel(pomfile);
 
         log.info("Project " + model);
@@ -185,35 +376,489 @@ public class Plugin extends AbstractMojo {
         // (GIT) must not be develop, master, release
 
         // check for Git Repo -> @todo: autocloseable
-        GitHandler gitHandler = new GitHandler(log, gituser, gitpassword, suppressCommit, suppressPush, pomFile, baseDir);
+        GitHandler gitHandler = createGitHandler(baseDir);
         Git git = gitHandler.getGitLocalRepo(model);
         if (git == null) {
             return;
         }
 
-        gitHandler.checkStatus(git);
-
         Repository repo = git.getRepository();
-        String commitID = gitHandler.getCommitId(git);
-        String branch = gitHandler.checkBranchName(repo, commitID, branchName);
-        String pomTicketId, ticketId = null;
+        String branch;
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.BRANCH_RESOLUTION)) {
+            String commitID = gitHandler.getCommitId(git);
+            branch = gitHandler.checkBranchName(repo, commitID, branchName);
+        }
 
-        boolean gottaPush = processPom(pomfile, mavenHandler, model, gitHandler, git, branch, false, "");
-        if (gottaPush) {
-            try {
-                gitHandler.commitAndPush(git);
-            } catch (GitAPIException e) {
-                throw new MojoExecutionException("Git push failed! "+e.getMessage(),e);
+        final File planFile = getPlanFile();
+        if (planFile != null) {
+            plan = new ChangePlan(baseDir);
+            plan.setBranch(branch);
+            if (branch != null && checkForAllowedBgavBranch(branch)) {
+                plan.setTicketId(getTicketId(branch));
+            }
+            mavenHandler.setPlan(plan);
+            gitHandler.setPlan(plan);
+        }
+
+        scheduler = new RemoteGitScheduler(log, remoteMaxConcurrency, remoteTimeout, remoteBudget, remoteFailureThreshold, skipUnavailableRemotes);
+        mavenHandler.setScheduler(scheduler);
+        try (DependencyPrefetcher prefetcher = new DependencyPrefetcher(log, prefetchThreads)) {
+            if (transitive && branch != null && checkForAllowedBgavBranch(branch)) {
+                String ticketId = getTicketId(branch);
+                if (ticketId != null) {
+                    walkDependencies(pomfile, model, mavenHandler, prefetcher, ticketId);
+                    this.prefetcher = prefetcher;
+                    mavenHandler.setPrefetcher(prefetcher);
+                    mavenHandler.setTransitive(true);
+                }
+            } else if (prefetch && branch != null && checkForAllowedBgavBranch(branch)) {
+                String ticketId = getTicketId(branch);
+                if (ticketId != null) {
+                    prefetchDependencies(pomfile, model, mavenHandler, prefetcher, ticketId);
+                    log.info("prefetching " + prefetcher.size() + " dependencies");
+                    this.prefetcher = prefetcher;
+                    mavenHandler.setPrefetcher(prefetcher);
+                }
             }
+
+            gitHandler.checkStatus(git);
+
+            boolean gottaPush = processPom(pomfile, mavenHandler, model, gitHandler, git, branch, false, "");
+            if (plan != null) {
+                writePlan(mavenHandler, planFile);
+            } else if (gottaPush) {
+                try {
+                    gitHandler.commitAndPush(git);
+                } catch (GitAPIException e) {
+                    throw new MojoExecutionException("Git push failed! "+e.getMessage(),e);
+                }
+            }
+        } finally {
+            this.prefetcher = null;
+            this.plan = null;
+            scheduler.close();
         }
         git.close();
     }
 
+    /**
+     * @return file to write the plan of the changes to instead of changing the POMs, null for changing them
+     */
+    protected File getPlanFile() {
+        return planOutput;
+    }
+
+    @Override
+    public void setLog(Log log) {
+        super.setLog(log);
+        this.log = log;
+    }
+
+    /**
+     * prepare a run on another project, e.g. a request to the daemon
+     *
+     * @param basedir base directory of the project
+     * @param branchName branch, null to get it from Git
+     * @param planOutput file to write a plan to, null for changing the POMs
+     */
+    void prepareRun(File basedir, String branchName, File planOutput) {
+        this.basedir = basedir;
+        this.branchName = branchName;
+        this.planOutput = planOutput;
+        this.reportFile = null;
+    }
+
+    /**
+     * set a parameter outside of Maven, e.g. by the command line interface
+     *
+     * @param name name of the parameter field
+     * @param value value, converted to the type of the field; arrays are comma separated
+     * @throws MojoExecutionException if there is no such parameter
+     */
+    void setParameter(String name, String value) throws MojoExecutionException {
+        final Field field;
+        try {
+            field = Plugin.class.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new MojoExecutionException("unknown parameter " + name);
+        }
+        final Class<?> type = field.getType();
+        final Object converted;
+        if (type == String.class) {
+            converted = value;
+        } else if (type == boolean.class) {
+            converted = value.isEmpty() || Boolean.parseBoolean(value);
+        } else if (type == int.class) {
+            converted = Integer.parseInt(value);
+        } else if (type == long.class) {
+            converted = Long.parseLong(value);
+        } else if (type == File.class) {
+            converted = new File(value);
+        } else if (type == String[].class) {
+            converted = value.split("\\s*,\\s*");
+        } else {
+            throw new MojoExecutionException("parameter " + name + " can not be set outside of Maven");
+        }
+        try {
+            field.setAccessible(true);
+            field.set(this, converted);
+        } catch (IllegalAccessException e) {
+            throw new MojoExecutionException("could not set parameter " + name + ": " + e, e);
+        }
+    }
+
+    /**
+     * use a local Maven repository outside of Maven, e.g. by the command line interface
+     *
+     * @param localRepositoryPath
+     */
+    void setLocalRepositoryPath(String localRepositoryPath) {
+        settings = new Settings();
+        settings.setLocalRepository(localRepositoryPath);
+    }
+
+    /**
+     * @return true, if the run must not access the network, by the offline parameter or Maven's offline mode
+     */
+    boolean isOffline() {
+        return offline || (settings != null && settings.isOffline());
+    }
+
+    /**
+     * @return the resolver of dependency projects, offline the one of the local Maven repository
+     */
+    ProjectResolver getProjectResolver() {
+        if (projectResolver == null && isOffline()) {
+            return new LocalRepositoryProjectResolver(settings.getLocalRepository());
+        }
+        return projectResolver != null ? projectResolver : createMavenProjectResolver();
+    }
+
+    /**
+     * @return resolver of dependency projects by the Maven project builder
+     */
+    ProjectResolver createMavenProjectResolver() {
+        return new MavenProjectResolver(repositorySystem, mavenProjectBuilder, remoteRepositories, localRepository);
+    }
+
+    /**
+     * share the results of remote probes between runs
+     *
+     * @param probeCache
+     */
+    void setProbeCache(ProbeCache probeCache) {
+        this.probeCache = probeCache;
+    }
+
+    /**
+     * complete the plan with the hashes of the changed POMs and write it
+     *
+     * @param mavenHandler
+     * @param planFile
+     * @throws MojoExecutionException
+     */
+    private void writePlan(MavenHandler mavenHandler, File planFile) throws MojoExecutionException {
+        final XMLHandler xmlHandler = new XMLHandler(log, suppressCommit, suppressPush, mavenHandler);
+        for (ChangePlan.Pom pom : plan.getPoms()) {
+            final byte[] applied = xmlHandler.applyChanges(plan.getFile(pom.getPath()), plan.getChanges(pom.getPath()));
+            pom.setAppliedHash(ChangePlan.hash(applied));
+        }
+        try {
+            plan.write(planFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not write BGAV plan " + planFile + ": " + e, e);
+        }
+        log.info("BGAV plan with " + plan.getChanges().size() + " change(s) in " + plan.getPoms().size() + " POM(s) written to " + planFile);
+        for (ChangePlan.Change change : plan.getChanges()) {
+            log.info("  " + change);
+        }
+    }
+
+    /**
+     * start probing the namespace dependencies of the POM and all of its modules
+     *
+     * @param pomfile
+     * @param model
+     * @param mavenHandler
+     * @param prefetcher
+     * @param ticketId
+     * @throws MojoExecutionException
+     */
+    private void prefetchDependencies(File pomfile, Model model, MavenHandler mavenHandler, DependencyPrefetcher prefetcher, String ticketId) throws MojoExecutionException {
+        for (Dependency dependency : mavenHandler.getNamespaceDependencies(model, getNamespaceMatcher())) {
+            prefetcher.prefetch(mavenHandler, model, dependency, ticketId, gituser, gitpassword, settings.getLocalRepository());
+        }
+        for (String module : model.getModules()) {
+            File subPom = new File(pomfile.getAbsoluteFile().getParentFile().getAbsolutePath()+"/"+module+"/"+pomFile);
+            prefetchDependencies(subPom, mavenHandler.getModel(subPom), mavenHandler, prefetcher, ticketId);
+        }
+    }
+
+    /**
+     * walk the namespace dependencies of the POM and all of its modules transitively and report the branches found
+     *
+     * @param pomfile
+     * @param model
+     * @param mavenHandler
+     * @param prefetcher prefetcher keeping the probes for editing the POMs
+     * @param ticketId
+     * @throws MojoExecutionException
+     */
+    private void walkDependencies(File pomfile, Model model, MavenHandler mavenHandler, DependencyPrefetcher prefetcher, String ticketId) throws MojoExecutionException {
+        final List<Model> models = new ArrayList<>();
+        collectModels(pomfile, model, mavenHandler, models);
+        try (TransitiveProbe transitiveProbe = new TransitiveProbe(log, mavenHandler, prefetcher, getNamespaceMatcher(), prefetchThreads)) {
+            transitiveProbe.walk(models, ticketId, gituser, gitpassword, settings.getLocalRepository());
+            transitiveProbe.report(ticketId);
+        }
+    }
+
+    /**
+     * fill the local caches for the namespace dependencies of the POM and all of its modules, without changing
+     * anything: the dependency POMs of the local Maven repository and, with a cacheDir, the mirrors of the dependency
+     * repositories
+     *
+     * @return the namespace dependencies with what has been done for them
+     * @throws MojoExecutionException if offline or without namespace
+     */
+    List<CacheWarmer.Result> warmCaches() throws MojoExecutionException {
+        final File pomfile = getProjectPom();
+        baseDir = pomfile.getAbsoluteFile().getParentFile();
+        metrics = new BgavMetrics();
+        propertyResolver = null;
+        namespaceMatcher = NamespaceMatcher.of(namespace, namespaceFile);
+        if (namespaceMatcher.isEmpty()) {
+            throw new MojoExecutionException("no namespace configured, please set namespace or namespaceFile");
+        }
+        if (isOffline()) {
+            throw new MojoExecutionException("warming the caches needs network access, please run it without offline mode");
+        }
+        if (cacheDir == null) {
+            log.warn("no cacheDir configured, only the dependency POMs are resolved");
+        }
+        scheduler = new RemoteGitScheduler(log, remoteMaxConcurrency, remoteTimeout, remoteBudget, remoteFailureThreshold, skipUnavailableRemotes);
+        try {
+            final MavenHandler mavenHandler = createMavenHandler();
+            propertyResolver = mavenHandler.getPropertyResolver();
+            final List<Model> models = new ArrayList<>();
+            collectModels(pomfile, mavenHandler.getModel(pomfile), mavenHandler, models);
+            try (CacheWarmer warmer = new CacheWarmer(log, mavenHandler, cacheDir != null, prefetchThreads)) {
+                final List<CacheWarmer.Result> results = warmer.warm(models, namespaceMatcher, gituser, gitpassword);
+                warmer.report();
+                return results;
+            }
+        } finally {
+            scheduler.close();
+            metrics.logSummary(log);
+        }
+    }
+
+    /**
+     * export the mirrors of the namespace dependency repositories and the probe results of the cacheDir into the
+     * archive of the namespace dependencies of the POM and all of its modules
+     *
+     * @param archiveDir directory of the archives
+     * @return the archive
+     * @throws MojoExecutionException
+     */
+    File exportCaches(File archiveDir) throws MojoExecutionException {
+        final MavenHandler mavenHandler = prepareCacheArchive();
+        final File pomfile = getProjectPom();
+        final List<Model> models = new ArrayList<>();
+        collectModels(pomfile, mavenHandler.getModel(pomfile), mavenHandler, models);
+        final Set<String> scmUrls = new LinkedHashSet<>();
+        for (Model model : models) {
+            for (Dependency dependency : mavenHandler.getNamespaceDependencies(model, namespaceMatcher)) {
+                try {
+                    final String scmUrl = mavenHandler.resolveScmUrl(model, dependency);
+                    if (scmUrl != null) {
+                        scmUrls.add(scmUrl);
+                    }
+                } catch (MojoExecutionException e) {
+                    log.warn("not exporting the mirror of " + dependency.getArtifactId() + ": " + e.getMessage());
+                }
+            }
+        }
+        final File archive = CacheArchive.getArchive(archiveDir, CacheArchive.key(mavenHandler, models, namespaceMatcher));
+        new CacheArchive(new DiskCache(cacheDir), log).export(archive, scmUrls);
+        return archive;
+    }
+
+    /**
+     * import the archive of the namespace dependencies of the POM and all of its modules into the cacheDir
+     *
+     * @param archiveDir directory of the archives
+     * @return the archive or null, if there is no archive of the namespace dependencies
+     * @throws MojoExecutionException if the archive is corrupt
+     */
+    File importCaches(File archiveDir) throws MojoExecutionException {
+        final MavenHandler mavenHandler = prepareCacheArchive();
+        final File pomfile = getProjectPom();
+        final List<Model> models = new ArrayList<>();
+        collectModels(pomfile, mavenHandler.getModel(pomfile), mavenHandler, models);
+        final File archive = CacheArchive.getArchive(archiveDir, CacheArchive.key(mavenHandler, models, namespaceMatcher));
+        if (!archive.isFile()) {
+            log.info("no cache archive " + archive + " of the namespace dependencies, the caches stay as they are");
+            return null;
+        }
+        new CacheArchive(new DiskCache(cacheDir), log).extract(archive);
+        return archive;
+    }
+
+    private MavenHandler prepareCacheArchive() throws MojoExecutionException {
+        baseDir = getProjectPom().getAbsoluteFile().getParentFile();
+        metrics = new BgavMetrics();
+        propertyResolver = null;
+        namespaceMatcher = NamespaceMatcher.of(namespace, namespaceFile);
+        if (namespaceMatcher.isEmpty()) {
+            throw new MojoExecutionException("no namespace configured, please set namespace or namespaceFile");
+        }
+        if (cacheDir == null) {
+            throw new MojoExecutionException("no cacheDir configured, please set cacheDir");
+        }
+        final MavenHandler mavenHandler = createMavenHandler();
+        propertyResolver = mavenHandler.getPropertyResolver();
+        return mavenHandler;
+    }
+
+    /**
+     * @return the POM of the project, a relative pomFile is resolved against the base directory of the project
+     */
+    File getProjectPom() {
+        final File file = new File(pomFile);
+        return file.isAbsolute() || basedir == null ? file : new File(basedir, pomFile);
+    }
+
+    private void collectModels(File pomfile, Model model, MavenHandler mavenHandler, List<Model> models) throws MojoExecutionException {
+        models.add(model);
+        for (String module : model.getModules()) {
+            File subPom = new File(pomfile.getAbsoluteFile().getParentFile().getAbsolutePath()+"/"+module+"/"+pomFile);
+            collectModels(subPom, mavenHandler.getModel(subPom), mavenHandler, models);
+        }
+    }
+
+    private MavenHandler createMavenHandler() {
+        MavenHandler mavenHandler = new MavenHandler(log, suppressCommit, suppressPush, baseDir, repositorySystem, mavenProjectBuilder, remoteRepositories, localRepository, pomFile);
+        mavenHandler.setPrefetcher(prefetcher);
+        mavenHandler.setScheduler(scheduler);
+        mavenHandler.setInMemoryProbe(inMemoryProbe, probeMemoryLimit);
+        mavenHandler.setMetrics(metrics);
+        mavenHandler.setPlan(plan);
+        mavenHandler.setProbeCache(probeCache);
+        final GitMirrorCache mirrorCache = cacheDir != null ? new GitMirrorCache(new DiskCache(cacheDir), TimeUnit.SECONDS.toMillis(cacheTtl), log) : null;
+        mavenHandler.setMirrorCache(mirrorCache);
+        mavenHandler.setPropertyResolver(propertyResolver);
+        if (transitive) {
+            // the walk resolves the dependency projects, the probes resolve them again
+            mavenHandler.setProjectResolver(new CachingProjectResolver(getProjectResolver(), TimeUnit.HOURS.toMillis(1)));
+        } else if (projectResolver != null || isOffline()) {
+            mavenHandler.setProjectResolver(getProjectResolver());
+        }
+        if (isOffline()) {
+            mavenHandler.setOfflineProbe(new OfflineProbe(baseDir.getParentFile(), mirrorCache, log));
+        }
+        return mavenHandler;
+    }
+
+    /**
+     * resolve dependency projects with another resolver than the Maven project builder
+     *
+     * @param projectResolver
+     */
+    void setProjectResolver(ProjectResolver projectResolver) {
+        this.projectResolver = projectResolver;
+    }
+
+    /**
+     * @return timings and counters of the last run
+     */
+    BgavMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return classifier of branches and ticket ids with the expressions of the run
+     */
+    BranchClassifier getBranchClassifier() {
+        if (branchClassifier == null) {
+            branchClassifier = new BranchClassifier(regex_ticket, regex_bgav_branch, regex_not_bgav_branch);
+        }
+        return branchClassifier;
+    }
+
+    private BranchClassifier createBranchClassifier() {
+        branchClassifier = null;
+        final BranchClassifier classifier = getBranchClassifier();
+        log.debug("RegEx for ticket ID: " + classifier.getTicketPattern());
+        log.debug("RegEx for BGAV branch: " + classifier.getBgavBranchPattern());
+        log.debug("RegEx for non BGAV branch: " + classifier.getNonBgavBranchPattern());
+        return classifier;
+    }
+
+    /**
+     * @param branch
+     * @return the upper case ticket id of the branch or null
+     */
+    String getTicketId(String branch) {
+        return getBranchClassifier().getTicketId(branch);
+    }
+
+    /**
+     * @param baseDir base directory of the project
+     * @return handler of the Git repository of the project
+     */
+    GitHandler createGitHandler(File baseDir) {
+        final GitHandler gitHandler = new GitHandler(log, gituser, gitpassword, suppressCommit, suppressPush, pomFile, baseDir);
+        gitHandler.setMetrics(metrics);
+        gitHandler.setOffline(isOffline());
+        return gitHandler;
+    }
+
+    /**
+     * create a run of the bgav goal on another project with the parameters, resolver and caches of this one, e.g. on
+     * a repository of a workspace
+     *
+     * @return the run, to be prepared by {@link #prepareRun(File, String, File)}
+     * @throws MojoExecutionException
+     */
+    Plugin copy() throws MojoExecutionException {
+        final Plugin copy = new Plugin();
+        for (Field field : Plugin.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                try {
+                    field.setAccessible(true);
+                    field.set(copy, field.get(this));
+                } catch (IllegalAccessException e) {
+                    throw new MojoExecutionException("could not copy parameter " + field.getName() + ": " + e, e);
+                }
+            }
+        }
+        copy.metrics = new BgavMetrics();
+        return copy;
+    }
+
+    String getBranchName() {
+        return branchName;
+    }
+
+    String getPomFile() {
+        return pomFile;
+    }
+
+    boolean isSuppressCommit() {
+        return suppressCommit;
+    }
+
+    boolean isSuppressPush() {
+        return suppressPush;
+    }
+
     private boolean processPom(File pomfile, MavenHandler mavenHandler, Model model, GitHandler gitHandler, Git git, String branch, boolean isSubmodel, String parentID) throws MojoExecutionException {
         String pomTicketId;
         String ticketId;
         log.info("Processing "+pomfile.getAbsolutePath());
         boolean gottaPush=false;
+        boolean modulesChanged=false;
         if (branch == null) {
             throw new MojoExecutionException("could not get Git branch");
         } else {
@@ -224,15 +869,12 @@ public class Plugin extends AbstractMojo {
             final boolean parentMustBeRegarded= model.getParent() != null && model.getParent().getVersion() != null;
             final boolean versionMustBeRegarded= version != null;
 
-            artifactMap.put(model.getId(), model);
-
             final List<String> modules = model.getModules();
             if (modules != null && !modules.isEmpty()) {
                 for (String module:modules) {
                     File subPom = new File(pomfile.getAbsoluteFile().getParentFile().getAbsolutePath()+"/"+module+"/"+pomFile);
-                    MavenHandler subHandler = new MavenHandler(log, suppressCommit, suppressPush, baseDir, repositorySystem, mavenProjectBuilder, remoteRepositories, localRepository, pomFile);
                     Model subModel = mavenHandler.getModel(subPom);
-                    gottaPush |= processPom(subPom, subHandler,subModel, gitHandler, git, branch, true, model.getId());
+                    modulesChanged |= processPom(subPom, mavenHandler, subModel, gitHandler, git, branch, true, model.getId());
                 }
             }
 
@@ -240,39 +882,20 @@ public class Plugin extends AbstractMojo {
                 log.debug("running BGAV branch");
                 // NCX-14 check for feature branch
                 log.debug("POM Version: " + nonNullVersion);
-                final String regexTicket;
-
-                if (regex_ticket == null || regex_ticket.isEmpty()) {
-                    log.info("RegEx for ticket ID is empty, use default one: " + REGEX_TICKET);
-                    regexTicket = REGEX_TICKET;
-                } else {
-                    log.debug("use provided RegEx for ticket ID: " + regex_ticket);
-                    regexTicket = regex_ticket;
-                }
-
-                if (versionMustBeRegarded) {
-                    pomTicketId = getMatchFirst(nonNullVersion, regexTicket);
-                } else {
-                    pomTicketId = getMatchFirst(parentVersion, regexTicket);;
-                }
-                ticketId = getMatchFirst(branch, regexTicket);
-                if (ticketId != null) {
-                    ticketId = ticketId.toUpperCase();
-                }
-                if (pomTicketId != null) {
-                    pomTicketId = pomTicketId.toUpperCase();
-                }
+                final BranchClassifier classifier = getBranchClassifier();
+                pomTicketId = classifier.getTicketId(versionMustBeRegarded ? nonNullVersion : parentVersion);
+                ticketId = classifier.getTicketId(branch);
 
                 log.debug("POM ticketId: " + pomTicketId);
                 log.debug("ticketId: " + ticketId);
                 if (ticketId == null) {
-                    log.warn("Could not extract ticket ID from branch '" + branch + "' using regex: " + regexTicket);
+                    log.warn("Could not extract ticket ID from branch '" + branch + "' using regex: " + getBranchClassifier().getTicketPattern());
                 } else if (versionMustBeRegarded) {
                     // NCX-16 write new verion to POM
                     if (new XMLHandler(log, suppressCommit, suppressPush, mavenHandler).setBgavOnVersion(pomfile, ticketId)) {
                         gitHandler.add(git, ticketId + " - BGAV - set correct branched version", pomfile);
                         gottaPush = true;
-                        if (failOnMissingBranchId || failOnAlteredPom) {
+                        if ((failOnMissingBranchId || failOnAlteredPom) && plan == null) {
                             // NCX-26
                             throw new MojoExecutionException("build failed due to missing branch id and failOnMissingBranchId parameter.");
                         } else {
@@ -290,7 +913,7 @@ public class Plugin extends AbstractMojo {
                 }
 
                 if (ticketId != null) {
-                    if (parentMustBeRegarded && isParentInNamespace(model, namespace)) {
+                    if (parentMustBeRegarded && isParentInNamespace(model, getNamespaceMatcher())) {
                         if (new XMLHandler(log, suppressCommit, suppressPush, mavenHandler).setBgavOnParentVersion(pomfile, ticketId)) {
                             gitHandler.add(git, ticketId + " - BGAV - set correct branched version", pomfile);
                             gottaPush = true;
@@ -299,7 +922,7 @@ public class Plugin extends AbstractMojo {
 
                     // NCX-36 check for affected GroupIds in dependencies
                     try {
-                        String artifacts = mavenHandler.checkforDependencies(pomfile, model, namespace, ticketId, gituser, gitpassword, settings.getLocalRepository());
+                        String artifacts = mavenHandler.checkforDependencies(pomfile, model, getNamespaceMatcher(), ticketId, gituser, gitpassword, settings.getLocalRepository());
                         if (!artifacts.isEmpty()) {
                             gitHandler.add(git, ticketId + " - BGAV - set correct branched version for " + (artifacts.endsWith(", ") ? artifacts.substring(0, artifacts.length() - 2) : artifacts),pomfile);
                             gottaPush=true;
@@ -312,13 +935,7 @@ public class Plugin extends AbstractMojo {
                 log.debug("running non BGAV branch");
                 // remove BGAV from POM
                 log.debug("POM Version: " + nonNullVersion);
-                if (regex_ticket == null || regex_ticket.isEmpty()) {
-                    log.debug("RegEx for ticket ID is empty, use default one: " + REGEX_TICKET);
-                    ticketId = getMatchFirst(nonNullVersion, REGEX_TICKET);
-                } else {
-                    log.debug("use provided RegEx for ticket ID: " + regex_ticket);
-                    ticketId = getMatchFirst(nonNullVersion, regex_ticket);
-                }
+                ticketId = getBranchClassifier().getTicketId(nonNullVersion);
                 log.debug("branched nonNullVersion found: " + ticketId);
                 String nonBgavVersion = mavenHandler.determineNonBgavPomVersion(nonNullVersion);
                 if (versionMustBeRegarded && !nonBgavVersion.equals(version)) {
@@ -327,14 +944,14 @@ public class Plugin extends AbstractMojo {
                         gitHandler.add(git, nonBgavVersion + " - none BGAV - set correct none branched version", pomfile);
                         gottaPush = true;
                     }
-                    if (failOnMissingBranchId || failOnAlteredPom) {
+                    if ((failOnMissingBranchId || failOnAlteredPom) && plan == null) {
                         throw new MojoExecutionException("build failed due to new none branched version, new version pushed and committed.");
                     }
                 } else {
                     log.debug("no BGAV information inside POM Version.");
                 }
 
-                if (parentMustBeRegarded && isParentInNamespace(model, namespace)) {
+                if (parentMustBeRegarded && isParentInNamespace(model, getNamespaceMatcher())) {
                     if (new XMLHandler(log, suppressCommit, suppressPush, mavenHandler).removeBgavFromParentVersion(pomfile, nonBgavVersion)) {
                         gitHandler.add(git, nonBgavVersion + " - none BGAV - set correct none branched parent version", pomfile);
                         gottaPush = true;
@@ -343,7 +960,7 @@ public class Plugin extends AbstractMojo {
 
                 // remove non BGAV versions from dependencies
                 try {
-                    String artifacts = mavenHandler.removeBgavFromPom(pomfile, model, namespace);
+                    String artifacts = mavenHandler.removeBgavFromPom(pomfile, model, getNamespaceMatcher());
                     if (!artifacts.isEmpty()) {
                         log.debug("removed non BGAV versions from dependencies");
                         gitHandler.add(git, "removed BGAV from " + (artifacts.endsWith(", ") ? artifacts.substring(0, artifacts.length() - 2) : artifacts),pomfile);
@@ -360,16 +977,26 @@ public class Plugin extends AbstractMojo {
             }
         }
 
-        Model alteredModel = mavenHandler.getModel(pomfile);
-        artifactMap.put(model.getId(), alteredModel);
-
-        return gottaPush;
+        return gottaPush || modulesChanged;
     }
 
     boolean isParentInNamespace(Model model, String[] namespaceArr) {
-        if (model.getParent() == null || namespaceArr == null) return false;
-        String parentGroupId = model.getParent().getGroupId();
-        return Arrays.stream(namespaceArr).anyMatch(ns -> parentGroupId.contains(ns));
+        return isParentInNamespace(model, NamespaceMatcher.of(namespaceArr));
+    }
+
+    boolean isParentInNamespace(Model model, NamespaceMatcher namespaceMatcher) {
+        return model.getParent() != null && namespaceMatcher.matches(model.getParent().getGroupId());
+    }
+
+    /**
+     * @return matcher of the namespace of the run
+     * @throws MojoExecutionException if the namespace file cannot be read
+     */
+    NamespaceMatcher getNamespaceMatcher() throws MojoExecutionException {
+        if (namespaceMatcher == null) {
+            namespaceMatcher = NamespaceMatcher.of(namespace, namespaceFile);
+        }
+        return namespaceMatcher;
     }
 
     /**
@@ -379,17 +1006,7 @@ public class Plugin extends AbstractMojo {
      * @return true/false
      */
     Boolean checkForAllowedBgavBranch(String branch) {
-        String check = "";
-        log.debug("check for BGAV branch");
-        if (regex_bgav_branch == null || regex_bgav_branch.isEmpty()) {
-            log.debug("RegEx for BGAV branch is empty, use default one: " + REGEX_BGAV_BRANCH);
-            check = getMatchFirst(branch, REGEX_BGAV_BRANCH);
-            return check != null && !check.isEmpty();
-        } else {
-            log.debug("use provided RegEx for BGAV branch: " + regex_bgav_branch);
-            check = getMatchFirst(branch, regex_bgav_branch);
-            return check != null && !check.isEmpty();
-        }
+        return getBranchClassifier().isBgavBranch(branch);
     }
 
     /**
@@ -399,17 +1016,7 @@ public class Plugin extends AbstractMojo {
      * @return true/false
      */
     Boolean checkForAllowedNonBgavBranch(String branch) {
-        String check = "";
-        log.debug("check for non BGAV branch");
-        if (regex_not_bgav_branch == null || regex_not_bgav_branch.isEmpty()) {
-            log.debug("RegEx for non BGAV branch is empty, use default one: " + REGEX_NON_BGAV_BRANCH);
-            check = getMatchFirst(branch, REGEX_NON_BGAV_BRANCH);
-            return check != null && !check.isEmpty();
-        } else {
-            log.info("use provided RegEx for non BGAV branch: " + regex_not_bgav_branch);
-            check = getMatchFirst(branch, regex_not_bgav_branch);
-            return check != null && !check.isEmpty();
-        }
+        return getBranchClassifier().isNonBgavBranch(branch);
     }
 
     /**
@@ -420,14 +1027,7 @@ public class Plugin extends AbstractMojo {
      * @return
      */
     String getMatchFirst(String search, String pat) {
-        String match = null;
-        Pattern pattern = Pattern.compile(pat);
-        Matcher matcher = pattern.matcher(search);
-        while (matcher.find()) {
-            match = matcher.group(1);
-//            log.info("Matcher: " + match);
-        }
-        return match;
+        return BranchClassifier.getMatchLast(search, pat);
     }
 
     public Log getLogs() {
@@ -0,0 +1,137 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * results of remote probes by SCM URL and ticket id, kept for a limited time, because branches are created and deleted
+ * in the dependency repositories while the cache lives
+ *
+ * <p>With a {@link DiskCache} the results are also shared with the other builds of the host. An entry on disk is a
+ * single line: status, branch, branch version and expiry, separated by tabs.</p>
+ */
+public class ProbeCache {
+
+    static final String KIND = "probe";
+
+    private static final class Entry {
+        private final DependencyProbe probe;
+        private final long expires;
+
+        Entry(DependencyProbe probe, long expires) {
+            this.probe = probe;
+            this.expires = expires;
+        }
+    }
+
+    private final long ttlMillis;
+    private final DiskCache diskCache;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttlMillis time to live of a probe
+     */
+    public ProbeCache(long ttlMillis) {
+        this(ttlMillis, null);
+    }
+
+    /**
+     * @param ttlMillis time to live of a probe
+     * @param diskCache cache shared with other builds, may be null
+     */
+    public ProbeCache(long ttlMillis, DiskCache diskCache) {
+        this.ttlMillis = ttlMillis;
+        this.diskCache = diskCache;
+    }
+
+    /**
+     * @param scmUrl
+     * @param ticketId
+     * @return the probe or null, if none is cached or it has expired
+     */
+    public DependencyProbe get(String scmUrl, String ticketId) {
+        final String key = key(scmUrl, ticketId);
+        Entry entry = entries.get(key);
+        if (entry == null && diskCache != null) {
+            entry = readEntry(scmUrl, key);
+            if (entry != null) {
+                entries.put(key, entry);
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expires) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.probe;
+    }
+
+    /**
+     * cache a probe, if it is a definite result of the remote repository
+     *
+     * @param scmUrl
+     * @param ticketId
+     * @param probe
+     */
+    public void put(String scmUrl, String ticketId, DependencyProbe probe) {
+        if (probe.getStatus() == DependencyProbe.Status.BRANCH_FOUND || probe.getStatus() == DependencyProbe.Status.NO_BRANCH) {
+            final String key = key(scmUrl, ticketId);
+            final Entry entry = new Entry(probe, System.currentTimeMillis() + ttlMillis);
+            entries.put(key, entry);
+            if (diskCache != null) {
+                writeEntry(key, entry);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * clear the entries in memory, the entries on disk expire
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private Entry readEntry(String scmUrl, String key) {
+        try {
+            final String line = diskCache.read(KIND, key, file -> DiskCache.readString(file));
+            if (line == null) {
+                return null;
+            }
+            final String[] fields = line.trim().split("\t", -1);
+            final long expires = Long.parseLong(fields[3]);
+            final DependencyProbe probe = DependencyProbe.Status.BRANCH_FOUND.name().equals(fields[0])
+                    ? DependencyProbe.branchFound(scmUrl, fields[1], fields[2].isEmpty() ? null : fields[2])
+                    : DependencyProbe.noBranch(scmUrl);
+            return new Entry(probe, expires);
+        } catch (MojoExecutionException | RuntimeException e) {
+            // unreadable entries are probed again
+            return null;
+        }
+    }
+
+    private void writeEntry(String key, Entry entry) {
+        final DependencyProbe probe = entry.probe;
+        final String line = probe.getStatus() + "\t" + (probe.getBranch() != null ? probe.getBranch() : "") + "\t"
+                + (probe.getBranchVersion() != null ? probe.getBranchVersion() : "") + "\t" + entry.expires + "\n";
+        try {
+            diskCache.write(KIND, key, file -> {
+                DiskCache.writeAtomically(file, line);
+                return null;
+            });
+        } catch (MojoExecutionException e) {
+            // the entry stays in memory
+        }
+    }
+
+    private static String key(String scmUrl, String ticketId) {
+        return scmUrl + "@" + ticketId;
+    }
+}
@@ -0,0 +1,19 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingException;
+
+/**
+ * resolves the project of a dependency, e.g. to get its SCM and distribution management
+ */
+public interface ProjectResolver {
+
+    /**
+     * @param groupId
+     * @param artifactId
+     * @param version
+     * @return project
+     * @throws ProjectBuildingException if the project could not be resolved
+     */
+    MavenProject resolveProject(String groupId, String artifactId, String version) throws ProjectBuildingException;
+}
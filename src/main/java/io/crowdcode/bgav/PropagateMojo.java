@@ -0,0 +1,193 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * applies the ticket versions to all repositories of a workspace touched by a ticket
+ *
+ * <p>The repositories are processed in the topological order of their dependencies on each other. The repositories of
+ * a level run in parallel, each on the ticket branch, which is created if it does not exist, and with a single commit.
+ * The commits of a level are pushed as a batch, before the next level probes the branches. The branched versions of a
+ * level are also handed to the next one directly, so its probes need no remote round trip, as far as the SCM URLs
+ * match.</p>
+ */
+@Mojo(name = "propagate", requiresProject = false)
+public class PropagateMojo extends Plugin {
+
+    /**
+     * directory with the local repositories, each a sub directory with a Git repository and a POM
+     */
+    @Parameter(property = "workspace", defaultValue = "${basedir}")
+    private File workspace;
+
+    /**
+     * file listing the directories of the repositories, one per line, instead of the workspace directory
+     */
+    @Parameter(property = "manifest")
+    private File manifest;
+
+    /**
+     * number of repositories processed and pushed in parallel
+     */
+    @Parameter(property = "propagateThreads", defaultValue = "4")
+    private int propagateThreads = 4;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final String branch = getBranchName();
+        if (branch == null || branch.isEmpty()) {
+            throw new MojoExecutionException("propagate needs the branchName of the ticket");
+        }
+        final String ticketId = getTicketId(branch);
+        if (ticketId == null || !checkForAllowedBgavBranch(branch)) {
+            throw new MojoExecutionException("branch " + branch + " is no BGAV branch with a ticket id");
+        }
+        final String pomFile = getPomFile() != null ? getPomFile() : "pom.xml";
+        final WorkspaceGraph graph = manifest != null ? WorkspaceGraph.ofManifest(manifest, pomFile)
+                : WorkspaceGraph.ofDirectory(workspace != null ? workspace : new File("."), pomFile);
+        final List<List<WorkspaceGraph.Repo>> levels = graph.getLevels();
+        log.info("propagating " + branch + " to " + graph.getRepos().size() + " repositories in " + levels.size() + " level(s)");
+
+        final ProbeCache probeCache = new ProbeCache(TimeUnit.HOURS.toMillis(1));
+        setProbeCache(probeCache);
+        setProjectResolver(new CachingProjectResolver(getProjectResolver(), TimeUnit.HOURS.toMillis(1)));
+
+        final Map<WorkspaceGraph.Repo, String> results = new LinkedHashMap<>();
+        final AtomicInteger count = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, propagateThreads), runnable -> {
+            Thread thread = new Thread(runnable, "bgav-propagate-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < levels.size(); i++) {
+                final List<WorkspaceGraph.Repo> level = levels.get(i);
+                log.info("level " + (i + 1) + ": " + level);
+                final List<WorkspaceGraph.Repo> changed = new ArrayList<>();
+                for (Map.Entry<WorkspaceGraph.Repo, Future<Boolean>> run : submit(executor, level, repo -> propagate(repo, branch)).entrySet()) {
+                    if (await(run.getKey(), run.getValue())) {
+                        changed.add(run.getKey());
+                        results.put(run.getKey(), "committed");
+                    } else {
+                        results.put(run.getKey(), "unchanged");
+                    }
+                }
+                for (Map.Entry<WorkspaceGraph.Repo, Future<Boolean>> push : submit(executor, changed, repo -> push(repo, branch)).entrySet()) {
+                    await(push.getKey(), push.getValue());
+                    results.put(push.getKey(), isSuppressed() ? "committed" : "pushed");
+                }
+                for (WorkspaceGraph.Repo repo : level) {
+                    handOver(repo, branch, ticketId, pomFile, probeCache);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            results.forEach((repo, result) -> log.info(String.format("%-40s %s", repo.getName(), result)));
+        }
+    }
+
+    private interface RepoTask {
+        Boolean call(WorkspaceGraph.Repo repo) throws Exception;
+    }
+
+    private static Map<WorkspaceGraph.Repo, Future<Boolean>> submit(ExecutorService executor, List<WorkspaceGraph.Repo> repos, RepoTask task) {
+        final Map<WorkspaceGraph.Repo, Future<Boolean>> futures = new LinkedHashMap<>();
+        for (WorkspaceGraph.Repo repo : repos) {
+            futures.put(repo, executor.submit(() -> task.call(repo)));
+        }
+        return futures;
+    }
+
+    private static boolean await(WorkspaceGraph.Repo repo, Future<Boolean> future) throws MojoExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("interrupted while propagating to " + repo, e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("could not propagate to " + repo + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * run the bgav goal on the ticket branch of a repository, committing without pushing
+     *
+     * @return true, if a commit has been made
+     */
+    private Boolean propagate(WorkspaceGraph.Repo repo, String branch) throws Exception {
+        final ObjectId before;
+        try (Git git = Git.open(repo.getDir())) {
+            checkoutBranch(git, branch);
+            before = git.getRepository().resolve(Constants.HEAD);
+        }
+        final Plugin run = copy();
+        run.prepareRun(repo.getDir(), branch, null);
+        run.setParameter("suppressPush", "true");
+        run.setParameter("failOnAlteredPom", "false");
+        run.setParameter("failOnMissingBranchId", "false");
+        run.execute();
+        try (Git git = Git.open(repo.getDir())) {
+            return !git.getRepository().resolve(Constants.HEAD).equals(before);
+        }
+    }
+
+    private void checkoutBranch(Git git, String branch) throws GitAPIException, IOException {
+        if (branch.equals(git.getRepository().getBranch())) {
+            return;
+        }
+        if (git.getRepository().findRef(Constants.R_HEADS + branch) != null) {
+            git.checkout().setName(branch).call();
+        } else if (git.getRepository().findRef(Constants.R_REMOTES + "origin/" + branch) != null) {
+            git.checkout().setCreateBranch(true).setName(branch).setStartPoint("origin/" + branch).call();
+        } else {
+            log.info("creating branch " + branch + " in " + git.getRepository().getWorkTree());
+            git.checkout().setCreateBranch(true).setName(branch).call();
+        }
+    }
+
+    private Boolean push(WorkspaceGraph.Repo repo, String branch) throws Exception {
+        if (isSuppressed()) {
+            return false;
+        }
+        try (Git git = Git.open(repo.getDir())) {
+            createGitHandler(repo.getDir()).push(git, branch);
+        }
+        return true;
+    }
+
+    private boolean isSuppressed() {
+        return isSuppressCommit() || isSuppressPush();
+    }
+
+    /**
+     * hand the branched version of a repository to the probes of the next levels
+     */
+    private void handOver(WorkspaceGraph.Repo repo, String branch, String ticketId, String pomFile, ProbeCache probeCache) throws MojoExecutionException {
+        final Model model = WorkspaceGraph.readModel(new File(repo.getDir(), pomFile));
+        final String version = model.getVersion() != null ? model.getVersion() : model.getParent() != null ? model.getParent().getVersion() : null;
+        if (model.getScm() != null && model.getScm().getUrl() != null && version != null && version.contains(ticketId)) {
+            probeCache.put(model.getScm().getUrl(), ticketId, DependencyProbe.branchFound(model.getScm().getUrl(), branch, version));
+        }
+    }
+}
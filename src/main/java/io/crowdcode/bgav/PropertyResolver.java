@@ -0,0 +1,284 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingException;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * resolves property expressions like <code>${lib.version}</code> of a model along its parent chain, including nested
+ * expressions, and tells which POM owns the property holding the value
+ *
+ * <p>Parents are taken from their relative path, if the POM there is the parent, otherwise from the project resolver.
+ * Only parents within the root directory of the project are editable, other POMs are not committed with the project.
+ * Resolved expressions are memoized per model, parents per child POM or coordinates.</p>
+ */
+public class PropertyResolver {
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * a resolved expression
+     */
+    public static class Resolution {
+        private final String value;
+        private final String property;
+        private final File owner;
+        private final Model ownerModel;
+        private final boolean own;
+
+        Resolution(String value, String property, File owner, Model ownerModel, boolean own) {
+            this.value = value;
+            this.property = property;
+            this.owner = owner;
+            this.ownerModel = ownerModel;
+            this.own = own;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @return the property holding the value, the last one of nested expressions, or null, if the value is
+         * composed or not a property
+         */
+        public String getProperty() {
+            return property;
+        }
+
+        /**
+         * @return the POM declaring the property or null, if it is not a local file
+         */
+        public File getOwner() {
+            return owner;
+        }
+
+        /**
+         * @return true, if the property is declared by the resolved model itself
+         */
+        public boolean isOwn() {
+            return own;
+        }
+
+        /**
+         * @return true, if the value can be changed by editing the property in the model's own POM or its owner POM
+         */
+        public boolean isEditable() {
+            return property != null && (own || owner != null);
+        }
+
+        @Override
+        public String toString() {
+            return value + (property != null ? " (" + property + (owner != null ? " in " + owner : "") + ")" : "");
+        }
+    }
+
+    /**
+     * a model of the parent chain and its POM file, null for a resolved project
+     */
+    private static final class Node {
+        private final Model model;
+        private final File file;
+        private final boolean editable;
+
+        Node(Model model, File file, boolean editable) {
+            this.model = model;
+            this.file = file;
+            this.editable = editable;
+        }
+    }
+
+    private final ProjectResolver projectResolver;
+    private final Path root;
+    private final Map<Model, Map<String, Resolution>> resolutions = new WeakHashMap<>();
+    private final Map<String, Node> parents = new HashMap<>();
+
+    /**
+     * @param projectResolver resolver of parents, which are not at their relative path
+     * @param root root directory of the project, whose parent POMs may be edited, null if only properties of the
+     *             model's own POM may be edited
+     */
+    public PropertyResolver(ProjectResolver projectResolver, File root) {
+        this.projectResolver = projectResolver;
+        this.root = root != null ? root.getAbsoluteFile().toPath().normalize() : null;
+    }
+
+    /**
+     * @param model model with its POM file set
+     * @param expression e.g. <code>${lib.version}</code>, <code>${major}.${minor}</code> or a plain value
+     * @return the resolution or null, if a property is not defined or the expressions are cyclic
+     */
+    public synchronized Resolution resolve(Model model, String expression) {
+        if (expression == null) {
+            return null;
+        }
+        final Map<String, Resolution> memo = resolutions.computeIfAbsent(model, m -> new HashMap<>());
+        if (memo.containsKey(expression)) {
+            return memo.get(expression);
+        }
+        final Resolution resolution = interpolate(getChain(model), expression, new HashSet<>());
+        memo.put(expression, resolution);
+        return resolution;
+    }
+
+    /**
+     * change the value of a resolved property in its owner model, the POM has to be edited by the caller
+     *
+     * @param resolution an editable resolution
+     * @param value
+     */
+    public synchronized void setProperty(Resolution resolution, String value) {
+        resolution.ownerModel.getProperties().setProperty(resolution.property, value);
+        resolutions.clear();
+    }
+
+    private Resolution interpolate(List<Node> chain, String expression, Set<String> visiting) {
+        final Matcher matcher = EXPRESSION.matcher(expression);
+        if (matcher.matches()) {
+            return lookup(chain, matcher.group(1), visiting);
+        }
+        final StringBuffer value = new StringBuffer();
+        matcher.reset();
+        while (matcher.find()) {
+            final Resolution resolution = lookup(chain, matcher.group(1), visiting);
+            if (resolution == null) {
+                return null;
+            }
+            matcher.appendReplacement(value, Matcher.quoteReplacement(resolution.value));
+        }
+        matcher.appendTail(value);
+        return new Resolution(value.toString(), null, null, null, false);
+    }
+
+    private Resolution lookup(List<Node> chain, String name, Set<String> visiting) {
+        if (!visiting.add(name) || visiting.size() > MAX_DEPTH) {
+            return null;
+        }
+        try {
+            final String builtIn = getBuiltIn(chain.get(0).model, name);
+            if (builtIn != null) {
+                return new Resolution(builtIn, null, null, null, false);
+            }
+            for (int i = 0; i < chain.size(); i++) {
+                final Node node = chain.get(i);
+                final String value = node.model.getProperties().getProperty(name);
+                if (value != null) {
+                    if (value.contains("${")) {
+                        // nested expressions are evaluated in the context of the child, like Maven does
+                        return interpolate(chain, value, visiting);
+                    }
+                    return new Resolution(value, name, node.editable ? node.file : null, node.model, i == 0);
+                }
+            }
+            return null;
+        } finally {
+            visiting.remove(name);
+        }
+    }
+
+    private static String getBuiltIn(Model model, String name) {
+        switch (name) {
+            case "project.version":
+            case "pom.version":
+            case "version":
+                return model.getVersion() != null ? model.getVersion() : model.getParent() != null ? model.getParent().getVersion() : null;
+            case "project.groupId":
+            case "pom.groupId":
+                return model.getGroupId() != null ? model.getGroupId() : model.getParent() != null ? model.getParent().getGroupId() : null;
+            case "project.artifactId":
+            case "pom.artifactId":
+                return model.getArtifactId();
+            case "project.parent.version":
+                return model.getParent() != null ? model.getParent().getVersion() : null;
+            case "project.parent.groupId":
+                return model.getParent() != null ? model.getParent().getGroupId() : null;
+            default:
+                return null;
+        }
+    }
+
+    private List<Node> getChain(Model model) {
+        final List<Node> chain = new ArrayList<>();
+        Node node = new Node(model, model.getPomFile(), true);
+        while (node != null && chain.size() < MAX_DEPTH) {
+            chain.add(node);
+            node = getParent(node);
+        }
+        return chain;
+    }
+
+    private Node getParent(Node child) {
+        final Parent parent = child.model.getParent();
+        if (parent == null) {
+            return null;
+        }
+        final String key = (child.file != null ? child.file.getAbsolutePath() + "@" : "") + parent.getId();
+        if (parents.containsKey(key)) {
+            return parents.get(key);
+        }
+        Node node = child.file != null ? readRelativeParent(child.file, parent) : null;
+        if (node == null && projectResolver != null) {
+            try {
+                final MavenProject project = projectResolver.resolveProject(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+                node = new Node(project.getModel(), null, false);
+            } catch (ProjectBuildingException | RuntimeException e) {
+                node = null;
+            }
+        }
+        parents.put(key, node);
+        return node;
+    }
+
+    private Node readRelativeParent(File childPom, Parent parent) {
+        final String relativePath = parent.getRelativePath() != null ? parent.getRelativePath() : "../pom.xml";
+        if (relativePath.isEmpty()) {
+            return null;
+        }
+        File file = new File(childPom.getAbsoluteFile().getParentFile(), relativePath);
+        if (file.isDirectory()) {
+            file = new File(file, "pom.xml");
+        }
+        file = file.toPath().normalize().toFile();
+        if (!file.isFile()) {
+            return null;
+        }
+        final Model model;
+        try (Reader reader = new FileReader(file)) {
+            model = new MavenXpp3Reader().read(reader);
+        } catch (IOException | XmlPullParserException e) {
+            return null;
+        }
+        final String groupId = model.getGroupId() != null ? model.getGroupId() : model.getParent() != null ? model.getParent().getGroupId() : null;
+        if (!parent.getArtifactId().equals(model.getArtifactId()) || !parent.getGroupId().equals(groupId)) {
+            return null;
+        }
+        model.setPomFile(file.getAbsoluteFile());
+        return new Node(model, file.getAbsoluteFile(), isEditable(file));
+    }
+
+    /**
+     * @return true, if the parent POM is within the root directory of the project
+     */
+    private boolean isEditable(File file) {
+        return root != null && file.getAbsoluteFile().toPath().normalize().startsWith(root);
+    }
+}
@@ -0,0 +1,288 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.transport.URIish;
+
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * schedules remote Git operations per host
+ *
+ * <p>Every host gets a concurrency limit, which grows while the operations are as fast as the fastest seen so far and
+ * shrinks on slow or failed operations. Each operation has a deadline, bounded by the time budget of the whole run.
+ * An operation exceeding its deadline is interrupted, it keeps its slot until it has actually ended, because JGit does
+ * not stop every transport on an interrupt.
+ * After repeated failures the circuit of a host opens and further operations fail fast with a
+ * {@link RemoteUnavailableException} until the cool down has passed.</p>
+ */
+public class RemoteGitScheduler {
+
+    /**
+     * a remote Git operation, which should respect the given timeout for its transport
+     */
+    public interface RemoteOperation<T> {
+        T call(int timeoutSeconds) throws Exception;
+    }
+
+    /**
+     * the remote host is not available: circuit is open, the deadline or the time budget is exceeded
+     */
+    public static class RemoteUnavailableException extends MojoExecutionException {
+        private static final long serialVersionUID = 1L;
+
+        public RemoteUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private static final long COOL_DOWN_MILLIS = 30_000;
+    private static final long MAX_GRACE_MILLIS = 30_000;
+
+    private final Log log;
+    private final int maxConcurrency;
+    private final int timeoutSeconds;
+    private final int failureThreshold;
+    private final boolean skipUnavailable;
+    private final long budgetDeadline;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    /**
+     * @param log
+     * @param maxConcurrency maximum number of concurrent operations per host
+     * @param timeoutSeconds deadline of a single operation, 0 for none
+     * @param budgetSeconds time budget for all remote operations of the run, 0 for none
+     * @param failureThreshold consecutive failures opening the circuit of a host
+     * @param skipUnavailable skip dependencies on unavailable hosts with a warning instead of failing the build
+     */
+    public RemoteGitScheduler(Log log, int maxConcurrency, int timeoutSeconds, int budgetSeconds, int failureThreshold, boolean skipUnavailable) {
+        this.log = log;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.timeoutSeconds = Math.max(0, timeoutSeconds);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.skipUnavailable = skipUnavailable;
+        this.budgetDeadline = budgetSeconds > 0 ? System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(budgetSeconds) : Long.MAX_VALUE;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "bgav-remote-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isSkipUnavailable() {
+        return skipUnavailable;
+    }
+
+    /**
+     * execute a remote operation within the limits of its host
+     *
+     * @param uri remote URI
+     * @param operation name of the operation for logging
+     * @param remoteOperation
+     * @return result of the operation
+     * @throws RemoteUnavailableException if the host is not available
+     * @throws MojoExecutionException if the operation failed
+     */
+    public <T> T execute(String uri, String operation, RemoteOperation<T> remoteOperation) throws MojoExecutionException {
+        final String host = getHost(uri);
+        final HostState state = hosts.computeIfAbsent(host, h -> new HostState());
+        final long deadline = getDeadline();
+        state.acquire(host, deadline);
+        final long start = System.currentTimeMillis();
+        final int remainingSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(deadline - start));
+        // the slot is released by the operation itself, a cancelled operation may go on until its transport gives up
+        final AtomicBoolean started = new AtomicBoolean();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return remoteOperation.call(deadline == Long.MAX_VALUE ? 0 : remainingSeconds);
+                } finally {
+                    state.release();
+                    finished.countDown();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            state.release();
+            throw new MojoExecutionException(operation + " on " + uri + " rejected, the scheduler is closed", e);
+        }
+        try {
+            final T result = deadline == Long.MAX_VALUE ? future.get() : future.get(deadline - start, TimeUnit.MILLISECONDS);
+            state.success(System.currentTimeMillis() - start, maxConcurrency);
+            return result;
+        } catch (TimeoutException e) {
+            final boolean running = cancel(future, started, state);
+            failure(host, state);
+            if (running) {
+                awaitCancelled(uri, operation, finished, Math.min(deadline - start, MAX_GRACE_MILLIS));
+            }
+            throw new RemoteUnavailableException(operation + " on " + uri + " exceeded its deadline");
+        } catch (InterruptedException e) {
+            cancel(future, started, state);
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException(operation + " on " + uri + " interrupted", e);
+        } catch (ExecutionException e) {
+            failure(host, state);
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException(operation + " on " + uri + " failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * @return true, if the operation has started and releases its slot, when it ends
+     */
+    private static boolean cancel(Future<?> future, AtomicBoolean started, HostState state) {
+        future.cancel(true);
+        if (started.compareAndSet(false, true)) {
+            // cancelled before it started, the operation will not release its slot
+            state.release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * give a cancelled operation the time to stop, so the caller does not clean up files it is still writing
+     */
+    private void awaitCancelled(String uri, String operation, CountDownLatch finished, long graceMillis) {
+        try {
+            if (!finished.await(graceMillis, TimeUnit.MILLISECONDS)) {
+                log.warn(operation + " on " + uri + " is still running after its deadline, its slot stays taken until it ends");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param host
+     * @return the number of operations running on the host
+     */
+    int getInFlight(String host) {
+        final HostState state = hosts.get(host);
+        return state == null ? 0 : state.getInFlight();
+    }
+
+    /**
+     * @param host
+     * @return the current concurrency limit of the host
+     */
+    int getLimit(String host) {
+        final HostState state = hosts.get(host);
+        return state == null ? maxConcurrency : state.getLimit();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void failure(String host, HostState state) {
+        if (state.failure(failureThreshold)) {
+            log.warn("circuit for Git host " + host + " is open after " + failureThreshold + " failures");
+        }
+    }
+
+    private long getDeadline() throws RemoteUnavailableException {
+        final long now = System.currentTimeMillis();
+        if (now >= budgetDeadline) {
+            throw new RemoteUnavailableException("time budget for remote Git operations is exhausted");
+        }
+        final long operationDeadline = timeoutSeconds > 0 ? now + TimeUnit.SECONDS.toMillis(timeoutSeconds) : Long.MAX_VALUE;
+        return Math.min(operationDeadline, budgetDeadline);
+    }
+
+    static String getHost(String uri) {
+        try {
+            final String host = new URIish(uri).getHost();
+            return host == null ? "local" : host;
+        } catch (URISyntaxException e) {
+            return uri;
+        }
+    }
+
+    private final class HostState {
+        private double limit = maxConcurrency;
+        private int inFlight;
+        private int failures;
+        private long openUntil;
+        private long minLatency = Long.MAX_VALUE;
+
+        synchronized void acquire(String host, long deadline) throws RemoteUnavailableException {
+            while (true) {
+                final long now = System.currentTimeMillis();
+                if (now < openUntil) {
+                    throw new RemoteUnavailableException("circuit for Git host " + host + " is open");
+                }
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    return;
+                }
+                if (now >= deadline) {
+                    throw new RemoteUnavailableException("no slot for Git host " + host + " within the deadline");
+                }
+                try {
+                    wait(Math.min(deadline - now, 1000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RemoteUnavailableException("interrupted while waiting for Git host " + host);
+                }
+            }
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+        synchronized void success(long latency, int max) {
+            failures = 0;
+            minLatency = Math.min(minLatency, Math.max(1, latency));
+            if (latency <= 2 * minLatency) {
+                limit = Math.min(max, limit + 1);
+            } else {
+                limit = Math.max(1, limit * 0.75);
+            }
+        }
+
+        /**
+         * @return true, if the circuit has been opened
+         */
+        synchronized boolean failure(int threshold) {
+            limit = Math.max(1, limit / 2);
+            if (++failures >= threshold) {
+                failures = 0;
+                openUntil = System.currentTimeMillis() + COOL_DOWN_MILLIS;
+                return true;
+            }
+            return false;
+        }
+    }
+}
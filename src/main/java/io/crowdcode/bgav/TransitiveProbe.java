@@ -0,0 +1,210 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * walks the namespace dependencies of a project transitively across their repositories, breadth first, so a ticket
+ * spanning A → B → C is seen completely in a single run instead of one run per level
+ *
+ * <p>The first level are the namespace dependencies and managed dependencies of the project. The dependencies of a
+ * level are probed in parallel by the prefetcher, every groupId:artifactId:version once, and their projects are
+ * resolved, whose namespace dependencies form the next level. The probes stay in the prefetcher, so editing the POMs
+ * afterwards needs no further remote round trip.</p>
+ */
+public class TransitiveProbe implements AutoCloseable {
+
+    /**
+     * a namespace dependency reached by the walk
+     */
+    public static final class Node {
+        private final String key;
+        private final Model model;
+        private final Dependency dependency;
+        private final int level;
+        private final String via;
+        private DependencyProbe probe;
+
+        Node(String key, Model model, Dependency dependency, int level, String via) {
+            this.key = key;
+            this.model = model;
+            this.dependency = dependency;
+            this.level = level;
+            this.via = via;
+        }
+
+        /**
+         * @return groupId:artifactId:version with the version resolved
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public Dependency getDependency() {
+            return dependency;
+        }
+
+        /**
+         * @return 1 for a dependency of the project, 2 for a dependency of a dependency, ...
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * @return the project declaring the dependency
+         */
+        public String getVia() {
+            return via;
+        }
+
+        public DependencyProbe getProbe() {
+            return probe;
+        }
+
+        @Override
+        public String toString() {
+            return key + (level > 1 ? " via " + via : "") + ": " + probe;
+        }
+    }
+
+    private final Log log;
+    private final MavenHandler mavenHandler;
+    private final DependencyPrefetcher prefetcher;
+    private final NamespaceMatcher namespace;
+    private final ExecutorService executor;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    /**
+     * @param log
+     * @param mavenHandler handler probing the dependencies and resolving their projects
+     * @param prefetcher prefetcher keeping the probes for editing the POMs
+     * @param namespace
+     * @param threads number of dependency projects resolved in parallel
+     */
+    public TransitiveProbe(Log log, MavenHandler mavenHandler, DependencyPrefetcher prefetcher, NamespaceMatcher namespace, int threads) {
+        this.log = log;
+        this.mavenHandler = mavenHandler;
+        this.prefetcher = prefetcher;
+        this.namespace = namespace;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "bgav-transitive-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * walk the namespace dependencies of the models
+     *
+     * @param models the POMs of the project, e.g. the root POM and its modules
+     * @param ticketId
+     * @param gituser
+     * @param gitpassword
+     * @param localRepositoryPath
+     * @return the dependencies reached, in the order of the walk
+     * @throws MojoExecutionException if a probe fails
+     */
+    public List<Node> walk(List<Model> models, String ticketId, String gituser, String gitpassword, String localRepositoryPath) throws MojoExecutionException {
+        List<Node> level = new ArrayList<>();
+        for (Model model : models) {
+            final String groupId = model.getGroupId() != null ? model.getGroupId() : model.getParent() != null ? model.getParent().getGroupId() : null;
+            final String via = groupId + ":" + model.getArtifactId();
+            add(level, model, mavenHandler.getNamespaceDependencies(model, namespace), 1, via);
+            add(level, model, mavenHandler.getManagedNamespaceDependencies(model, namespace), 1, via);
+        }
+        while (!level.isEmpty()) {
+            log.info("probing " + level.size() + " namespace dependencies of level " + level.get(0).level);
+            final Map<Node, Future<Model>> resolutions = new LinkedHashMap<>();
+            for (Node node : level) {
+                prefetcher.prefetch(mavenHandler, node.model, node.dependency, ticketId, gituser, gitpassword, localRepositoryPath);
+                resolutions.put(node, executor.submit(() -> resolve(node)));
+            }
+            final List<Node> next = new ArrayList<>();
+            for (Map.Entry<Node, Future<Model>> resolution : resolutions.entrySet()) {
+                final Node node = resolution.getKey();
+                node.probe = prefetcher.await(mavenHandler, node.model, node.dependency, ticketId);
+                final Model model = await(node, resolution.getValue());
+                if (model != null) {
+                    add(next, model, mavenHandler.getNamespaceDependencies(model, namespace), node.level + 1, node.key);
+                }
+            }
+            level = next;
+        }
+        return new ArrayList<>(nodes.values());
+    }
+
+    /**
+     * log the dependencies reached by the walk with their branches
+     *
+     * @param ticketId
+     */
+    public void report(String ticketId) {
+        log.info("------------------------------------------------------------------------");
+        log.info("namespace dependencies of " + ticketId + ", transitively:");
+        int branched = 0;
+        for (Node node : nodes.values()) {
+            final DependencyProbe probe = node.probe;
+            final String result;
+            if (probe != null && probe.getStatus() == DependencyProbe.Status.BRANCH_FOUND) {
+                branched++;
+                result = probe.getBranch() + " -> " + mavenHandler.determinePomVersion(probe.getBranchVersion(), ticketId);
+            } else {
+                result = probe != null ? probe.getStatus().toString() : "not probed";
+            }
+            log.info(String.format("  %d %-50s %s%s", node.level, node.key, result, node.level > 1 ? " (via " + node.via + ")" : ""));
+        }
+        log.info(branched + " of " + nodes.size() + " namespace dependencies have a branch of " + ticketId);
+        log.info("------------------------------------------------------------------------");
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void add(List<Node> level, Model model, List<Dependency> dependencies, int depth, String via) {
+        for (Dependency dependency : dependencies) {
+            final String version = mavenHandler.resolveVersion(model, dependency);
+            final String key = dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + (version != null ? version : dependency.getVersion());
+            if (!nodes.containsKey(key)) {
+                final Node node = new Node(key, model, dependency, depth, via);
+                nodes.put(key, node);
+                level.add(node);
+            }
+        }
+    }
+
+    private Model resolve(Node node) {
+        try {
+            return mavenHandler.resolveDependencyModel(node.model, node.dependency);
+        } catch (MojoExecutionException e) {
+            log.debug("not following the dependencies of " + node.key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Model await(Node node, Future<Model> future) throws MojoExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("interrupted while resolving " + node.key, e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("could not resolve " + node.key + ": " + e.getCause(), e.getCause());
+        }
+    }
+}
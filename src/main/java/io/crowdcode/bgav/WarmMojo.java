@@ -0,0 +1,42 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.util.List;
+
+/**
+ * fills the local caches for the namespace dependencies of the project, e.g. once when a build agent is provisioned,
+ * so the first bgav run of the agent does not pay for them: the dependency POMs of the local Maven repository and the
+ * mirrors of the dependency repositories in the cacheDir. POMs and repositories are fetched in parallel, fresh mirrors
+ * are not fetched again. Nothing is changed, committed or pushed.
+ */
+@Mojo(name = "warm")
+public class WarmMojo extends Plugin {
+
+    /**
+     * fail, if the caches of a dependency could not be warmed, instead of warning
+     */
+    @Parameter(property = "failOnWarmFailure", defaultValue = "false")
+    private boolean failOnWarmFailure;
+
+    private List<CacheWarmer.Result> results;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        results = warmCaches();
+        final long failed = results.stream().filter(result -> result.getStatus() == CacheWarmer.Status.FAILED).count();
+        if (failed > 0 && failOnWarmFailure) {
+            throw new MojoFailureException("could not warm the caches for " + failed + " namespace dependencies");
+        }
+    }
+
+    /**
+     * @return the namespace dependencies of the last run with what has been done for them
+     */
+    List<CacheWarmer.Result> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,228 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * the local repositories of a workspace and their dependencies on each other, read from their POMs
+ *
+ * <p>The repositories are the sub directories of a workspace directory with a Git repository and a POM, or the
+ * directories listed in a manifest file, one per line, relative to the manifest. A repository depends on another one,
+ * if one of its POMs has a dependency or a parent built by the other one.</p>
+ */
+public class WorkspaceGraph {
+
+    /**
+     * a repository of the workspace
+     */
+    public static class Repo {
+        private final String name;
+        private final File dir;
+        private final Model model;
+        private final Set<String> artifacts = new LinkedHashSet<>();
+        private final Set<String> dependencies = new LinkedHashSet<>();
+        private final Set<Repo> upstream = new LinkedHashSet<>();
+
+        Repo(String name, File dir, Model model) {
+            this.name = name;
+            this.dir = dir;
+            this.model = model;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getDir() {
+            return dir;
+        }
+
+        /**
+         * @return the model of the root POM
+         */
+        public Model getModel() {
+            return model;
+        }
+
+        /**
+         * @return the repositories of the workspace this one depends on
+         */
+        public Set<Repo> getUpstream() {
+            return Collections.unmodifiableSet(upstream);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Map<String, Repo> repos = new TreeMap<>();
+    private final String pomFile;
+
+    private WorkspaceGraph(String pomFile) {
+        this.pomFile = pomFile;
+    }
+
+    /**
+     * read the repositories of a workspace directory
+     *
+     * @param workspace
+     * @param pomFile name of the POM files
+     * @return the graph
+     * @throws MojoExecutionException if a POM can not be read or the repositories depend on each other in a cycle
+     */
+    public static WorkspaceGraph ofDirectory(File workspace, String pomFile) throws MojoExecutionException {
+        final File[] dirs = workspace.listFiles(dir -> dir.isDirectory() && new File(dir, ".git").exists() && new File(dir, pomFile).isFile());
+        if (dirs == null) {
+            throw new MojoExecutionException("workspace " + workspace + " is not a directory");
+        }
+        final WorkspaceGraph graph = new WorkspaceGraph(pomFile);
+        for (File dir : dirs) {
+            graph.add(dir);
+        }
+        return graph.link();
+    }
+
+    /**
+     * read the repositories listed in a manifest file, blank lines and lines starting with # are ignored
+     *
+     * @param manifest
+     * @param pomFile name of the POM files
+     * @return the graph
+     * @throws MojoExecutionException if a POM can not be read or the repositories depend on each other in a cycle
+     */
+    public static WorkspaceGraph ofManifest(File manifest, String pomFile) throws MojoExecutionException {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new MojoExecutionException("could not read workspace manifest " + manifest + ": " + e, e);
+        }
+        final WorkspaceGraph graph = new WorkspaceGraph(pomFile);
+        for (String line : lines) {
+            final String path = line.trim();
+            if (!path.isEmpty() && !path.startsWith("#")) {
+                final File dir = new File(path).isAbsolute() ? new File(path) : new File(manifest.getAbsoluteFile().getParentFile(), path);
+                graph.add(dir);
+            }
+        }
+        return graph.link();
+    }
+
+    public List<Repo> getRepos() {
+        return new ArrayList<>(repos.values());
+    }
+
+    /**
+     * @return the repositories in topological order, grouped into levels which only depend on former levels
+     * @throws MojoExecutionException if the repositories depend on each other in a cycle
+     */
+    public List<List<Repo>> getLevels() throws MojoExecutionException {
+        final Map<Repo, Integer> pending = new HashMap<>();
+        for (Repo repo : repos.values()) {
+            pending.put(repo, repo.upstream.size());
+        }
+        final List<List<Repo>> levels = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            final List<Repo> level = new ArrayList<>();
+            for (Repo repo : repos.values()) {
+                if (pending.containsKey(repo) && pending.get(repo) == 0) {
+                    level.add(repo);
+                }
+            }
+            if (level.isEmpty()) {
+                throw new MojoExecutionException("workspace repositories depend on each other in a cycle: " + pending.keySet());
+            }
+            for (Repo repo : level) {
+                pending.remove(repo);
+                for (Repo downstream : repos.values()) {
+                    if (downstream.upstream.contains(repo)) {
+                        pending.computeIfPresent(downstream, (r, count) -> count - 1);
+                    }
+                }
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private void add(File dir) throws MojoExecutionException {
+        final File pom = new File(dir, pomFile);
+        if (!pom.isFile()) {
+            throw new MojoExecutionException("workspace repository " + dir + " has no " + pomFile);
+        }
+        final Model model = readModel(pom);
+        final Repo repo = new Repo(dir.getName(), dir.getAbsoluteFile(), model);
+        if (repos.containsKey(repo.name)) {
+            throw new MojoExecutionException("workspace repository " + repo.name + " is listed twice");
+        }
+        collect(repo, model, pom);
+        repos.put(repo.name, repo);
+    }
+
+    private void collect(Repo repo, Model model, File pom) throws MojoExecutionException {
+        final String groupId = model.getGroupId() != null ? model.getGroupId() : model.getParent() != null ? model.getParent().getGroupId() : null;
+        repo.artifacts.add(groupId + ":" + model.getArtifactId());
+        if (model.getParent() != null) {
+            repo.dependencies.add(model.getParent().getGroupId() + ":" + model.getParent().getArtifactId());
+        }
+        for (Dependency dependency : model.getDependencies()) {
+            repo.dependencies.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+        }
+        if (model.getDependencyManagement() != null) {
+            for (Dependency dependency : model.getDependencyManagement().getDependencies()) {
+                repo.dependencies.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+            }
+        }
+        for (String module : model.getModules()) {
+            final File subPom = new File(new File(pom.getAbsoluteFile().getParentFile(), module), pomFile);
+            collect(repo, readModel(subPom), subPom);
+        }
+    }
+
+    private WorkspaceGraph link() throws MojoExecutionException {
+        final Map<String, Repo> builtBy = new HashMap<>();
+        for (Repo repo : repos.values()) {
+            for (String artifact : repo.artifacts) {
+                builtBy.put(artifact, repo);
+            }
+        }
+        for (Repo repo : repos.values()) {
+            for (String dependency : repo.dependencies) {
+                final Repo upstream = builtBy.get(dependency);
+                if (upstream != null && upstream != repo) {
+                    repo.upstream.add(upstream);
+                }
+            }
+        }
+        getLevels();
+        return this;
+    }
+
+    static Model readModel(File pom) throws MojoExecutionException {
+        try (Reader reader = new FileReader(pom)) {
+            return new MavenXpp3Reader().read(reader);
+        } catch (IOException | XmlPullParserException e) {
+            throw new MojoExecutionException("could not read " + pom + ": " + e, e);
+        }
+    }
+}
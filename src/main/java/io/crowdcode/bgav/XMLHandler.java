@@ -3,6 +3,7 @@ package io.crowdcode.bgav;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -16,9 +17,16 @@ import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
@@ -55,8 +63,8 @@ public class XMLHandler {
      * @throws MojoExecutionException
      */
     public String getPomVersion(File pomfile, String ticketID, String expression) throws MojoExecutionException {
-        try (final FileInputStream fileInputStream = new FileInputStream(pomfile)) {
-            Document document = getDocument(fileInputStream);
+        try {
+            Document document = getDocument(pomfile);
             XPath xPath = XPathFactory.newInstance().newXPath();
             NodeList nodeList = (NodeList) xPath.compile(expression).evaluate(document, XPathConstants.NODESET);
             String oldPomVersion = nodeList.item(0).getTextContent();
@@ -99,13 +107,16 @@ public class XMLHandler {
      * @throws MojoExecutionException
      */
     private boolean writeChangedPomWithXPath(File pomfile, String ticketID, String expression) throws MojoExecutionException {
-        try (final FileInputStream fileInputStream = new FileInputStream(pomfile)) {
-            Document document = getDocument(fileInputStream);
+        try {
+            Document document = getDocument(pomfile);
             XPath xPath = XPathFactory.newInstance().newXPath();
             NodeList nodeList = (NodeList) xPath.compile(expression).evaluate(document, XPathConstants.NODESET);
             String oldPomVersion = nodeList.item(0).getTextContent();
             final String newVersion = mavenHandler.determinePomVersion(oldPomVersion, ticketID);
             if (!oldPomVersion.equals(newVersion)) {
+                if (record(pomfile, nodeList.item(0), oldPomVersion, newVersion, "ticket " + ticketID)) {
+                    return true;
+                }
                 nodeList.item(0).setTextContent(newVersion);
                 writePomFile(pomfile, document);
                 return true;
@@ -145,11 +156,14 @@ public class XMLHandler {
     }
 
     boolean setVersionInPom(File pomfile, String location, String pomVersion) throws MojoExecutionException {
-        try (final FileInputStream fileInputStream = new FileInputStream(pomfile)) {
-            Document document = getDocument(fileInputStream);
+        try {
+            Document document = getDocument(pomfile);
             XPath xPath = XPathFactory.newInstance().newXPath();
             NodeList nodeList = (NodeList) xPath.compile(location).evaluate(document, XPathConstants.NODESET);
             if (!pomVersion.equals(nodeList.item(0).getTextContent())) {
+                if (record(pomfile, nodeList.item(0), nodeList.item(0).getTextContent(), pomVersion, "non BGAV version")) {
+                    return true;
+                }
                 nodeList.item(0).setTextContent(pomVersion);
                 writePomFile(pomfile, document);
                 return true;
@@ -162,29 +176,142 @@ public class XMLHandler {
     }
 
 
-    boolean alterDependency(File pomfile, String artifact, String newVersion) throws MojoExecutionException {
+    /**
+     * section of a POM declaring dependencies, including the same section of its profiles
+     */
+    enum DependencySection {
+        DEPENDENCIES,
+        DEPENDENCY_MANAGEMENT
+    }
+
+    /**
+     * the version elements of the dependencies of a POM by section and groupId:artifactId, built in one pass over the
+     * document. The values are the text as declared, a version property is not resolved.
+     */
+    static final class DependencyIndex {
+
+        private final Map<String, List<Node>> versions = new HashMap<>();
+
+        DependencyIndex(Document document) {
+            final Element project = document.getDocumentElement();
+            index(project);
+            for (Element profiles : getChildren(project, "profiles")) {
+                for (Element profile : getChildren(profiles, "profile")) {
+                    index(profile);
+                }
+            }
+        }
+
+        private void index(Element container) {
+            for (Element dependencies : getChildren(container, "dependencies")) {
+                add(DependencySection.DEPENDENCIES, dependencies);
+            }
+            for (Element dependencyManagement : getChildren(container, "dependencyManagement")) {
+                for (Element dependencies : getChildren(dependencyManagement, "dependencies")) {
+                    add(DependencySection.DEPENDENCY_MANAGEMENT, dependencies);
+                }
+            }
+        }
+
+        private void add(DependencySection section, Element dependencies) {
+            for (Element dependency : getChildren(dependencies, "dependency")) {
+                String groupId = null;
+                String artifactId = null;
+                Node version = null;
+                for (Node child = dependency.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if (child.getNodeType() != Node.ELEMENT_NODE) {
+                        continue;
+                    }
+                    switch (child.getNodeName()) {
+                        case "groupId":
+                            groupId = child.getTextContent().trim();
+                            break;
+                        case "artifactId":
+                            artifactId = child.getTextContent().trim();
+                            break;
+                        case "version":
+                            version = child;
+                            break;
+                        default:
+                    }
+                }
+                if (artifactId != null && version != null) {
+                    versions.computeIfAbsent(key(section, groupId + ":" + artifactId), k -> new ArrayList<>(1)).add(version);
+                }
+            }
+        }
+
+        /**
+         * @param section
+         * @param dependency groupId:artifactId as declared
+         * @return the version elements of the dependency, more than one if it is declared e.g. with several classifiers
+         */
+        List<Node> getVersions(DependencySection section, String dependency) {
+            return versions.getOrDefault(key(section, dependency), Collections.emptyList());
+        }
+
+        private static String key(DependencySection section, String dependency) {
+            return section.name() + ":" + dependency;
+        }
+
+        private static List<Element> getChildren(Element parent, String name) {
+            final List<Element> children = new ArrayList<>();
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals(name)) {
+                    children.add((Element) child);
+                }
+            }
+            return children;
+        }
+    }
+
+    /**
+     * set the version of a dependency
+     *
+     * @param pomfile
+     * @param groupId
+     * @param artifactId
+     * @param newVersion
+     * @return true, if the version has changed
+     * @throws MojoExecutionException
+     */
+    boolean alterDependency(File pomfile, String groupId, String artifactId, String newVersion) throws MojoExecutionException {
+        return alterDependencies(pomfile, DependencySection.DEPENDENCIES, Collections.singletonMap(groupId + ":" + artifactId, newVersion));
+    }
+
+    /**
+     * set the versions of dependencies of a section, the POM is read and written once
+     *
+     * @param pomfile
+     * @param section
+     * @param newVersions new version by groupId:artifactId as declared
+     * @return true, if a version has changed
+     * @throws MojoExecutionException
+     */
+    boolean alterDependencies(File pomfile, DependencySection section, Map<String, String> newVersions) throws MojoExecutionException {
         boolean willWritePom = false;
-        try (final FileInputStream fileInputStream = new FileInputStream(pomfile)) {
-            Document document = getDocument(fileInputStream);
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            String expression = "//dependencies/dependency";
-            NodeList nodeList = (NodeList) xPath.compile(expression).evaluate(document, XPathConstants.NODESET);
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                if (nodeList.item(i).getTextContent().contains(artifact)) {
-                    NodeList children = nodeList.item(i).getChildNodes();
-                    log.info("found artifact: " + artifact + ", change version " + newVersion);
-                    for (int j = 0; j < children.getLength(); j++) {
-                        if (children.item(j).getNodeType() == Node.ELEMENT_NODE && children.item(j).getNodeName().equalsIgnoreCase("version")) {
-                            String oldPomVersion = children.item(j).getTextContent();
-                            if (!oldPomVersion.equals(newVersion)) {
-                                children.item(j).setTextContent(newVersion);
-                                willWritePom = true;
-                            }
+        try {
+            Document document = getDocument(pomfile);
+            DependencyIndex index = new DependencyIndex(document);
+            for (Map.Entry<String, String> entry : newVersions.entrySet()) {
+                final String dependency = entry.getKey();
+                final String newVersion = entry.getValue();
+                final List<Node> versions = index.getVersions(section, dependency);
+                if (versions.isEmpty()) {
+                    log.warn("dependency " + dependency + " with a version not found in " + pomfile);
+                }
+                for (Node version : versions) {
+                    log.info("found artifact: " + dependency + ", change version " + newVersion);
+                    String oldPomVersion = version.getTextContent();
+                    if (!oldPomVersion.equals(newVersion)) {
+                        if (!record(pomfile, version, oldPomVersion, newVersion, "dependency " + dependency.substring(dependency.indexOf(':') + 1))) {
+                            version.setTextContent(newVersion);
                         }
+                        willWritePom = true;
                     }
                 }
             }
-            if (willWritePom) {
+            if (willWritePom && getPlan() == null) {
                 writePomFile(pomfile, document);
             }
         } catch (Exception ex) {
@@ -195,15 +322,106 @@ public class XMLHandler {
     }
 
 
-    private void writePomFile(File pomfile, Document document) throws TransformerException {
+    private void writePomFile(File pomfile, Document document) throws TransformerException, IOException {
+        writePomFile(pomfile, toBytes(document));
+    }
+
+    private void writePomFile(File pomfile, byte[] content) throws IOException {
+        final BgavMetrics metrics = getMetrics();
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.POM_WRITE).detail(pomfile.getPath())) {
+            Files.write(pomfile.toPath(), content);
+            timer.success();
+        }
+        metrics.touched(pomfile);
+    }
+
+    private static byte[] toBytes(Document document) throws TransformerException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         Transformer transformer = TransformerFactory.newInstance().newTransformer();
-        transformer.transform(new DOMSource(document), new StreamResult(pomfile));
+        transformer.transform(new DOMSource(document), new StreamResult(outputStream));
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * apply the changes of a plan to a POM in memory
+     *
+     * @param pomfile
+     * @param changes changes of this POM
+     * @return the changed POM
+     * @throws MojoExecutionException if an element is missing or does not have the planned old value
+     */
+    byte[] applyChanges(File pomfile, List<ChangePlan.Change> changes) throws MojoExecutionException {
+        try {
+            Document document = getDocument(pomfile);
+            XPath xPath = XPathFactory.newInstance().newXPath();
+            for (ChangePlan.Change change : changes) {
+                Node node = (Node) xPath.compile(change.getLocation()).evaluate(document, XPathConstants.NODE);
+                if (node == null || !change.getOldValue().equals(node.getTextContent())) {
+                    throw new MojoExecutionException("POM " + pomfile + " does not match the plan at " + change.getLocation());
+                }
+                node.setTextContent(change.getNewValue());
+            }
+            return toBytes(document);
+        } catch (MojoExecutionException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("IOException: " + ex);
+            throw new MojoExecutionException("could not apply plan to POM: " + ex);
+        }
+    }
+
+    /**
+     * write a POM changed by {@link #applyChanges(File, List)}
+     *
+     * @param pomfile
+     * @param content
+     * @throws MojoExecutionException
+     */
+    void writePom(File pomfile, byte[] content) throws MojoExecutionException {
+        try {
+            writePomFile(pomfile, content);
+        } catch (IOException ex) {
+            log.error("IOException: " + ex);
+            throw new MojoExecutionException("could not write POM: " + ex);
+        }
+    }
+
+    /**
+     * record a change into the plan instead of writing it
+     *
+     * @return true, if the change has been recorded
+     */
+    private boolean record(File pomfile, Node node, String oldValue, String newValue, String reason) throws MojoExecutionException {
+        final ChangePlan plan = getPlan();
+        if (plan == null) {
+            return false;
+        }
+        plan.record(pomfile, getXPath(node), oldValue, newValue, reason);
+        return true;
+    }
+
+    /**
+     * @param node
+     * @return positional XPath of an element, e.g. /project[1]/dependencies[1]/dependency[3]/version[1]
+     */
+    static String getXPath(Node node) {
+        final StringBuilder path = new StringBuilder();
+        for (Node current = node; current != null && current.getNodeType() == Node.ELEMENT_NODE; current = current.getParentNode()) {
+            int index = 1;
+            for (Node sibling = current.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling()) {
+                if (sibling.getNodeType() == Node.ELEMENT_NODE && sibling.getNodeName().equals(current.getNodeName())) {
+                    index++;
+                }
+            }
+            path.insert(0, "/" + current.getNodeName() + "[" + index + "]");
+        }
+        return path.toString();
     }
 
     boolean alterProperty(File pomfile, String propertyName, String targetPomVersion) throws MojoExecutionException {
         boolean willWritePom = false;
-        try (final FileInputStream fileInputStream = new FileInputStream(pomfile)) {
-            Document document = getDocument(fileInputStream);
+        try {
+            Document document = getDocument(pomfile);
             XPath xPath = XPathFactory.newInstance().newXPath();
             String expression = "//properties";
             NodeList nodeList = (NodeList) xPath.compile(expression).evaluate(document, XPathConstants.NODESET);
@@ -216,13 +434,15 @@ public class XMLHandler {
                     if (child.getNodeName().equals(propertyName)) {
                         log.info("found property: " + propertyName + ", change to version " + targetPomVersion);
                         if (!targetPomVersion.equals(child.getTextContent())) {
-                            child.setTextContent(targetPomVersion);
+                            if (!record(pomfile, child, child.getTextContent(), targetPomVersion, "property " + propertyName)) {
+                                child.setTextContent(targetPomVersion);
+                            }
                             willWritePom = true;
                         }
                     }
                 }
             }
-            if (willWritePom) {
+            if (willWritePom && getPlan() == null) {
                 writePomFile(pomfile, document);
             }
         } catch (Exception ex) {
@@ -232,9 +452,22 @@ public class XMLHandler {
         return willWritePom;
     }
 
-    private Document getDocument(FileInputStream fileInputStream) throws ParserConfigurationException, SAXException, IOException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        return documentBuilder.parse(fileInputStream);
+    private Document getDocument(File pomfile) throws ParserConfigurationException, SAXException, IOException {
+        try (BgavMetrics.Timer timer = getMetrics().start(BgavMetrics.POM_PARSE).detail(pomfile.getPath());
+             FileInputStream fileInputStream = new FileInputStream(pomfile)) {
+            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            final Document document = documentBuilder.parse(fileInputStream);
+            timer.success();
+            return document;
+        }
+    }
+
+    private ChangePlan getPlan() {
+        return mavenHandler != null ? mavenHandler.getPlan() : null;
+    }
+
+    private BgavMetrics getMetrics() {
+        return mavenHandler != null ? mavenHandler.getMetrics() : new BgavMetrics();
     }
 }
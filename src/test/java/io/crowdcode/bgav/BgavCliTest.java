@@ -0,0 +1,77 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BgavCliTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testNoOp() throws Exception {
+        File basedir = temporaryFolder.newFolder();
+        writePom(basedir, "1.0.0-SNAPSHOT");
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("pomFile", "pom.xml");
+        assertTrue("no Git repository", BgavCli.isNoOp(basedir, parameters));
+
+        Git.init().setDirectory(basedir).setInitialBranch("develop").call().close();
+        assertEquals("develop", BgavCli.readBranch(new File(basedir, ".git")));
+        assertTrue("non BGAV branch without BGAV versions", BgavCli.isNoOp(basedir, parameters));
+
+        parameters.put("branchName", "feature/ABC-1-cli");
+        assertFalse("BGAV branch", BgavCli.isNoOp(basedir, parameters));
+
+        parameters.put("branchName", "experiment");
+        assertTrue("unknown branch", BgavCli.isNoOp(basedir, parameters));
+
+        parameters.remove("branchName");
+        writePom(basedir, "1.0.0-ABC-1-SNAPSHOT");
+        assertFalse("non BGAV branch with BGAV version", BgavCli.isNoOp(basedir, parameters));
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 4, 1, 2).create();
+        File basedir = harness.checkout();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exitCode = BgavCli.run(new String[]{"bgav",
+                "-Dbasedir=" + basedir,
+                "-Dnamespace=" + MultiRepoHarness.GROUP_ID,
+                "-Dmaven.repo.local=" + harness.getLocalRepository(),
+                "-DsuppressPush"}, new PrintStream(out));
+        assertEquals(out.toString(), 0, exitCode);
+
+        Model model = MultiRepoHarness.readModel(new File(basedir, "pom.xml"));
+        assertEquals("1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT", MultiRepoHarness.getDependency(model, MultiRepoHarness.getArtifactId(0)).getVersion());
+        assertEquals(MultiRepoHarness.VERSION, MultiRepoHarness.getDependency(model, MultiRepoHarness.getArtifactId(1)).getVersion());
+    }
+
+    @Test
+    public void testUsage() {
+        assertEquals(BgavCli.USAGE, BgavCli.run(new String[]{"deploy"}, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    private static void writePom(File basedir, String version) throws Exception {
+        String pom = "<project>\n  <modelVersion>4.0.0</modelVersion>\n  <groupId>io.crowdcode.cli</groupId>\n"
+                + "  <artifactId>cli</artifactId>\n  <version>" + version + "</version>\n"
+                + "  <properties>\n    <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>\n  </properties>\n</project>\n";
+        Files.write(new File(basedir, "pom.xml").toPath(), pom.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,142 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BgavDaemonTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File daemonFile;
+    private Thread thread;
+
+    @After
+    public void stop() throws Exception {
+        if (thread != null && thread.isAlive()) {
+            BgavClient.run(daemonFile, "stop", null, null, new PrintStream(new ByteArrayOutputStream()));
+            thread.join(10_000);
+        }
+    }
+
+    @Test
+    public void testWarmRuns() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 4, 1, 2).create();
+        startDaemon(harness);
+
+        File first = harness.checkout();
+        File planFile = new File(first, "target/bgav-plan.txt");
+        String plan = request("plan", first);
+        assertTrue(plan, plan.contains("plan written to " + planFile));
+        assertTrue(planFile.exists());
+        assertEquals(0, getCounter(plan, BgavMetrics.CACHE_HITS));
+
+        String bgav = request("bgav", harness.checkout());
+        assertTrue(bgav, getCounter(bgav, BgavMetrics.CACHE_HITS) > 0);
+
+        assertEquals(0, BgavClient.run(daemonFile, "stop", null, null, new PrintStream(new ByteArrayOutputStream())));
+        thread.join(10_000);
+        assertFalse(thread.isAlive());
+        assertFalse(daemonFile.exists());
+    }
+
+    @Test
+    public void testOtherProject() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 1, 1, 2).create();
+        startDaemon(harness);
+        File other = temporaryFolder.newFolder();
+        Files.write(new File(other, "pom.xml").toPath(), ("<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId>"
+                + "<artifactId>other</artifactId><version>1.0.0-SNAPSHOT</version></project>").getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, BgavClient.run(daemonFile, "bgav", other, null, new PrintStream(out)));
+        assertTrue(out.toString(), out.toString().contains("is the project org.example:other"));
+    }
+
+    @Test
+    public void testInvalidToken() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 1, 1, 2).create();
+        startDaemon(harness);
+        String port = new String(Files.readAllBytes(daemonFile.toPath()), StandardCharsets.UTF_8).split(" ")[0];
+        File forged = temporaryFolder.newFile();
+        Files.write(forged.toPath(), (port + " forged\n").getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, BgavClient.run(forged, "status", null, null, new PrintStream(out)));
+        assertTrue(out.toString().contains("invalid token"));
+        assertEquals(0, BgavClient.run(daemonFile, "status", null, null, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    public void testStalledClient() throws Exception {
+        daemonFile = new File(temporaryFolder.getRoot(), "bgav/daemon");
+        BgavDaemon daemon = new BgavDaemon(new SystemStreamLog(), daemonFile, 0, 60_000, (request, log) -> "done").start();
+        daemon.setReadTimeout(500);
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(daemonFile.toPath()));
+        thread = new Thread(daemon::serve, "bgav-daemon-test");
+        thread.start();
+        try (Socket stalled = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            // the stalled client sends nothing, the next one is served after the read timeout
+            assertEquals(0, BgavClient.run(daemonFile, "status", null, null, new PrintStream(new ByteArrayOutputStream())));
+        }
+    }
+
+    @Test
+    public void testNoDaemon() throws Exception {
+        File missing = new File(temporaryFolder.getRoot(), "daemon");
+        assertEquals(BgavClient.NO_DAEMON, BgavClient.run(missing, "status", null, null, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    private void startDaemon(MultiRepoHarness harness) throws Exception {
+        daemonFile = new File(temporaryFolder.getRoot(), "bgav/daemon");
+        DaemonMojo mojo = new DaemonMojo();
+        harness.configure(mojo, harness.checkout(), true);
+        MultiRepoHarness.set(mojo, "daemonFile", daemonFile);
+        MultiRepoHarness.set(mojo, "daemonIdleTimeout", 60);
+        MultiRepoHarness.set(mojo, "daemonCacheTtl", 60);
+        thread = new Thread(() -> {
+            try {
+                mojo.execute();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, "bgav-daemon-test");
+        thread.start();
+        for (int i = 0; i < 100 && !daemonFile.exists(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(daemonFile.exists());
+    }
+
+    private String request(String goal, File dir) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exitCode = BgavClient.run(daemonFile, goal, dir, null, new PrintStream(out));
+        String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(output, 0, exitCode);
+        return output;
+    }
+
+    private static long getCounter(String output, String counter) {
+        Matcher matcher = Pattern.compile(Pattern.quote(counter) + "\\s+(\\d+)").matcher(output);
+        assertTrue(output, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,127 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BgavLifecycleParticipantTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRewriteInMemory() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 3, 1, 2).create();
+        File basedir = harness.checkout();
+        MavenProject project = readProject(new File(basedir, "pom.xml"));
+        MavenSession session = createSession(harness, project, false);
+        BgavLifecycleParticipant participant = createParticipant(harness);
+
+        participant.afterProjectsRead(session);
+
+        String branched = "1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT";
+        assertEquals(branched, MultiRepoHarness.getDependency(project.getModel(), MultiRepoHarness.getArtifactId(0)).getVersion());
+        assertEquals(MultiRepoHarness.VERSION, MultiRepoHarness.getDependency(project.getModel(), MultiRepoHarness.getArtifactId(1)).getVersion());
+        assertEquals(branched, MultiRepoHarness.getDependency(project.getModel(), MultiRepoHarness.getArtifactId(2)).getVersion());
+        assertEquals(branched, project.getProperties().getProperty(MultiRepoHarness.getArtifactId(2) + ".version"));
+        assertEquals(BgavLifecycleParticipant.BGAV_POM, project.getFile().getName());
+        try (Git git = Git.open(basedir)) {
+            assertTrue(git.status().call().getModified().isEmpty());
+        }
+
+        participant.afterSessionEnd(session);
+        assertFalse(new File(basedir, BgavLifecycleParticipant.BGAV_POM).exists());
+    }
+
+    @Test
+    public void testPersistAndPush() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 2, 1, 2).create();
+        File basedir = harness.checkout();
+        MavenProject project = readProject(new File(basedir, "pom.xml"));
+        MavenSession session = createSession(harness, project, true);
+        BgavLifecycleParticipant participant = createParticipant(harness);
+
+        participant.afterProjectsRead(session);
+        // a file of the build, which must not be committed
+        Files.write(new File(basedir, "build.log").toPath(), "building".getBytes(StandardCharsets.UTF_8));
+        participant.afterSessionEnd(session);
+
+        try (Git git = Git.open(harness.getRunRemote(1))) {
+            RevCommit head = git.log().add(git.getRepository().resolve(MultiRepoHarness.TICKET_BRANCH)).setMaxCount(1).call().iterator().next();
+            assertTrue(head.getFullMessage().contains(MultiRepoHarness.getArtifactId(0)));
+            final Set<String> paths = new HashSet<>();
+            try (TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+                treeWalk.addTree(head.getTree());
+                treeWalk.setRecursive(true);
+                while (treeWalk.next()) {
+                    paths.add(treeWalk.getPathString());
+                }
+            }
+            assertTrue(paths.toString(), paths.contains("pom.xml"));
+            assertFalse(paths.toString(), paths.contains(BgavLifecycleParticipant.BGAV_POM));
+            assertFalse(paths.toString(), paths.contains("build.log"));
+        }
+    }
+
+    @Test
+    public void testNoNamespace() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 1, 1, 1).create();
+        MavenProject project = readProject(new File(harness.checkout(), "pom.xml"));
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        MavenSession session = new MavenSession(null, null, request, new DefaultMavenExecutionResult());
+        session.setProjects(Collections.singletonList(project));
+
+        createParticipant(harness).afterProjectsRead(session);
+
+        assertEquals("pom.xml", project.getFile().getName());
+    }
+
+    private BgavLifecycleParticipant createParticipant(MultiRepoHarness harness) {
+        BgavLifecycleParticipant participant = new BgavLifecycleParticipant();
+        participant.setProjectResolver(new LocalRepositoryProjectResolver(harness.getLocalRepository().getAbsolutePath()));
+        return participant;
+    }
+
+    private MavenSession createSession(MultiRepoHarness harness, MavenProject project, boolean persist) {
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setLocalRepositoryPath(harness.getLocalRepository());
+        request.getUserProperties().setProperty("bgav.namespace", MultiRepoHarness.GROUP_ID);
+        request.getUserProperties().setProperty("bgav.persist", String.valueOf(persist));
+        MavenSession session = new MavenSession(null, null, request, new DefaultMavenExecutionResult());
+        session.setProjects(Collections.singletonList(project));
+        return session;
+    }
+
+    private MavenProject readProject(File pomfile) throws Exception {
+        try (Reader reader = new FileReader(pomfile)) {
+            Model model = new MavenXpp3Reader().read(reader);
+            model.setPomFile(pomfile);
+            MavenProject project = new MavenProject(model);
+            project.setFile(pomfile);
+            return project;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.crowdcode.bgav;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BgavMetricsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPhases() {
+        BgavMetrics metrics = new BgavMetrics();
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.MODEL_READ)) {
+            // only the count of the phase is asserted
+        }
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.MODEL_READ)) {
+        }
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.PROBE, "io.crowdcode:dep:1.0.0")) {
+        }
+        assertEquals(2, metrics.getPhase(BgavMetrics.MODEL_READ).getCount());
+        assertEquals(1, metrics.getPhase(BgavMetrics.PROBE).getCount());
+        assertTrue(metrics.getDependencies().get("io.crowdcode:dep:1.0.0").containsKey(BgavMetrics.PROBE));
+    }
+
+    @Test
+    public void testCounters() {
+        BgavMetrics metrics = new BgavMetrics();
+        metrics.increment(BgavMetrics.BYTES_FETCHED, 100);
+        metrics.increment(BgavMetrics.BYTES_FETCHED, 23);
+        metrics.touched(new File("pom.xml"));
+        metrics.touched(new File("pom.xml"));
+        metrics.touched(new File("module/pom.xml"));
+        assertEquals(123, metrics.getCounter(BgavMetrics.BYTES_FETCHED));
+        assertEquals(2, metrics.getCounter(BgavMetrics.POMS_TOUCHED));
+        assertEquals(0, metrics.getCounter(BgavMetrics.CLONES));
+    }
+
+    @Test
+    public void testWriteReport() throws Exception {
+        BgavMetrics metrics = new BgavMetrics();
+        try (BgavMetrics.Timer timer = metrics.start(BgavMetrics.PROJECT_RESOLUTION, "io.crowdcode:\"quoted\":1.0.0")) {
+            metrics.increment(BgavMetrics.CACHE_HITS, 1);
+        }
+        File report = new File(temporaryFolder.getRoot(), "target/bgav-report.json");
+        metrics.writeReport(report);
+        String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"project resolution\": {\"count\": 1"));
+        assertTrue(json.contains("\"cache hits\": 1"));
+        assertTrue(json.contains("\"io.crowdcode:\\\"quoted\\\":1.0.0\""));
+        metrics.logSummary(new Plugin().getLog());
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        Plugin plugin = new Plugin();
+        MavenHandler mavenHandler = new MavenHandler(plugin.getLog(), false, false, new File("."), null, null, null, null, "pom.xml");
+        Path recordingFile = temporaryFolder.newFile("bgav.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable("io.crowdcode.bgav.ModelRead");
+            recording.start();
+            mavenHandler.getModel(new File("pom.xml"));
+            try {
+                mavenHandler.getModel(new File("missing-pom.xml"));
+                fail("missing POM must not be read");
+            } catch (MojoExecutionException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("missing-pom.xml"));
+            }
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> event.getEventType().getName().equals("io.crowdcode.bgav.ModelRead"))
+                .collect(Collectors.toList());
+        assertEquals(2, events.size());
+        assertEquals("pom.xml", events.get(0).getString("subject"));
+        assertEquals("success", events.get(0).getString("outcome"));
+        assertEquals("failure", events.get(1).getString("outcome"));
+    }
+}
@@ -0,0 +1,67 @@
+package io.crowdcode.bgav;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BgavVersionTest {
+
+    @Test
+    public void testParse() {
+        BgavVersion version = BgavVersion.parse("1.0-rc1-ncx-7-SNAPSHOT");
+        assertEquals("1.0-rc1", version.getBase());
+        assertEquals("ncx-7", version.getTicket());
+        assertEquals("NCX-7", version.getTicketId());
+        assertTrue(version.isSnapshot());
+        assertTrue(version.isBgav());
+
+        version = BgavVersion.parse("1.0.1");
+        assertEquals("1.0.1", version.getBase());
+        assertNull(version.getTicket());
+        assertFalse(version.isSnapshot());
+
+        assertFalse(BgavVersion.parse("1.0-rc1").isBgav());
+        assertFalse(BgavVersion.parse("3.0.0-M5").isBgav());
+        assertFalse(BgavVersion.parse("NCX-7").isBgav());
+        assertEquals("HSMRT-50", BgavVersion.parse("1.0.1-HSMRT-50").getTicket());
+    }
+
+    @Test
+    public void testParsedOnce() {
+        assertSame(BgavVersion.parse(new String("2.0-NCX-1-SNAPSHOT")), BgavVersion.parse(new String("2.0-NCX-1-SNAPSHOT")));
+    }
+
+    @Test
+    public void testWithTicket() {
+        assertEquals("1.0.1-NCX-11-SNAPSHOT", BgavVersion.parse("1.0.1-SNAPSHOT").withTicket("NCX-11"));
+        assertEquals("1.0.1-NCX-11", BgavVersion.parse("1.0.1").withTicket("NCX-11"));
+        assertEquals("1.0-rc1-NCX-11", BgavVersion.parse("1.0-rc1").withTicket("NCX-11"));
+        // a wrong ticket is replaced, the same one is kept
+        assertEquals("1.0.1-NCX-11-SNAPSHOT", BgavVersion.parse("1.0.1-NCX-7-SNAPSHOT").withTicket("NCX-11"));
+        String version = "1.0.1-NCX-11-SNAPSHOT";
+        assertSame(version, BgavVersion.parse(version).withTicket("NCX-11"));
+    }
+
+    @Test
+    public void testWithCustomTicket() {
+        // tickets of a custom ticket expression, which are not recognised as a ticket qualifier
+        assertEquals("1.0-AB2-12-SNAPSHOT", BgavVersion.parse("1.0-SNAPSHOT").withTicket("AB2-12"));
+        assertEquals("1.0-AB2-12-SNAPSHOT", BgavVersion.parse("1.0-AB2-12-SNAPSHOT").withTicket("AB2-12"));
+        assertEquals("1.0-1234-SNAPSHOT", BgavVersion.parse("1.0-1234-SNAPSHOT").withTicket("1234"));
+        assertEquals("1.0-1234", BgavVersion.parse("1.0-1234").withTicket("1234"));
+        assertEquals("1.0-11234-1234-SNAPSHOT", BgavVersion.parse("1.0-11234-SNAPSHOT").withTicket("1234"));
+    }
+
+    @Test
+    public void testWithoutTicket() {
+        assertEquals("1.0.1-SNAPSHOT", BgavVersion.parse("1.0.1-NCX-11-SNAPSHOT").withoutTicket());
+        assertEquals("1.0.1", BgavVersion.parse("1.0.1-NCX-11").withoutTicket());
+        assertEquals("1.0-rc1", BgavVersion.parse("1.0-rc1").withoutTicket());
+        assertEquals("1.0-rc1-SNAPSHOT", BgavVersion.parse("1.0-rc1-NCX-7-SNAPSHOT").withoutTicket());
+        assertEquals("1.0.1-RELEASE", BgavVersion.parse("1.0.1-RELEASE").withoutTicket());
+    }
+}
@@ -0,0 +1,61 @@
+package io.crowdcode.bgav;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BranchClassifierTest {
+
+    @Test
+    public void testDefaults() {
+        BranchClassifier classifier = new BranchClassifier(null, "", null);
+        assertTrue(classifier.isBgavBranch("feature/NCX-1-x"));
+        assertTrue(classifier.isBgavBranch("hotfix/NCX-1"));
+        assertFalse(classifier.isBgavBranch("develop"));
+        assertTrue(classifier.isNonBgavBranch("main"));
+        assertFalse(classifier.isNonBgavBranch("bugfix/NCX-2"));
+        assertFalse(classifier.isBgavBranch(null));
+        assertEquals(Plugin.REGEX_TICKET, classifier.getTicketPattern());
+    }
+
+    @Test
+    public void testTicketIdIsUpperCaseAndLastMatch() {
+        BranchClassifier classifier = new BranchClassifier();
+        assertEquals("NCXRS-200", classifier.getTicketId("feature/ncxrs-200WP02-domain-model"));
+        assertEquals("NCX-11", classifier.getTicketId("1.0.1-NCX-11-SNAPSHOT"));
+        assertEquals("NCX-11", classifier.getTicketId("1.0.1-NCX-11-SNAPSHOT"));
+        assertNull(classifier.getTicketId("develop"));
+        assertNull(classifier.getTicketId("develop"));
+        assertNull(classifier.getTicketId(null));
+    }
+
+    @Test
+    public void testConfiguredExpressions() {
+        BranchClassifier classifier = new BranchClassifier("(JIRA-\\d+)", "(topic)", "(trunk)");
+        assertTrue(classifier.isBgavBranch("topic/JIRA-7"));
+        assertFalse(classifier.isBgavBranch("feature/JIRA-7"));
+        assertTrue(classifier.isNonBgavBranch("trunk"));
+        assertFalse(classifier.isNonBgavBranch("master"));
+        assertEquals("JIRA-7", classifier.getTicketId("topic/JIRA-7"));
+        assertNull(classifier.getTicketId("topic/NCX-7"));
+    }
+
+    @Test
+    public void testResultsAreMemoized() {
+        BranchClassifier classifier = new BranchClassifier();
+        String first = classifier.getTicketId(new String("feature/NCX-42"));
+        assertSame(first, classifier.getTicketId(new String("feature/NCX-42")));
+    }
+
+    @Test
+    public void testPluginSharesClassifierWithHandler() {
+        Plugin plugin = new Plugin();
+        assertSame(plugin.getBranchClassifier(), plugin.getBranchClassifier());
+        assertEquals("NCX-3", plugin.getTicketId("bugfix/ncx-3"));
+        assertEquals("NCX-3", plugin.getMatchFirst("bugfix/NCX-3", Plugin.REGEX_TICKET));
+    }
+}
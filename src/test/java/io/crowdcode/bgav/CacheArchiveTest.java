@@ -0,0 +1,170 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CacheArchiveTest {
+
+    private static final String URL = "https://git.example.com/team/lib.git";
+    // longer than the 100 bytes of a plain ustar name
+    private static final String PACK = "objects/pack/pack-0123456789abcdef0123456789abcdef01234567.pack";
+    private static final byte[] PACK_CONTENT = "PACK with some content".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final DiskCache source = createCache();
+        final File archive = new File(temporaryFolder.newFolder(), "bgav-cache-key.tar");
+        assertEquals(2, new CacheArchive(source, log).export(archive, Collections.singletonList(URL)));
+        assertEquals(0, archive.length() % 512);
+
+        final DiskCache target = new DiskCache(temporaryFolder.newFolder());
+        assertEquals(2, new CacheArchive(target, log).extract(archive));
+        final File mirror = target.getEntry(GitMirrorCache.KIND, URL);
+        assertTrue(GitMirrorCache.isComplete(mirror));
+        assertArrayEquals(PACK_CONTENT, Files.readAllBytes(new File(mirror, PACK).toPath()));
+        assertTrue(new File(mirror, "refs/tags").isDirectory());
+        final DependencyProbe probe = new ProbeCache(TimeUnit.HOURS.toMillis(1), target).get(URL, "ABC-1");
+        assertEquals(DependencyProbe.Status.BRANCH_FOUND, probe.getStatus());
+        assertEquals("1.0.0-ABC-1-SNAPSHOT", probe.getBranchVersion());
+
+        // entries present in the cache are kept
+        assertEquals(0, new CacheArchive(target, log).extract(archive));
+    }
+
+    @Test
+    public void testIncompleteMirrorIsReplaced() throws Exception {
+        final File archive = new File(temporaryFolder.newFolder(), "bgav-cache-key.tar");
+        new CacheArchive(createCache(), log).export(archive, Collections.singletonList(URL));
+
+        final DiskCache target = new DiskCache(temporaryFolder.newFolder());
+        final File mirror = target.getEntry(GitMirrorCache.KIND, URL);
+        Files.createDirectories(mirror.toPath());
+        Files.createFile(new File(mirror, "bgav-fetching").toPath());
+        assertEquals(2, new CacheArchive(target, log).extract(archive));
+        assertTrue(GitMirrorCache.isComplete(mirror));
+    }
+
+    @Test
+    public void testCorruptArchive() throws Exception {
+        final File archive = new File(temporaryFolder.newFolder(), "bgav-cache-key.tar");
+        new CacheArchive(createCache(), log).export(archive, Collections.singletonList(URL));
+        final byte[] content = Files.readAllBytes(archive.toPath());
+        final int offset = new String(content, StandardCharsets.ISO_8859_1).indexOf("PACK with");
+        try (RandomAccessFile file = new RandomAccessFile(archive, "rw")) {
+            file.seek(offset);
+            file.write('X');
+        }
+
+        final DiskCache target = new DiskCache(temporaryFolder.newFolder());
+        try {
+            new CacheArchive(target, log).extract(archive);
+            fail("a corrupt archive must not be imported");
+        } catch (MojoExecutionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("does not match the manifest"));
+        }
+        assertFalse("nothing is imported from a corrupt archive", target.getEntry(GitMirrorCache.KIND, URL).exists());
+        assertTrue(target.list(ProbeCache.KIND).isEmpty());
+    }
+
+    @Test
+    public void testTruncatedArchive() throws Exception {
+        final File archive = new File(temporaryFolder.newFolder(), "bgav-cache-key.tar");
+        new CacheArchive(createCache(), log).export(archive, Collections.singletonList(URL));
+        try (RandomAccessFile file = new RandomAccessFile(archive, "rw")) {
+            file.setLength(2048);
+        }
+        try {
+            new CacheArchive(new DiskCache(temporaryFolder.newFolder()), log).extract(archive);
+            fail("a truncated archive must not be imported");
+        } catch (MojoExecutionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("truncated"));
+        }
+    }
+
+    @Test
+    public void testExportAndImportGoals() throws Exception {
+        final File archiveDir = temporaryFolder.newFolder();
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 4, 1, 2)
+                .withParameter("cacheDir", temporaryFolder.newFolder())
+                .create();
+        harness.run(new WarmMojo(), true);
+        final CacheExportMojo export = new CacheExportMojo();
+        MultiRepoHarness.set(export, "cacheArchiveDir", archiveDir);
+        harness.run(export, true);
+        assertTrue(export.getArchive().isFile());
+
+        // a fresh agent with an empty cacheDir
+        final CacheImportMojo cacheImport = new CacheImportMojo();
+        MultiRepoHarness.set(cacheImport, "cacheArchiveDir", archiveDir);
+        harness.withParameter("cacheDir", temporaryFolder.newFolder()).run(cacheImport, true);
+        assertEquals(export.getArchive(), cacheImport.getArchive());
+        final Plugin plugin = new Plugin();
+        final MultiRepoHarness.Result result = harness.withParameter("offline", true).run(plugin, true);
+        assertTrue(plugin.getMetrics().getUndecided().isEmpty());
+        assertEquals(0, result.getBytesFetched());
+        assertEquals("1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT",
+                MultiRepoHarness.getDependency(result.getModel(), MultiRepoHarness.getArtifactId(0)).getVersion());
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        final File archiveDir = temporaryFolder.newFolder();
+        final MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 2, 1, 2)
+                .withParameter("cacheDir", temporaryFolder.newFolder())
+                .create();
+        // no archive of the namespace dependencies yet
+        final CacheImportMojo cacheImport = new CacheImportMojo();
+        MultiRepoHarness.set(cacheImport, "cacheArchiveDir", archiveDir);
+        harness.run(cacheImport, true);
+        assertNull(cacheImport.getArchive());
+
+        final CacheExportMojo export = new CacheExportMojo();
+        MultiRepoHarness.set(export, "cacheArchiveDir", archiveDir);
+        harness.run(export, true);
+        final CacheExportMojo other = new CacheExportMojo();
+        MultiRepoHarness.set(other, "cacheArchiveDir", archiveDir);
+        new MultiRepoHarness(temporaryFolder.newFolder(), 3, 1, 2)
+                .withParameter("cacheDir", temporaryFolder.newFolder())
+                .create().run(other, true);
+        assertNotEquals(export.getArchive().getName(), other.getArchive().getName());
+    }
+
+    private DiskCache createCache() throws Exception {
+        final DiskCache cache = new DiskCache(temporaryFolder.newFolder());
+        cache.write(GitMirrorCache.KIND, URL, mirror -> {
+            Files.createDirectories(new File(mirror, "refs/tags").toPath());
+            Files.createDirectories(new File(mirror, PACK).getParentFile().toPath());
+            Files.write(new File(mirror, PACK).toPath(), PACK_CONTENT);
+            Files.write(new File(mirror, "HEAD").toPath(), "ref: refs/heads/develop\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(new File(mirror, "bgav-fetched").toPath(), Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+            return null;
+        });
+        new ProbeCache(TimeUnit.HOURS.toMillis(1), cache).put(URL, "ABC-1",
+                DependencyProbe.branchFound(URL, "refs/heads/feature/ABC-1-lib", "1.0.0-ABC-1-SNAPSHOT"));
+        return cache;
+    }
+}
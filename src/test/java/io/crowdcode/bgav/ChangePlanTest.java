@@ -0,0 +1,111 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChangePlanTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        File baseDir = temporaryFolder.newFolder();
+        File pom = new File(baseDir, "module/pom.xml");
+        pom.getParentFile().mkdirs();
+        Files.write(pom.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+        ChangePlan plan = new ChangePlan(baseDir);
+        plan.setBranch("feature/NCX-7-foobar");
+        plan.setTicketId("NCX-7");
+        plan.record(pom, "/project[1]/version[1]", "1.0-SNAPSHOT", "1.0-NCX-7-SNAPSHOT", "ticket NCX-7");
+        plan.addCommitMessage(pom, "NCX-7 - BGAV\tfirst\nline");
+        plan.addCommitMessage(pom, "ignored");
+        File file = temporaryFolder.newFile();
+        plan.write(file);
+
+        ChangePlan read = ChangePlan.read(file, baseDir);
+        assertEquals("feature/NCX-7-foobar", read.getBranch());
+        assertEquals("NCX-7", read.getTicketId());
+        assertEquals(1, read.getPoms().size());
+        assertEquals("module/pom.xml", read.getPoms().get(0).getPath());
+        assertEquals(ChangePlan.hash(pom), read.getPoms().get(0).getHash());
+        assertEquals("NCX-7 - BGAV\tfirst\nline", read.getPoms().get(0).getCommitMessage());
+        assertEquals(1, read.getChanges("module/pom.xml").size());
+        assertEquals("1.0-NCX-7-SNAPSHOT", read.getChanges().get(0).getNewValue());
+        assertEquals(pom, read.getFile("module/pom.xml"));
+    }
+
+    @Test
+    public void testPlanAndApply() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 3, 1, 2).create();
+        File planFile = temporaryFolder.newFile();
+        MultiRepoHarness.Result planned = harness.withParameter("planFile", planFile).run(new PlanMojo(), true);
+        File basedir = planned.getBasedir();
+        try (Git git = Git.open(basedir)) {
+            assertTrue(git.status().call().getModified().isEmpty());
+        }
+        ChangePlan plan = ChangePlan.read(planFile, basedir);
+        assertEquals(2, plan.getChanges().size());
+        assertEquals(MultiRepoHarness.TICKET, plan.getTicketId());
+
+        // output of the build stage, which must not be committed
+        Files.write(new File(basedir, "build.log").toPath(), "building".getBytes(StandardCharsets.UTF_8));
+        createApply(planFile, basedir).execute();
+        String version = "1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT";
+        assertEquals(version, MultiRepoHarness.getDependency(MultiRepoHarness.readModel(new File(basedir, "pom.xml")), MultiRepoHarness.getArtifactId(0)).getVersion());
+        assertEquals(version, MultiRepoHarness.readModel(new File(basedir, "pom.xml")).getProperties().getProperty(MultiRepoHarness.getArtifactId(2) + ".version"));
+        RevCommit head = getHead(harness);
+        assertTrue(head.getFullMessage().contains("BGAV"));
+        try (Git git = Git.open(harness.getRunRemote(1))) {
+            assertNotNull(TreeWalk.forPath(git.getRepository(), "pom.xml", head.getTree()));
+            assertNull(TreeWalk.forPath(git.getRepository(), "build.log", head.getTree()));
+        }
+
+        // applying again is a no-op
+        createApply(planFile, basedir).execute();
+        assertEquals(head, getHead(harness));
+    }
+
+    @Test
+    public void testApplyToChangedPom() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 1, 1, 1).create();
+        File planFile = temporaryFolder.newFile();
+        File basedir = harness.withParameter("planFile", planFile).run(new PlanMojo(), true).getBasedir();
+        File pom = new File(basedir, "pom.xml");
+        Files.write(pom.toPath(), (new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8) + "\n").getBytes(StandardCharsets.UTF_8));
+        try {
+            createApply(planFile, basedir).execute();
+            fail("changed POM must not be applied");
+        } catch (MojoExecutionException e) {
+            assertTrue(e.getMessage().contains("has changed"));
+        }
+    }
+
+    private RevCommit getHead(MultiRepoHarness harness) throws Exception {
+        try (Git git = Git.open(harness.getRunRemote(1))) {
+            return git.log().add(git.getRepository().resolve(MultiRepoHarness.TICKET_BRANCH)).setMaxCount(1).call().iterator().next();
+        }
+    }
+
+    private ApplyMojo createApply(File planFile, File basedir) throws ReflectiveOperationException {
+        ApplyMojo apply = new ApplyMojo();
+        MultiRepoHarness.set(apply, "planFile", planFile);
+        MultiRepoHarness.set(apply, "basedir", basedir);
+        return apply;
+    }
+}
@@ -0,0 +1,67 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DependencyPrefetcherTest {
+
+    @Test
+    public void testAwaitWithoutPrefetch() throws MojoExecutionException {
+        Plugin plugin = new Plugin();
+        try (DependencyPrefetcher prefetcher = new DependencyPrefetcher(plugin.getLog(), 1)) {
+            MavenHandler mavenHandler = new MavenHandler(plugin.getLog(), false, false, new File("."), null, null, null, null, "pom.xml");
+            assertNull(prefetcher.await(mavenHandler, new Model(), setDependency("1.0.0-SNAPSHOT"), "NCX-1"));
+        }
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testAwaitFailedProbe() throws MojoExecutionException {
+        Plugin plugin = new Plugin();
+        MavenHandler mavenHandler = new MavenHandler(plugin.getLog(), false, false, new File("."), null, null, null, null, "pom.xml");
+        Dependency dependency = setDependency("1.0.0-SNAPSHOT");
+        try (DependencyPrefetcher prefetcher = new DependencyPrefetcher(plugin.getLog(), 1)) {
+            prefetcher.prefetch(mavenHandler, new Model(), dependency, "NCX-1", null, null, null);
+            prefetcher.prefetch(mavenHandler, new Model(), dependency, "NCX-1", null, null, null);
+            assertEquals(1, prefetcher.size());
+            prefetcher.await(mavenHandler, new Model(), dependency, "NCX-1");
+        }
+    }
+
+    @Test
+    public void testKeyedByResolvedVersion() {
+        Plugin plugin = new Plugin();
+        MavenHandler mavenHandler = new MavenHandler(plugin.getLog(), false, false, new File("."), null, null, null, null, "pom.xml");
+        try (DependencyPrefetcher prefetcher = new DependencyPrefetcher(plugin.getLog(), 1)) {
+            prefetcher.prefetch(mavenHandler, setModel("lib.version", "1.0.0-SNAPSHOT"), setDependency("${lib.version}"), "NCX-1", null, null, null);
+            // the same expression with another value is another dependency
+            prefetcher.prefetch(mavenHandler, setModel("lib.version", "2.0.0-SNAPSHOT"), setDependency("${lib.version}"), "NCX-1", null, null, null);
+            assertEquals(2, prefetcher.size());
+            // another expression with the same value is the same one
+            prefetcher.prefetch(mavenHandler, setModel("other.version", "1.0.0-SNAPSHOT"), setDependency("${other.version}"), "NCX-1", null, null, null);
+            prefetcher.prefetch(mavenHandler, new Model(), setDependency("2.0.0-SNAPSHOT"), "NCX-1", null, null, null);
+            assertEquals(2, prefetcher.size());
+        }
+    }
+
+    private Model setModel(String property, String value) {
+        Model model = new Model();
+        model.setArtifactId("reactor");
+        model.getProperties().setProperty(property, value);
+        return model;
+    }
+
+    private Dependency setDependency(String version) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("io.crowdcode");
+        dependency.setArtifactId("ncx-maven-bgav-plugin");
+        dependency.setVersion(version);
+        return dependency;
+    }
+}
@@ -0,0 +1,142 @@
+package io.crowdcode.bgav;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DiskCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        DiskCache cache = new DiskCache(temporaryFolder.getRoot());
+        cache.write("probe", "key", entry -> {
+            DiskCache.writeAtomically(entry, "value");
+            return null;
+        });
+        assertEquals("value", cache.read("probe", "key", DiskCache::readString));
+        assertEquals(null, cache.read("probe", "other", DiskCache::readString));
+        File[] files = cache.getEntry("probe", "key").getParentFile().listFiles((dir, name) -> name.contains(".tmp-"));
+        assertEquals(0, files.length);
+    }
+
+    @Test
+    public void testReadersShareWritersExclude() throws Exception {
+        DiskCache cache = new DiskCache(temporaryFolder.getRoot());
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            CountDownLatch readers = new CountDownLatch(3);
+            List<Future<Object>> reads = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                reads.add(executor.submit(() -> cache.read("git", "repo", entry -> {
+                    readers.countDown();
+                    // all readers hold the shared lock at the same time
+                    assertTrue(await(readers));
+                    return null;
+                })));
+            }
+            for (Future<Object> read : reads) {
+                read.get(20, TimeUnit.SECONDS);
+            }
+
+            AtomicInteger inside = new AtomicInteger();
+            AtomicInteger maxInside = new AtomicInteger();
+            List<Future<Object>> writes = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                writes.add(executor.submit(() -> cache.write("git", "repo", entry -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    pause(20);
+                    inside.decrementAndGet();
+                    return null;
+                })));
+            }
+            for (Future<Object> write : writes) {
+                write.get(20, TimeUnit.SECONDS);
+            }
+            assertEquals(1, maxInside.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTempFilesOfCrashedWriterAreDeleted() throws Exception {
+        DiskCache cache = new DiskCache(temporaryFolder.getRoot());
+        File entry = cache.getEntry("git", "repo");
+        File temp = DiskCache.newTempFile(entry);
+        assertTrue(new File(temp, "objects").mkdirs());
+        cache.write("git", "repo", e -> null);
+        assertFalse(temp.exists());
+    }
+
+    @Test
+    public void testExclusiveLockAcrossProcesses() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        Process process = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"), LockingProcess.class.getName(), directory.getPath())
+                .redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals("locked", reader.readLine());
+            DiskCache cache = new DiskCache(directory);
+            // waits for the other process, which writes while holding the lock
+            assertEquals("written by the other process", cache.read("probe", "key", DiskCache::readString));
+        } finally {
+            assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        }
+        assertEquals(0, process.exitValue());
+    }
+
+    private static boolean await(CountDownLatch latch) throws IOException {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException(e.toString());
+        }
+    }
+
+    private static void pause(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException(e.toString());
+        }
+    }
+
+    /**
+     * holds the exclusive lock of an entry for a while, then writes it
+     */
+    public static class LockingProcess {
+        public static void main(String[] args) throws Exception {
+            new DiskCache(new File(args[0])).write("probe", "key", entry -> {
+                System.out.println("locked");
+                System.out.flush();
+                pause(1000);
+                Files.createDirectories(entry.getParentFile().toPath());
+                DiskCache.writeAtomically(entry, "written by the other process");
+                return null;
+            });
+        }
+    }
+}
@@ -1,11 +1,27 @@
 package io.crowdcode.bgav;
 
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class GitHandlerTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     GitHandler gitHandler;
     Log log;
 
@@ -13,9 +29,64 @@ public class GitHandlerTest {
     public void setUp() throws Exception {
         Plugin plugin = new Plugin();
         log = plugin.getLog();
+        gitHandler = new GitHandler(log, null, null, false, true, "pom.xml", new File("."));
     }
 
     public void testGetBranchesFromDependency() {
 //        Git git = new Git(GitHandler);
     }
+
+    @Test
+    public void testReadRemoteFile() throws Exception {
+        final String uri = createRemote();
+        final String[] branches = gitHandler.getRemoteBranches(uri);
+        assertTrue(Arrays.asList(branches).contains("refs/heads/feature/NCX-7-foobar"));
+        final byte[] pom = gitHandler.readRemoteFile(uri, "refs/heads/feature/NCX-7-foobar", "pom.xml", Long.MAX_VALUE);
+        assertArrayEquals("<project>NCX-7</project>".getBytes(StandardCharsets.UTF_8), pom);
+    }
+
+    @Test
+    public void testReadRemoteFileExceedingLimit() throws Exception {
+        assertNull(gitHandler.readRemoteFile(createRemote(), "refs/heads/feature/NCX-7-foobar", "pom.xml", 1));
+    }
+
+    @Test
+    public void testReadRemoteFileAbortsFetch() throws Exception {
+        final BgavMetrics metrics = new BgavMetrics();
+        gitHandler.setMetrics(metrics);
+        final String uri = createRemote();
+        // a large blob, which does not compress, on the branch
+        final File work = temporaryFolder.newFolder();
+        try (Git git = Git.cloneRepository().setURI(uri).setDirectory(work).setBranch("feature/NCX-7-foobar").call()) {
+            final byte[] content = new byte[4 * 1024 * 1024];
+            new Random(7).nextBytes(content);
+            Files.write(new File(work, "large.bin").toPath(), content);
+            git.add().addFilepattern("large.bin").call();
+            git.commit().setMessage("large").setSign(false).call();
+            git.push().call();
+        }
+        assertNull(gitHandler.readRemoteFile(uri, "refs/heads/feature/NCX-7-foobar", "pom.xml", 64 * 1024));
+        final long fetched = metrics.getCounter(BgavMetrics.BYTES_FETCHED);
+        assertTrue("fetch aborted after " + fetched + " bytes", fetched > 64 * 1024 && fetched < 256 * 1024);
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testReadRemoteFileMissingBranch() throws Exception {
+        gitHandler.readRemoteFile(createRemote(), "refs/heads/feature/NCX-8", "pom.xml", Long.MAX_VALUE);
+    }
+
+    private String createRemote() throws Exception {
+        final File work = temporaryFolder.newFolder();
+        final File bare = temporaryFolder.newFolder();
+        try (Git git = Git.init().setDirectory(work).setInitialBranch("develop").call()) {
+            Files.write(new File(work, "pom.xml").toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("pom.xml").call();
+            git.commit().setMessage("initial").setSign(false).call();
+            git.checkout().setCreateBranch(true).setName("feature/NCX-7-foobar").call();
+            Files.write(new File(work, "pom.xml").toPath(), "<project>NCX-7</project>".getBytes(StandardCharsets.UTF_8));
+            git.commit().setAll(true).setMessage("NCX-7").setSign(false).call();
+        }
+        Git.cloneRepository().setBare(true).setURI(work.toURI().toString()).setDirectory(bare).call().close();
+        return bare.toURI().toString();
+    }
 }
@@ -0,0 +1,130 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GitMirrorCacheTest {
+
+    private static final byte[] TICKET_POM = "<project>NCX-7</project>".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+    private final BgavMetrics metrics = new BgavMetrics();
+
+    private GitHandler createGitHandler() {
+        GitHandler gitHandler = new GitHandler(log, null, null, false, true, "pom.xml", new File("."));
+        gitHandler.setMetrics(metrics);
+        return gitHandler;
+    }
+
+    @Test
+    public void testFreshMirrorIsReused() throws Exception {
+        final String uri = createRemote();
+        final GitMirrorCache cache = new GitMirrorCache(new DiskCache(temporaryFolder.newFolder()), TimeUnit.HOURS.toMillis(1), log);
+
+        GitMirrorCache.BranchFile pom = cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-7", "pom.xml");
+        assertEquals("refs/heads/feature/NCX-7-foobar", pom.getBranch());
+        assertArrayEquals(TICKET_POM, pom.getContent());
+
+        assertNull(cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-8", "pom.xml").getBranch());
+        assertEquals(1, metrics.getCounter(BgavMetrics.CLONES));
+        assertEquals(1, metrics.getCounter(BgavMetrics.CACHE_HITS));
+    }
+
+    @Test
+    public void testConcurrentBuildsFetchOnce() throws Exception {
+        final String uri = createRemote();
+        final File directory = temporaryFolder.newFolder();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<GitMirrorCache.BranchFile>> reads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                // separate caches on the same directory, like separate builds
+                final GitMirrorCache cache = new GitMirrorCache(new DiskCache(directory), TimeUnit.HOURS.toMillis(1), log);
+                reads.add(executor.submit(() -> cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-7", "pom.xml")));
+            }
+            for (Future<GitMirrorCache.BranchFile> read : reads) {
+                assertArrayEquals(TICKET_POM, read.get(60, TimeUnit.SECONDS).getContent());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, metrics.getCounter(BgavMetrics.CLONES));
+        assertEquals(3, metrics.getCounter(BgavMetrics.CACHE_HITS));
+    }
+
+    @Test
+    public void testIncompleteMirrorIsFetchedAgain() throws Exception {
+        final String uri = createRemote();
+        final DiskCache diskCache = new DiskCache(temporaryFolder.newFolder());
+        final GitMirrorCache cache = new GitMirrorCache(diskCache, TimeUnit.HOURS.toMillis(1), log);
+        cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-7", "pom.xml");
+
+        // a build crashed while fetching into the mirror
+        final File mirror = diskCache.getEntry(GitMirrorCache.KIND, uri);
+        assertTrue(new File(mirror, "bgav-fetching").createNewFile());
+
+        assertArrayEquals(TICKET_POM, cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-7", "pom.xml").getContent());
+        assertEquals(2, metrics.getCounter(BgavMetrics.CLONES));
+        assertEquals(0, metrics.getCounter(BgavMetrics.CACHE_HITS));
+    }
+
+    @Test
+    public void testOutdatedMirrorIsUpdated() throws Exception {
+        final String uri = createRemote();
+        final GitMirrorCache cache = new GitMirrorCache(new DiskCache(temporaryFolder.newFolder()), 0, log);
+        cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-7", "pom.xml");
+        assertNull(cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-9", "pom.xml").getBranch());
+
+        pushBranch(uri, "feature/NCX-9-new", "<project>NCX-9</project>");
+        GitMirrorCache.BranchFile pom = cache.readBranchFile(createGitHandler(), metrics, uri, "NCX-9", "pom.xml");
+        assertEquals("refs/heads/feature/NCX-9-new", pom.getBranch());
+        assertEquals(1, metrics.getCounter(BgavMetrics.CLONES));
+    }
+
+    private String createRemote() throws Exception {
+        final File work = temporaryFolder.newFolder();
+        final File bare = temporaryFolder.newFolder();
+        try (Git git = Git.init().setDirectory(work).setInitialBranch("develop").call()) {
+            Files.write(new File(work, "pom.xml").toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("pom.xml").call();
+            git.commit().setMessage("initial").setSign(false).call();
+            git.checkout().setCreateBranch(true).setName("feature/NCX-7-foobar").call();
+            Files.write(new File(work, "pom.xml").toPath(), TICKET_POM);
+            git.commit().setAll(true).setMessage("NCX-7").setSign(false).call();
+        }
+        Git.cloneRepository().setBare(true).setURI(work.toURI().toString()).setDirectory(bare).call().close();
+        return bare.toURI().toString();
+    }
+
+    private void pushBranch(String uri, String branch, String pom) throws Exception {
+        final File work = temporaryFolder.newFolder();
+        try (Git git = Git.cloneRepository().setURI(uri).setDirectory(work).call()) {
+            git.checkout().setCreateBranch(true).setName(branch).call();
+            Files.write(new File(work, "pom.xml").toPath(), pom.getBytes(StandardCharsets.UTF_8));
+            git.commit().setAll(true).setMessage(branch).setSign(false).call();
+            git.push().setRemote("origin").add(branch).call();
+        }
+    }
+}
@@ -21,4 +21,13 @@ public class MavenHandlerTest {
         assertEquals(mavenHandler.determinePomVersion("1.1.2-SNAPSHOT", "NCX-416"), "1.1.2-NCX-416-SNAPSHOT");
         assertEquals(mavenHandler.determinePomVersion("0.2.2-SNAPSHOT", "NCX-416"), "0.2.2-NCX-416-SNAPSHOT");
     }
+
+    @Test
+    public void testDeterminePomVersionWithCustomTicket() {
+        Plugin plugin = new Plugin();
+        MavenHandler mavenHandler = new MavenHandler(plugin.getLog(), false, false, new File("."), null,null,null, null, "pom.xml");
+        // e.g. with regex_ticket (\d+) or (\p{Alnum}+-\d+), a second run keeps the version
+        assertEquals("1.0-1234-SNAPSHOT", mavenHandler.determinePomVersion(mavenHandler.determinePomVersion("1.0-SNAPSHOT", "1234"), "1234"));
+        assertEquals("1.0-AB2-12-SNAPSHOT", mavenHandler.determinePomVersion("1.0-AB2-12-SNAPSHOT", "AB2-12"));
+    }
 }
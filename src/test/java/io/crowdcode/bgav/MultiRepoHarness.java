@@ -0,0 +1,480 @@
+package io.crowdcode.bgav;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.settings.Settings;
+import org.eclipse.jgit.api.Git;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * synthetic end-to-end workload: a reactor project and a number of dependency repositories as local bare Git
+ * repositories, accessed by file:// URLs, and a local Maven repository with their POMs. Every run executes the
+ * {@link Plugin} on a fresh clone of the reactor and measures wall time, fetched bytes and the peak disk usage of
+ * temporary checkouts.
+ *
+ * <p>Used as regression test by {@link MultiRepoHarnessTest} and as benchmark by {@link #main(String[])}:</p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.crowdcode.bgav.MultiRepoHarness -Dexec.args="50 5 3"
+ * </pre>
+ */
+public class MultiRepoHarness {
+
+    public static final String GROUP_ID = "io.crowdcode.harness";
+    public static final String VERSION = "1.0.0-SNAPSHOT";
+    public static final String TICKET = "ABC-1";
+    public static final String TICKET_BRANCH = "feature/" + TICKET + "-harness";
+
+    private static final String DISTRIBUTION_MANAGEMENT = "    <distributionManagement>\n"
+            + "        <snapshotRepository>\n"
+            + "            <id>harness</id>\n"
+            + "            <url>file:///dev/null</url>\n"
+            + "        </snapshotRepository>\n"
+            + "    </distributionManagement>\n";
+
+    /**
+     * measurements of a run
+     */
+    public static class Result {
+        private final long wallMillis;
+        private final long bytesFetched;
+        private final long clones;
+        private final long peakTempBytes;
+        private final File basedir;
+        private final Model model;
+
+        Result(long wallMillis, long bytesFetched, long clones, long peakTempBytes, File basedir, Model model) {
+            this.wallMillis = wallMillis;
+            this.bytesFetched = bytesFetched;
+            this.clones = clones;
+            this.peakTempBytes = peakTempBytes;
+            this.basedir = basedir;
+            this.model = model;
+        }
+
+        /**
+         * @return working directory of the reactor clone of the run
+         */
+        public File getBasedir() {
+            return basedir;
+        }
+
+        public long getWallMillis() {
+            return wallMillis;
+        }
+
+        public long getBytesFetched() {
+            return bytesFetched;
+        }
+
+        public long getClones() {
+            return clones;
+        }
+
+        public long getPeakTempBytes() {
+            return peakTempBytes;
+        }
+
+        /**
+         * @return reactor model after the run
+         */
+        public Model getModel() {
+            return model;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("wall %d ms, fetched %d bytes, %d clones, peak temp %d bytes",
+                    wallMillis, bytesFetched, clones, peakTempBytes);
+        }
+    }
+
+    private final File workspace;
+    private final int repositories;
+    private final int branches;
+    private final int branchedEvery;
+    private final File localRepository;
+    private final File reactorRemote;
+    private Function<String, String> remoteUrls;
+    private final Map<String, Object> parameters = new HashMap<>();
+    private int runs;
+
+    /**
+     * @param workspace empty directory for all repositories
+     * @param repositories number of dependency repositories
+     * @param branches number of branches per dependency repository, besides develop
+     * @param branchedEvery every n-th dependency repository has a branch of the ticket
+     */
+    public MultiRepoHarness(File workspace, int repositories, int branches, int branchedEvery) {
+        this.workspace = workspace;
+        this.repositories = repositories;
+        this.branches = branches;
+        this.branchedEvery = Math.max(1, branchedEvery);
+        this.localRepository = new File(workspace, "m2");
+        this.reactorRemote = new File(workspace, "remotes/reactor.git");
+    }
+
+    /**
+     * serve the dependency repositories by other URLs than file://, e.g. by a {@link ThrottledGitServer} on
+     * {@link #getRemotes()}. Has to be set before {@link #create()}.
+     *
+     * @param remoteUrls maps the name of a bare repository to its URL
+     * @return this
+     */
+    public MultiRepoHarness withRemoteUrls(Function<String, String> remoteUrls) {
+        this.remoteUrls = remoteUrls;
+        return this;
+    }
+
+    /**
+     * set a further parameter of the plugin for every run
+     *
+     * @param name field name of the parameter
+     * @param value
+     * @return this
+     */
+    public MultiRepoHarness withParameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    /**
+     * @return directory of the bare repositories
+     */
+    public File getRemotes() {
+        return new File(workspace, "remotes");
+    }
+
+    /**
+     * create the dependency repositories, the local Maven repository and the reactor
+     *
+     * @return this
+     * @throws Exception
+     */
+    public MultiRepoHarness create() throws Exception {
+        for (int i = 0; i < repositories; i++) {
+            createLibrary(i);
+        }
+        createReactor();
+        return this;
+    }
+
+    /**
+     * @param i
+     * @return true, if the dependency repository has a branch of the ticket
+     */
+    public boolean isBranched(int i) {
+        return i % branchedEvery == 0;
+    }
+
+    /**
+     * @param i
+     * @return true, if the reactor declares the version of the dependency by a property
+     */
+    public boolean isPropertyVersion(int i) {
+        return i % 3 == 2;
+    }
+
+    /**
+     * run the plugin on a fresh clone of the reactor, pushing to its own copy of the reactor remote
+     *
+     * @param inMemoryProbe
+     * @return measurements
+     * @throws Exception
+     */
+    public Result run(boolean inMemoryProbe) throws Exception {
+        return run(new Plugin(), inMemoryProbe);
+    }
+
+    /**
+     * run a goal of the plugin on a fresh clone of the reactor, pushing to its own copy of the reactor remote
+     *
+     * @param plugin
+     * @param inMemoryProbe
+     * @return measurements
+     * @throws Exception
+     */
+    public Result run(Plugin plugin, boolean inMemoryProbe) throws Exception {
+        final File basedir = checkout();
+        configure(plugin, basedir, inMemoryProbe);
+
+        final TempSampler sampler = new TempSampler();
+        sampler.start();
+        final long start = System.nanoTime();
+        try {
+            plugin.execute();
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        final long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final BgavMetrics metrics = plugin.getMetrics();
+        return new Result(wallMillis, metrics.getCounter(BgavMetrics.BYTES_FETCHED), metrics.getCounter(BgavMetrics.CLONES),
+                sampler.peak.get(), basedir, readModel(new File(basedir, "pom.xml")));
+    }
+
+    /**
+     * configure a goal of the plugin like a POM of the reactor would, resolving projects from the local repository
+     *
+     * @param plugin
+     * @param basedir working directory of a reactor clone
+     * @param inMemoryProbe
+     * @throws ReflectiveOperationException
+     */
+    public void configure(Plugin plugin, File basedir, boolean inMemoryProbe) throws ReflectiveOperationException {
+        final Settings settings = new Settings();
+        settings.setLocalRepository(localRepository.getAbsolutePath());
+        set(plugin, "settings", settings);
+        set(plugin, "basedir", basedir);
+        set(plugin, "pomFile", "pom.xml");
+        set(plugin, "namespace", new String[]{GROUP_ID});
+        set(plugin, "inMemoryProbe", inMemoryProbe);
+        set(plugin, "reportFile", new File(workspace, "runs/bgav-report-" + runs + ".json"));
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            set(plugin, parameter.getKey(), parameter.getValue());
+        }
+        plugin.setProjectResolver(new LocalRepositoryProjectResolver(localRepository.getAbsolutePath()));
+    }
+
+    /**
+     * clone the reactor on the ticket branch, its remote is an own copy of the reactor remote
+     *
+     * @return working directory of the clone
+     * @throws Exception
+     */
+    public File checkout() throws Exception {
+        final int run = ++runs;
+        final File remote = getRunRemote(run);
+        final File basedir = new File(workspace, "runs/reactor-" + run);
+        Git.cloneRepository().setBare(true).setURI(reactorRemote.toURI().toString()).setDirectory(remote).call().close();
+        Git.cloneRepository().setURI(remote.toURI().toString()).setDirectory(basedir).setBranch(TICKET_BRANCH).call().close();
+        return basedir;
+    }
+
+    /**
+     * @return the local Maven repository with the POMs of the dependencies
+     */
+    public File getLocalRepository() {
+        return localRepository;
+    }
+
+    /**
+     * @param run
+     * @return the pushed reactor remote of a run
+     */
+    public File getRunRemote(int run) {
+        return new File(workspace, "runs/reactor-" + run + ".git");
+    }
+
+    public static String getArtifactId(int i) {
+        return String.format("lib-%04d", i);
+    }
+
+    /**
+     * @param model
+     * @param artifactId
+     * @return the dependency of the model or null
+     */
+    public static Dependency getDependency(Model model, String artifactId) {
+        return model.getDependencies().stream()
+                .filter(dependency -> artifactId.equals(dependency.getArtifactId()))
+                .findFirst().orElse(null);
+    }
+
+    private void createLibrary(int i) throws Exception {
+        final String artifactId = getArtifactId(i);
+        final File work = new File(workspace, "work/" + artifactId);
+        final File bare = new File(getRemotes(), artifactId + ".git");
+        final String scmUrl = remoteUrls != null ? remoteUrls.apply(bare.getName()) : bare.toURI().toString();
+        final String pom = libraryPom(artifactId, VERSION, scmUrl);
+        try (Git git = Git.init().setDirectory(work).setInitialBranch("develop").call()) {
+            write(new File(work, "pom.xml"), pom);
+            write(new File(work, "src/main/java/Lib.java"), "class Lib {}\n");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setSign(false).call();
+            for (int b = 0; b < branches; b++) {
+                final String branch = b == 0 && isBranched(i) ? TICKET_BRANCH : "feature/OTHER-" + (b + 1) + "-work";
+                git.checkout().setCreateBranch(true).setName(branch).setStartPoint("develop").call();
+                final String version = branch.equals(TICKET_BRANCH) ? "1.0.0-" + TICKET + "-SNAPSHOT" : "1.0.0-OTHER-" + (b + 1) + "-SNAPSHOT";
+                write(new File(work, "pom.xml"), libraryPom(artifactId, version, scmUrl));
+                git.commit().setAll(true).setMessage(branch).setSign(false).call();
+            }
+            git.checkout().setName("develop").call();
+        }
+        Git.cloneRepository().setBare(true).setURI(work.toURI().toString()).setDirectory(bare).call().close();
+        write(new File(localRepository, GROUP_ID.replace('.', '/') + "/" + artifactId + "/" + VERSION + "/" + artifactId + "-" + VERSION + ".pom"), pom);
+    }
+
+    private void createReactor() throws Exception {
+        final File work = new File(workspace, "work/reactor");
+        final StringBuilder properties = new StringBuilder();
+        final StringBuilder dependencies = new StringBuilder();
+        for (int i = 0; i < repositories; i++) {
+            final String artifactId = getArtifactId(i);
+            final String version;
+            if (isPropertyVersion(i)) {
+                properties.append("        <").append(artifactId).append(".version>").append(VERSION)
+                        .append("</").append(artifactId).append(".version>\n");
+                version = "${" + artifactId + ".version}";
+            } else {
+                version = VERSION;
+            }
+            dependencies.append("        <dependency>\n")
+                    .append("            <groupId>").append(GROUP_ID).append("</groupId>\n")
+                    .append("            <artifactId>").append(artifactId).append("</artifactId>\n")
+                    .append("            <version>").append(version).append("</version>\n")
+                    .append("        </dependency>\n");
+        }
+        final String pom = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "    <modelVersion>4.0.0</modelVersion>\n"
+                + "    <groupId>" + GROUP_ID + "</groupId>\n"
+                + "    <artifactId>reactor</artifactId>\n"
+                + "    <version>1.0.0-" + TICKET + "-SNAPSHOT</version>\n"
+                + DISTRIBUTION_MANAGEMENT
+                + "    <properties>\n" + properties + "    </properties>\n"
+                + "    <dependencies>\n" + dependencies + "    </dependencies>\n"
+                + "</project>\n";
+        try (Git git = Git.init().setDirectory(work).setInitialBranch("develop").call()) {
+            write(new File(work, "pom.xml"), pom.replace("1.0.0-" + TICKET + "-SNAPSHOT", VERSION));
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setSign(false).call();
+            git.checkout().setCreateBranch(true).setName(TICKET_BRANCH).call();
+            write(new File(work, "pom.xml"), pom);
+            git.commit().setAll(true).setMessage(TICKET_BRANCH).setSign(false).call();
+        }
+        Git.cloneRepository().setBare(true).setURI(work.toURI().toString()).setDirectory(reactorRemote).call().close();
+    }
+
+    private static String libraryPom(String artifactId, String version, String scmUrl) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "    <modelVersion>4.0.0</modelVersion>\n"
+                + "    <groupId>" + GROUP_ID + "</groupId>\n"
+                + "    <artifactId>" + artifactId + "</artifactId>\n"
+                + "    <version>" + version + "</version>\n"
+                + "    <scm>\n"
+                + "        <connection>scm:git:" + scmUrl + "</connection>\n"
+                + "        <url>" + scmUrl + "</url>\n"
+                + "    </scm>\n"
+                + DISTRIBUTION_MANAGEMENT
+                + "</project>\n";
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Model readModel(File pomfile) throws Exception {
+        try (Reader reader = new FileReader(pomfile)) {
+            return new MavenXpp3Reader().read(reader);
+        }
+    }
+
+    /**
+     * set a field of the target or of one of its super classes
+     */
+    static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // look in the super class
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    /**
+     * samples the size of the temporary checkout directories of the dependencies
+     */
+    private static final class TempSampler extends Thread {
+        private final File tmp = new File(System.getProperty("java.io.tmpdir"));
+        private final AtomicLong peak = new AtomicLong();
+
+        TempSampler() {
+            super("bgav-harness-temp-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                sample();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            sample();
+        }
+
+        private void sample() {
+            final File[] checkouts = tmp.listFiles((dir, name) -> name.startsWith("lib-") && name.endsWith("git"));
+            long size = 0;
+            if (checkouts != null) {
+                for (File checkout : checkouts) {
+                    try {
+                        size += FileUtils.sizeOfDirectory(checkout);
+                    } catch (RuntimeException e) {
+                        // deleted while sampling
+                    }
+                }
+            }
+            peak.accumulateAndGet(size, Math::max);
+        }
+    }
+
+    /**
+     * arguments: repositories, branches per repository, runs per probe mode and optionally latency in milliseconds and
+     * bandwidth in bytes per second of a {@link ThrottledGitServer} serving the dependency repositories
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        final int repositories = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final int branches = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        final int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        final long latencyMillis = args.length > 3 ? Long.parseLong(args[3]) : -1;
+        final long bytesPerSecond = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        final File workspace = Files.createTempDirectory("bgav-harness").toFile();
+        final MultiRepoHarness harness = new MultiRepoHarness(workspace, repositories, branches, 2);
+        ThrottledGitServer server = null;
+        try {
+            if (latencyMillis >= 0) {
+                server = new ThrottledGitServer(harness.getRemotes()).latency(latencyMillis).bandwidth(bytesPerSecond).start();
+                harness.withRemoteUrls(server::getUrl);
+            }
+            harness.create();
+            for (boolean inMemoryProbe : new boolean[]{true, false}) {
+                for (int run = 1; run <= runs; run++) {
+                    System.out.println((inMemoryProbe ? "in memory" : "clone") + " run " + run + ": " + harness.run(inMemoryProbe));
+                }
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+            FileUtils.deleteDirectory(workspace);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoFailureException;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MultiRepoHarnessTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testInMemoryProbe() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 6, 2, 2).create();
+        MultiRepoHarness.Result result = harness.run(true);
+        assertBranchedVersions(harness, result.getModel(), 6);
+        assertEquals(0, result.getClones());
+        assertTrue(result.getBytesFetched() > 0);
+        try (Git git = Git.open(harness.getRunRemote(1))) {
+            RevCommit head = git.log().add(git.getRepository().resolve(MultiRepoHarness.TICKET_BRANCH)).setMaxCount(1).call().iterator().next();
+            assertTrue(head.getFullMessage().contains("BGAV"));
+        }
+    }
+
+    @Test
+    public void testCloneProbe() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 3, 1, 2).create();
+        MultiRepoHarness.Result result = harness.run(false);
+        assertBranchedVersions(harness, result.getModel(), 3);
+        assertEquals(3, result.getClones());
+    }
+
+    @Test
+    public void testPerformanceBudget() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 3, 1, 2)
+                .withParameter("budgetWallTime", 60_000L)
+                .withParameter("budgetDependencyTime", 30_000L)
+                .withParameter("budgetClones", 0L)
+                .withParameter("failOnBudget", true)
+                .create();
+        harness.run(true);
+        try {
+            harness.run(false);
+            fail("clones must exceed the budget");
+        } catch (MojoFailureException e) {
+            assertTrue(e.getMessage().contains("clones"));
+        }
+    }
+
+    @Test
+    public void testDependencyKeys() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 3, 1, 2).create();
+        assertTrue(harness.isPropertyVersion(2));
+        Plugin plugin = new Plugin();
+        harness.run(plugin, true);
+        final Map<String, Map<String, Long>> dependencies = plugin.getMetrics().getDependencies();
+        for (String dependency : dependencies.keySet()) {
+            assertFalse(dependency, dependency.contains("${"));
+        }
+        // one row per dependency, also for a version declared by a property
+        final Map<String, Long> timings = dependencies.get(MultiRepoHarness.GROUP_ID + ":" + MultiRepoHarness.getArtifactId(2) + ":" + MultiRepoHarness.VERSION);
+        assertTrue(timings.containsKey(BgavMetrics.PROBE));
+        assertTrue(timings.containsKey(BgavMetrics.PROJECT_RESOLUTION));
+    }
+
+    @Test
+    public void testOffline() throws Exception {
+        final File cacheDir = temporaryFolder.newFolder();
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 4, 1, 2)
+                .withParameter("cacheDir", cacheDir)
+                .withParameter("offline", true)
+                .create();
+        // a clone of the first library next to the reactor
+        final String artifactId = MultiRepoHarness.getArtifactId(0);
+        Git.cloneRepository().setURI(new File(harness.getRemotes(), artifactId + ".git").toURI().toString())
+                .setDirectory(new File(harness.getRunRemote(1).getParentFile(), artifactId)).call().close();
+
+        Plugin plugin = new Plugin();
+        MultiRepoHarness.Result result = harness.run(plugin, true);
+        assertEquals("1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT", MultiRepoHarness.getDependency(result.getModel(), artifactId).getVersion());
+        assertEquals(3, plugin.getMetrics().getUndecided().size());
+        assertFalse(plugin.getMetrics().getUndecided().containsKey(MultiRepoHarness.GROUP_ID + ":" + artifactId + ":" + MultiRepoHarness.VERSION));
+        assertEquals(0, result.getBytesFetched());
+        try (Git git = Git.open(harness.getRunRemote(1))) {
+            RevCommit head = git.log().add(git.getRepository().resolve(MultiRepoHarness.TICKET_BRANCH)).setMaxCount(1).call().iterator().next();
+            assertFalse("offline runs do not push", head.getFullMessage().contains("BGAV"));
+        }
+
+        // fill the mirrors of the cache online, then every dependency is decided offline
+        harness.withParameter("offline", false).run(true);
+        plugin = new Plugin();
+        result = harness.withParameter("offline", true).run(plugin, true);
+        assertBranchedVersions(harness, result.getModel(), 4);
+        assertTrue(plugin.getMetrics().getUndecided().isEmpty());
+        assertEquals(0, result.getBytesFetched());
+    }
+
+    private void assertBranchedVersions(MultiRepoHarness harness, Model model, int repositories) {
+        for (int i = 0; i < repositories; i++) {
+            String artifactId = MultiRepoHarness.getArtifactId(i);
+            String version = MultiRepoHarness.getDependency(model, artifactId).getVersion();
+            if (harness.isPropertyVersion(i)) {
+                version = model.getProperties().getProperty(artifactId + ".version");
+            }
+            String expected = harness.isBranched(i) ? "1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT" : MultiRepoHarness.VERSION;
+            assertEquals(artifactId, expected, version);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NamespaceMatcherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesWholeSegments() {
+        NamespaceMatcher matcher = NamespaceMatcher.of("com.acme", "io.crowdcode");
+        assertTrue(matcher.matches("com.acme"));
+        assertTrue(matcher.matches("com.acme.lib"));
+        assertTrue(matcher.matches("io.crowdcode.bgav"));
+        assertFalse(matcher.matches("com.acmex"));
+        assertFalse(matcher.matches("org.notacme"));
+        assertFalse(matcher.matches("org.com.acme"));
+        assertFalse(matcher.matches("com"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void testSharedPrefixes() {
+        NamespaceMatcher matcher = NamespaceMatcher.of("com.acme.lib", "com.acme.app.", "com.acme.tools.*");
+        assertTrue(matcher.matches("com.acme.lib.core"));
+        assertTrue(matcher.matches("com.acme.app"));
+        assertTrue(matcher.matches("com.acme.tools.cli"));
+        assertFalse(matcher.matches("com.acme"));
+        assertFalse(matcher.matches("com.acme.library"));
+        assertEquals(Arrays.asList("com.acme.lib", "com.acme.app", "com.acme.tools"), matcher.getNamespaces());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(NamespaceMatcher.of((String[]) null).isEmpty());
+        assertTrue(NamespaceMatcher.of("", " ").isEmpty());
+        assertFalse(NamespaceMatcher.of("").matches("com.acme"));
+    }
+
+    @Test
+    public void testNamespaceFile() throws Exception {
+        File file = temporaryFolder.newFile("namespaces.txt");
+        Files.write(file.toPath(), "# shared namespaces\ncom.acme\n\n  org.example.lib  \n".getBytes(StandardCharsets.UTF_8));
+        NamespaceMatcher matcher = NamespaceMatcher.of(new String[]{"io.crowdcode"}, file);
+        assertEquals(Arrays.asList("io.crowdcode", "com.acme", "org.example.lib"), matcher.getNamespaces());
+        assertTrue(matcher.matches("org.example.lib.core"));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testMissingNamespaceFile() throws Exception {
+        NamespaceMatcher.of(null, new File(temporaryFolder.getRoot(), "missing.txt"));
+    }
+}
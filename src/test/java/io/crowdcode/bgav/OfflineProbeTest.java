@@ -0,0 +1,77 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OfflineProbeTest {
+
+    private static final byte[] TICKET_POM = "<project>NCX-7</project>".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+
+    @Test
+    public void testNormalize() {
+        assertEquals("https://git.example.com/team/lib", OfflineProbe.normalize("https://git.example.com/team/lib.git/"));
+        assertEquals("https://git.example.com/team/lib", OfflineProbe.normalize(" https://git.example.com/team/lib "));
+        assertEquals("file:/repos/lib", OfflineProbe.normalize("file:///repos/lib.git/"));
+    }
+
+    @Test
+    public void testRemoteTrackingBranchOfClone() throws Exception {
+        final String uri = createRemote();
+        final File workspace = temporaryFolder.newFolder();
+        Git.cloneRepository().setURI(uri).setBranch("develop").setDirectory(new File(workspace, "lib")).call().close();
+        final OfflineProbe probe = new OfflineProbe(workspace, null, log);
+
+        final GitMirrorCache.BranchFile pom = probe.readBranchFile(uri.substring(0, uri.length() - 1), "NCX-7", "pom.xml");
+        assertEquals("refs/remotes/origin/feature/NCX-7-foobar", pom.getBranch());
+        assertArrayEquals(TICKET_POM, pom.getContent());
+        assertNull(probe.readBranchFile(uri, "NCX-8", "pom.xml").getBranch());
+        assertNull(probe.readBranchFile("file:/elsewhere/lib.git", "NCX-7", "pom.xml"));
+    }
+
+    @Test
+    public void testOutdatedMirror() throws Exception {
+        final String uri = createRemote();
+        final BgavMetrics metrics = new BgavMetrics();
+        final DiskCache diskCache = new DiskCache(temporaryFolder.newFolder());
+        final GitHandler gitHandler = new GitHandler(log, null, null, false, true, "pom.xml", new File("."));
+        gitHandler.setMetrics(metrics);
+        new GitMirrorCache(diskCache, TimeUnit.HOURS.toMillis(1), log).readBranchFile(gitHandler, metrics, uri, "NCX-7", "pom.xml");
+
+        final OfflineProbe probe = new OfflineProbe(null, new GitMirrorCache(diskCache, 0, log), log);
+        assertArrayEquals(TICKET_POM, probe.readBranchFile(uri, "NCX-7", "pom.xml").getContent());
+        assertEquals(1, metrics.getCounter(BgavMetrics.CLONES));
+    }
+
+    private String createRemote() throws Exception {
+        final File work = temporaryFolder.newFolder();
+        final File bare = temporaryFolder.newFolder();
+        try (Git git = Git.init().setDirectory(work).setInitialBranch("develop").call()) {
+            Files.write(new File(work, "pom.xml").toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("pom.xml").call();
+            git.commit().setMessage("initial").setSign(false).call();
+            git.checkout().setCreateBranch(true).setName("feature/NCX-7-foobar").call();
+            Files.write(new File(work, "pom.xml").toPath(), TICKET_POM);
+            git.commit().setAll(true).setMessage("NCX-7").setSign(false).call();
+        }
+        Git.cloneRepository().setBare(true).setURI(work.toURI().toString()).setDirectory(bare).call().close();
+        return bare.toURI().toString();
+    }
+}
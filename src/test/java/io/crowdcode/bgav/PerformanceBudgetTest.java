@@ -0,0 +1,51 @@
+package io.crowdcode.bgav;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PerformanceBudgetTest {
+
+    @Test
+    public void testDisabled() {
+        PerformanceBudget budget = new PerformanceBudget(0, 0, -1);
+        assertFalse(budget.isEnabled());
+        assertTrue(budget.check(createMetrics()).isEmpty());
+    }
+
+    @Test
+    public void testDependencyTime() {
+        List<String> violations = new PerformanceBudget(0, 1_000, -1).check(createMetrics());
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).contains("g:slow:1"));
+        assertTrue(violations.get(0).contains("1500 ms"));
+    }
+
+    @Test
+    public void testClones() {
+        assertEquals(1, new PerformanceBudget(0, 0, 1).check(createMetrics()).size());
+        assertTrue(new PerformanceBudget(0, 0, 2).check(createMetrics()).isEmpty());
+    }
+
+    @Test
+    public void testSlowest() {
+        BgavMetrics metrics = createMetrics();
+        assertEquals(Arrays.asList("g:slow:1 (1500 ms)", "g:fast:1 (10 ms)"), PerformanceBudget.getSlowestDependencies(metrics, 5));
+        assertEquals(Arrays.asList(BgavMetrics.PROBE + " (1210 ms)"), PerformanceBudget.getSlowestPhases(metrics, 1));
+    }
+
+    private BgavMetrics createMetrics() {
+        BgavMetrics metrics = new BgavMetrics();
+        metrics.record(BgavMetrics.PROBE, "g:slow:1", TimeUnit.MILLISECONDS.toNanos(1_200));
+        metrics.record(BgavMetrics.PROJECT_RESOLUTION, "g:slow:1", TimeUnit.MILLISECONDS.toNanos(300));
+        metrics.record(BgavMetrics.PROBE, "g:fast:1", TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.increment(BgavMetrics.CLONES, 2);
+        return metrics;
+    }
+}
@@ -3,6 +3,7 @@ package io.crowdcode.bgav;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.settings.Settings;
 import org.eclipse.jgit.api.Git;
 import org.junit.Assert;
 import org.junit.Test;
@@ -112,7 +113,8 @@ public class PluginTest {
         assertEquals(mavenHandler.determineNonBgavPomVersion("1.0.1-NCX-11"), "1.0.1");
         assertEquals(mavenHandler.determineNonBgavPomVersion("1.0.1"), "1.0.1");
         assertEquals(mavenHandler.determineNonBgavPomVersion("1.0.1-SNAPSHOT"), "1.0.1-SNAPSHOT");
-//        assertEquals(mavenHandler.setNonBgavPomVersion("1.0.1-RELEASE"), "1.0.1-RELEASE");
+        assertEquals(mavenHandler.determineNonBgavPomVersion("1.0.1-RELEASE"), "1.0.1-RELEASE");
+        assertEquals(mavenHandler.determineNonBgavPomVersion("1.0-rc1-SNAPSHOT"), "1.0-rc1-SNAPSHOT");
     }
 
     @Test
@@ -155,6 +157,41 @@ public class PluginTest {
                 plugin.isParentInNamespace(model, namespace));
     }
 
+    @Test
+    public void testOfflineBySettings() throws Exception {
+        Plugin plugin = new Plugin();
+        plugin.setLocalRepositoryPath("target/m2");
+        assertFalse(plugin.isOffline());
+        assertTrue(plugin.getProjectResolver() instanceof MavenProjectResolver);
+        // mvn -o
+        MultiRepoHarness.set(plugin, "settings", offlineSettings());
+        assertTrue(plugin.isOffline());
+        assertTrue(plugin.getProjectResolver() instanceof LocalRepositoryProjectResolver);
+        plugin = new Plugin();
+        plugin.setParameter("offline", "true");
+        assertTrue(plugin.isOffline());
+    }
+
+    @Test
+    public void testGetProjectPom() throws Exception {
+        Plugin plugin = new Plugin();
+        File basedir = new File("target/module").getAbsoluteFile();
+        MultiRepoHarness.set(plugin, "pomFile", "pom.xml");
+        assertEquals(new File("pom.xml"), plugin.getProjectPom());
+        MultiRepoHarness.set(plugin, "basedir", basedir);
+        assertEquals(new File(basedir, "pom.xml"), plugin.getProjectPom());
+        File absolute = new File("target/other/pom.xml").getAbsoluteFile();
+        MultiRepoHarness.set(plugin, "pomFile", absolute.getPath());
+        assertEquals(absolute, plugin.getProjectPom());
+    }
+
+    private static Settings offlineSettings() {
+        Settings settings = new Settings();
+        settings.setLocalRepository("target/m2");
+        settings.setOffline(true);
+        return settings;
+    }
+
     /*@Test
     public void testCheckBranch() throws MojoExecutionException {
         Plugin plugin = new Plugin();
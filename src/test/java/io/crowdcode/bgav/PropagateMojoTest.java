@@ -0,0 +1,137 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.settings.Settings;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class PropagateMojoTest {
+
+    private static final String GROUP_ID = "io.crowdcode.workspace";
+    private static final String BRANCH = "feature/ABC-7-propagate";
+    private static final String BRANCHED = "1.0.0-ABC-7-SNAPSHOT";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File workspace;
+    private File remotes;
+    private File localRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        workspace = temporaryFolder.newFolder("workspace");
+        remotes = temporaryFolder.newFolder("remotes");
+        localRepository = temporaryFolder.newFolder("repository");
+        createRepo("lib-a");
+        createRepo("lib-b", "lib-a");
+        createRepo("app", "lib-a", "lib-b");
+    }
+
+    @Test
+    public void testPropagate() throws Exception {
+        PropagateMojo mojo = new PropagateMojo();
+        Settings settings = new Settings();
+        settings.setLocalRepository(localRepository.getAbsolutePath());
+        MultiRepoHarness.set(mojo, "settings", settings);
+        MultiRepoHarness.set(mojo, "workspace", workspace);
+        MultiRepoHarness.set(mojo, "pomFile", "pom.xml");
+        MultiRepoHarness.set(mojo, "namespace", new String[]{GROUP_ID});
+        MultiRepoHarness.set(mojo, "branchName", BRANCH);
+        mojo.setProjectResolver(new LocalRepositoryProjectResolver(localRepository.getAbsolutePath()));
+        mojo.execute();
+
+        for (String name : new String[]{"lib-a", "lib-b", "app"}) {
+            Model model = readRemoteModel(name);
+            assertEquals(name, BRANCHED, model.getVersion());
+            model.getDependencies().forEach(dependency -> assertEquals(name + " -> " + dependency.getArtifactId(), BRANCHED, dependency.getVersion()));
+            try (Git git = Git.open(new File(remotes, name + ".git"))) {
+                RevCommit head = git.log().add(git.getRepository().resolve(BRANCH)).setMaxCount(1).call().iterator().next();
+                assertEquals("one commit on top of develop", git.getRepository().resolve("develop"), head.getParent(0).getId());
+            }
+        }
+    }
+
+    @Test
+    public void testLevels() throws Exception {
+        WorkspaceGraph graph = WorkspaceGraph.ofDirectory(workspace, "pom.xml");
+        assertEquals("[[lib-a], [lib-b], [app]]", graph.getLevels().toString());
+
+        File manifest = new File(workspace, "bgav-workspace.txt");
+        Files.write(manifest.toPath(), "# ticket ABC-7\napp\nlib-a\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals("[[lib-a], [app]]", WorkspaceGraph.ofManifest(manifest, "pom.xml").getLevels().toString());
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testCycle() throws Exception {
+        File dir = new File(workspace, "lib-a");
+        Files.write(new File(dir, "pom.xml").toPath(), pom("lib-a", new File(remotes, "lib-a.git").toURI().toString(), "app").getBytes(StandardCharsets.UTF_8));
+        WorkspaceGraph.ofDirectory(workspace, "pom.xml");
+    }
+
+    private Model readRemoteModel(String name) throws Exception {
+        try (Git git = Git.open(new File(remotes, name + ".git"))) {
+            Repository repository = git.getRepository();
+            RevTree tree = repository.parseCommit(repository.resolve(BRANCH)).getTree();
+            try (TreeWalk walk = TreeWalk.forPath(repository, "pom.xml", tree)) {
+                assertNotNull(walk);
+                String pom = new String(repository.open(walk.getObjectId(0), Constants.OBJ_BLOB).getBytes(), StandardCharsets.UTF_8);
+                return new MavenXpp3Reader().read(new StringReader(pom));
+            }
+        }
+    }
+
+    private void createRepo(String name, String... dependencies) throws Exception {
+        File bare = new File(remotes, name + ".git");
+        File work = temporaryFolder.newFolder("work-" + name);
+        String pom = pom(name, bare.toURI().toString(), dependencies);
+        try (Git git = Git.init().setDirectory(work).setInitialBranch("develop").call()) {
+            Files.write(new File(work, "pom.xml").toPath(), pom.getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setSign(false).call();
+        }
+        Git.cloneRepository().setBare(true).setURI(work.toURI().toString()).setDirectory(bare).call().close();
+        Git.cloneRepository().setURI(bare.toURI().toString()).setDirectory(new File(workspace, name)).call().close();
+        File installed = new File(localRepository, GROUP_ID.replace('.', '/') + "/" + name + "/1.0.0-SNAPSHOT/" + name + "-1.0.0-SNAPSHOT.pom");
+        Files.createDirectories(installed.getParentFile().toPath());
+        Files.write(installed.toPath(), pom.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String pom(String artifactId, String scmUrl, String... dependencies) {
+        StringBuilder pom = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+                .append("    <modelVersion>4.0.0</modelVersion>\n")
+                .append("    <groupId>").append(GROUP_ID).append("</groupId>\n")
+                .append("    <artifactId>").append(artifactId).append("</artifactId>\n")
+                .append("    <version>1.0.0-SNAPSHOT</version>\n")
+                .append("    <scm>\n        <url>").append(scmUrl).append("</url>\n    </scm>\n")
+                .append("    <distributionManagement>\n        <snapshotRepository>\n            <id>workspace</id>\n")
+                .append("            <url>file:///dev/null</url>\n        </snapshotRepository>\n    </distributionManagement>\n")
+                .append("    <dependencies>\n");
+        for (String dependency : dependencies) {
+            pom.append("        <dependency>\n            <groupId>").append(GROUP_ID).append("</groupId>\n")
+                    .append("            <artifactId>").append(dependency).append("</artifactId>\n")
+                    .append("            <version>1.0.0-SNAPSHOT</version>\n        </dependency>\n");
+        }
+        return pom.append("    </dependencies>\n</project>\n").toString();
+    }
+}
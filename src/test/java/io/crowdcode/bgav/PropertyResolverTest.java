@@ -0,0 +1,124 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PropertyResolverTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File parentPom;
+    private File childPom;
+
+    @Before
+    public void setUp() throws Exception {
+        File root = temporaryFolder.newFolder("parent");
+        parentPom = new File(root, "pom.xml");
+        childPom = new File(root, "child/pom.xml");
+        write(parentPom, "<project>\n  <modelVersion>4.0.0</modelVersion>\n  <groupId>io.crowdcode.props</groupId>\n"
+                + "  <artifactId>parent</artifactId>\n  <version>2.0.0-SNAPSHOT</version>\n  <packaging>pom</packaging>\n"
+                + "  <properties>\n    <lib.version>${base.version}</lib.version>\n    <base.version>1.0.0-ABC-1-SNAPSHOT</base.version>\n"
+                + "    <major>1</major>\n  </properties>\n</project>\n");
+        write(childPom, "<project>\n  <modelVersion>4.0.0</modelVersion>\n  <parent>\n    <groupId>io.crowdcode.props</groupId>\n"
+                + "    <artifactId>parent</artifactId>\n    <version>2.0.0-SNAPSHOT</version>\n  </parent>\n"
+                + "  <artifactId>child</artifactId>\n  <properties>\n    <minor>2</minor>\n    <cycle.a>${cycle.b}</cycle.a>\n"
+                + "    <cycle.b>${cycle.a}</cycle.b>\n  </properties>\n  <dependencies>\n    <dependency>\n"
+                + "      <groupId>io.crowdcode.props</groupId>\n      <artifactId>lib</artifactId>\n      <version>${lib.version}</version>\n"
+                + "    </dependency>\n  </dependencies>\n</project>\n");
+    }
+
+    @Test
+    public void testParentChain() throws Exception {
+        PropertyResolver resolver = new PropertyResolver(null, parentPom.getParentFile());
+        Model child = readModel(childPom);
+
+        PropertyResolver.Resolution resolution = resolver.resolve(child, "${lib.version}");
+        assertEquals("1.0.0-ABC-1-SNAPSHOT", resolution.getValue());
+        assertEquals("base.version", resolution.getProperty());
+        assertEquals(parentPom.getAbsoluteFile(), resolution.getOwner());
+        assertTrue(resolution.isEditable());
+
+        PropertyResolver.Resolution composed = resolver.resolve(child, "${major}.${minor}-${project.version}");
+        assertEquals("1.2-2.0.0-SNAPSHOT", composed.getValue());
+        assertFalse(composed.isEditable());
+
+        assertNull(resolver.resolve(child, "${cycle.a}"));
+        assertNull(resolver.resolve(child, "${undefined}"));
+
+        resolver.setProperty(resolution, "1.0.0-SNAPSHOT");
+        assertEquals("1.0.0-SNAPSHOT", resolver.resolve(child, "${lib.version}").getValue());
+    }
+
+    @Test
+    public void testOwnPomOnly() throws Exception {
+        PropertyResolver.Resolution resolution = new PropertyResolver(null, null).resolve(readModel(childPom), "${lib.version}");
+        assertEquals("1.0.0-ABC-1-SNAPSHOT", resolution.getValue());
+        assertFalse(resolution.isEditable());
+    }
+
+    @Test
+    public void testResolvedParent() throws Exception {
+        Model parent = readModel(parentPom);
+        Files.delete(parentPom.toPath());
+        AtomicInteger resolved = new AtomicInteger();
+        PropertyResolver resolver = new PropertyResolver((groupId, artifactId, version) -> {
+            resolved.incrementAndGet();
+            return new MavenProject(parent);
+        }, parentPom.getParentFile());
+        Model child = readModel(childPom);
+        PropertyResolver.Resolution resolution = resolver.resolve(child, "${lib.version}");
+        assertEquals("1.0.0-ABC-1-SNAPSHOT", resolution.getValue());
+        assertNull(resolution.getOwner());
+        resolver.resolve(child, "${major}");
+        resolver.resolve(readModel(childPom), "${lib.version}");
+        assertEquals("parent is resolved once", 1, resolved.get());
+    }
+
+    @Test
+    public void testRemoveBgavFromParentProperty() throws Exception {
+        MavenHandler mavenHandler = new MavenHandler(new SystemStreamLog(), false, false, parentPom.getParentFile(), null, null, null, null, "pom.xml");
+        assertEquals("lib, ", mavenHandler.removeBgavFromPom(childPom, mavenHandler.getModel(childPom), new String[]{"io.crowdcode.props"}));
+        assertEquals("1.0.0-SNAPSHOT", readModel(parentPom).getProperties().getProperty("base.version"));
+        assertEquals("${base.version}", readModel(parentPom).getProperties().getProperty("lib.version"));
+    }
+
+    @Test
+    public void testParentOutsideOfRoot() throws Exception {
+        PropertyResolver.Resolution resolution = new PropertyResolver(null, childPom.getParentFile()).resolve(readModel(childPom), "${lib.version}");
+        assertEquals("1.0.0-ABC-1-SNAPSHOT", resolution.getValue());
+        assertNull(resolution.getOwner());
+        assertFalse(resolution.isEditable());
+
+        // the parent is not committed with the project, it is left untouched
+        MavenHandler mavenHandler = new MavenHandler(new SystemStreamLog(), false, false, childPom.getParentFile(), null, null, null, null, "pom.xml");
+        mavenHandler.removeBgavFromPom(childPom, mavenHandler.getModel(childPom), new String[]{"io.crowdcode.props"});
+        assertEquals("1.0.0-ABC-1-SNAPSHOT", readModel(parentPom).getProperties().getProperty("base.version"));
+    }
+
+    private static Model readModel(File pom) throws Exception {
+        Model model = MultiRepoHarness.readModel(pom);
+        model.setPomFile(pom);
+        return model;
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
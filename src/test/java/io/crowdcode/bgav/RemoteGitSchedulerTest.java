@@ -0,0 +1,126 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RemoteGitSchedulerTest {
+
+    private static final String URI = "https://git.example.com/repo.git";
+
+    @Test
+    public void testGetHost() {
+        assertEquals("git.example.com", RemoteGitScheduler.getHost(URI));
+        assertEquals("local", RemoteGitScheduler.getHost("file:///tmp/repo.git"));
+    }
+
+    @Test
+    public void testCircuitOpensAfterFailures() throws MojoExecutionException {
+        Plugin plugin = new Plugin();
+        RemoteGitScheduler scheduler = new RemoteGitScheduler(plugin.getLog(), 2, 10, 0, 2, true);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            try {
+                scheduler.execute(URI, "clone", timeout -> {
+                    calls.incrementAndGet();
+                    throw new IOException("connection refused");
+                });
+                fail();
+            } catch (RemoteGitScheduler.RemoteUnavailableException e) {
+                fail("circuit must not be open yet");
+            } catch (MojoExecutionException e) {
+                assertTrue(e.getMessage().contains("connection refused"));
+            }
+        }
+        try {
+            scheduler.execute(URI, "clone", timeout -> calls.incrementAndGet());
+            fail();
+        } catch (RemoteGitScheduler.RemoteUnavailableException e) {
+            assertEquals(2, calls.get());
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test(expected = RemoteGitScheduler.RemoteUnavailableException.class)
+    public void testDeadline() throws MojoExecutionException {
+        Plugin plugin = new Plugin();
+        RemoteGitScheduler scheduler = new RemoteGitScheduler(plugin.getLog(), 2, 1, 0, 3, true);
+        try {
+            scheduler.execute(URI, "clone", timeout -> {
+                assertEquals(1, timeout);
+                Thread.sleep(5000);
+                return null;
+            });
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test(expected = RemoteGitScheduler.RemoteUnavailableException.class)
+    public void testBudgetExhausted() throws MojoExecutionException, InterruptedException {
+        Plugin plugin = new Plugin();
+        RemoteGitScheduler scheduler = new RemoteGitScheduler(plugin.getLog(), 2, 0, 1, 3, true);
+        Thread.sleep(1100);
+        try {
+            scheduler.execute(URI, "clone", timeout -> "never");
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    public void testLimitShrinksOnFailures() throws MojoExecutionException {
+        Plugin plugin = new Plugin();
+        RemoteGitScheduler scheduler = new RemoteGitScheduler(plugin.getLog(), 8, 10, 0, 5, true);
+        try {
+            scheduler.execute(URI, "clone", timeout -> {
+                throw new IOException("timeout");
+            });
+        } catch (MojoExecutionException e) {
+            assertEquals(4, scheduler.getLimit("git.example.com"));
+        }
+        assertEquals("ok", scheduler.execute(URI, "clone", timeout -> "ok"));
+        assertEquals(5, scheduler.getLimit("git.example.com"));
+        scheduler.close();
+    }
+
+    @Test
+    public void testSlotIsHeldUntilOperationEnds() throws Exception {
+        Plugin plugin = new Plugin();
+        RemoteGitScheduler scheduler = new RemoteGitScheduler(plugin.getLog(), 1, 1, 0, 5, true);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            scheduler.execute(URI, "clone", timeout -> {
+                // like a transport ignoring the interrupt
+                while (true) {
+                    try {
+                        if (release.await(100, TimeUnit.MILLISECONDS)) {
+                            return null;
+                        }
+                    } catch (InterruptedException e) {
+                        // ignored
+                    }
+                }
+            });
+            fail("the deadline must be exceeded");
+        } catch (RemoteGitScheduler.RemoteUnavailableException e) {
+            assertEquals(1, scheduler.getInFlight("git.example.com"));
+        }
+        release.countDown();
+        for (int i = 0; i < 50 && scheduler.getInFlight("git.example.com") > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, scheduler.getInFlight("git.example.com"));
+        assertEquals("ok", scheduler.execute(URI, "clone", timeout -> "ok"));
+        scheduler.close();
+    }
+}
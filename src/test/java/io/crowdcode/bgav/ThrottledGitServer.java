@@ -0,0 +1,241 @@
+package io.crowdcode.bgav;
+
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.Daemon;
+import org.eclipse.jgit.transport.DaemonClient;
+import org.eclipse.jgit.transport.resolver.FileResolver;
+import org.eclipse.jgit.transport.resolver.ServiceNotEnabledException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Git server for load tests without outside services: an in-process JGit daemon serving the bare repositories of a
+ * directory by git:// URLs, behind a TCP proxy, which injects latency, limits the bandwidth and fails connections.
+ *
+ * <pre>
+ * try (ThrottledGitServer server = new ThrottledGitServer(remotes).latency(200).bandwidth(256 * 1024).start()) {
+ *     String uri = server.getUrl("lib-0000.git");
+ * }
+ * </pre>
+ *
+ * <p>Every Git request opens a connection, so the latency is paid once per request and once per response chunk, like
+ * a round trip on a slow network.</p>
+ */
+public class ThrottledGitServer implements AutoCloseable {
+
+    private static final int CHUNK = 8 * 1024;
+
+    private final File basePath;
+    private final Daemon daemon;
+    private final ExecutorService executor;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Random random = new Random(42);
+    private ServerSocket serverSocket;
+    private volatile long latencyMillis;
+    private volatile long bytesPerSecond;
+    private volatile double failureRate;
+    private volatile int failEvery;
+    private volatile boolean stalled;
+
+    /**
+     * @param basePath directory with the bare repositories
+     */
+    public ThrottledGitServer(File basePath) {
+        this.basePath = basePath;
+        this.daemon = new Daemon(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "bgav-git-proxy-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param latencyMillis delay of every connection and of every response chunk
+     * @return this
+     */
+    public ThrottledGitServer latency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /**
+     * @param bytesPerSecond bandwidth of every connection, 0 for unlimited
+     * @return this
+     */
+    public ThrottledGitServer bandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * @param failureRate probability of closing a connection right after accepting it
+     * @return this
+     */
+    public ThrottledGitServer failureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * @param failEvery close every n-th connection right after accepting it, 0 for none
+     * @return this
+     */
+    public ThrottledGitServer failEvery(int failEvery) {
+        this.failEvery = failEvery;
+        return this;
+    }
+
+    /**
+     * @param stalled accept connections, but never answer them, like an unreachable host behind a firewall
+     * @return this
+     */
+    public ThrottledGitServer stalled(boolean stalled) {
+        this.stalled = stalled;
+        return this;
+    }
+
+    public ThrottledGitServer start() throws IOException {
+        daemon.getService("git-upload-pack").setEnabled(true);
+        daemon.getService("git-receive-pack").setEnabled(true);
+        // the daemon passes the absolute path of the URL, which the file resolver rejects as unreasonable
+        daemon.setRepositoryResolver(new FileResolver<DaemonClient>(basePath, true) {
+            @Override
+            public Repository open(DaemonClient client, String name) throws RepositoryNotFoundException, ServiceNotEnabledException {
+                return super.open(client, name.startsWith("/") ? name.substring(1) : name);
+            }
+        });
+        daemon.start();
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::accept);
+        return this;
+    }
+
+    /**
+     * @param repository name of the bare repository below the base path
+     * @return git:// URL through the proxy
+     */
+    public String getUrl(String repository) {
+        return "git://127.0.0.1:" + serverSocket.getLocalPort() + "/" + repository;
+    }
+
+    /**
+     * @return number of accepted connections
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * @return bytes sent to the clients
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // closing anyway
+        }
+        daemon.stop();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            final Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            final int connection = connections.incrementAndGet();
+            executor.execute(() -> handle(client, connection));
+        }
+    }
+
+    private void handle(Socket client, int connection) {
+        try (Socket downstream = client) {
+            if ((failEvery > 0 && connection % failEvery == 0) || (failureRate > 0 && nextDouble() < failureRate)) {
+                downstream.setSoLinger(true, 0);
+                return;
+            }
+            if (stalled) {
+                while (!Thread.currentThread().isInterrupted() && downstream.getInputStream().read() >= 0) {
+                    // swallow the request
+                }
+                return;
+            }
+            sleep(latencyMillis);
+            try (Socket upstream = new Socket(daemon.getAddress().getAddress(), daemon.getAddress().getPort())) {
+                executor.execute(() -> pump(downstream, upstream, false));
+                pump(upstream, downstream, true);
+            }
+        } catch (IOException e) {
+            // connection closed by one side
+        }
+    }
+
+    private void pump(Socket from, Socket to, boolean response) {
+        final byte[] buffer = new byte[CHUNK];
+        try {
+            final InputStream in = from.getInputStream();
+            final OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                if (response) {
+                    sleep(latencyMillis);
+                    if (bytesPerSecond > 0) {
+                        sleep(TimeUnit.SECONDS.toMillis(read) / bytesPerSecond);
+                    }
+                    bytes.addAndGet(read);
+                }
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+            to.shutdownOutput();
+        } catch (SocketException e) {
+            // connection closed by one side
+        } catch (IOException e) {
+            // connection broken
+        }
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private static void sleep(long millis) throws IOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+}
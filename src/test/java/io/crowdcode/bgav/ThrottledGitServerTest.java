@@ -0,0 +1,95 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ThrottledGitServerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    Log log = new Plugin().getLog();
+
+    @Test
+    public void testLatency() throws Exception {
+        File remotes = temporaryFolder.newFolder();
+        createRemote(new File(remotes, "lib.git"));
+        try (ThrottledGitServer server = new ThrottledGitServer(remotes).latency(100).start()) {
+            GitHandler gitHandler = new GitHandler(log, null, null, false, true, "pom.xml", new File("."));
+            long start = System.currentTimeMillis();
+            String[] branches = gitHandler.getRemoteBranches(server.getUrl("lib.git"));
+            assertTrue(System.currentTimeMillis() - start >= 200);
+            assertTrue(Arrays.asList(branches).contains("refs/heads/feature/NCX-7-foobar"));
+            assertTrue(server.getBytes() > 0);
+        }
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testFailure() throws Exception {
+        File remotes = temporaryFolder.newFolder();
+        createRemote(new File(remotes, "lib.git"));
+        try (ThrottledGitServer server = new ThrottledGitServer(remotes).failEvery(1).start()) {
+            new GitHandler(log, null, null, false, true, "pom.xml", new File(".")).getRemoteBranches(server.getUrl("lib.git"));
+        }
+    }
+
+    @Test
+    public void testStalledHostExceedsDeadline() throws Exception {
+        File remotes = temporaryFolder.newFolder();
+        createRemote(new File(remotes, "lib.git"));
+        RemoteGitScheduler scheduler = new RemoteGitScheduler(log, 2, 1, 0, 3, true);
+        try (ThrottledGitServer server = new ThrottledGitServer(remotes).stalled(true).start()) {
+            GitHandler gitHandler = new GitHandler(log, null, null, false, true, "pom.xml", new File("."));
+            gitHandler.setScheduler(scheduler);
+            long start = System.currentTimeMillis();
+            try {
+                gitHandler.readRemoteFile(server.getUrl("lib.git"), "refs/heads/feature/NCX-7-foobar", "pom.xml", Long.MAX_VALUE);
+                fail("stalled host must exceed the deadline");
+            } catch (RemoteGitScheduler.RemoteUnavailableException e) {
+                assertTrue(System.currentTimeMillis() - start < 10_000);
+            }
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    public void testHarnessOnSlowNetwork() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 3, 1, 2);
+        try (ThrottledGitServer server = new ThrottledGitServer(harness.getRemotes()).latency(20).bandwidth(1024 * 1024).start()) {
+            harness.withRemoteUrls(server::getUrl).create();
+            for (boolean inMemoryProbe : new boolean[]{true, false}) {
+                MultiRepoHarness.Result result = harness.run(inMemoryProbe);
+                assertEquals("1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT",
+                        MultiRepoHarness.getDependency(result.getModel(), MultiRepoHarness.getArtifactId(0)).getVersion());
+                assertEquals(MultiRepoHarness.VERSION,
+                        MultiRepoHarness.getDependency(result.getModel(), MultiRepoHarness.getArtifactId(1)).getVersion());
+            }
+            assertTrue(server.getConnections() > 0);
+        }
+    }
+
+    private void createRemote(File bare) throws Exception {
+        File work = temporaryFolder.newFolder();
+        try (Git git = Git.init().setDirectory(work).setInitialBranch("develop").call()) {
+            Files.write(new File(work, "pom.xml").toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("pom.xml").call();
+            git.commit().setMessage("initial").setSign(false).call();
+            git.branchCreate().setName("feature/NCX-7-foobar").call();
+        }
+        Git.cloneRepository().setBare(true).setURI(work.toURI().toString()).setDirectory(bare).call().close();
+    }
+}
@@ -0,0 +1,116 @@
+package io.crowdcode.bgav;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransitiveProbeTest {
+
+    private static final String GROUP_ID = "io.crowdcode.transitive";
+    private static final String TICKET = "ABC-1";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+    private MavenHandler mavenHandler;
+    private File pomfile;
+
+    @Before
+    public void setUp() throws Exception {
+        final File localRepository = temporaryFolder.newFolder("m2");
+        // a -> b -> c -> d and back to b, c is managed by a
+        writeLibrary(localRepository, "b", "1.0.0-SNAPSHOT", "", dependency(GROUP_ID, "c", "1.0.0-SNAPSHOT") + dependency("org.other", "x", "1.0"));
+        writeLibrary(localRepository, "c", "1.0.0-SNAPSHOT", "<properties><d.version>2.0.0-SNAPSHOT</d.version></properties>",
+                dependency(GROUP_ID, "b", "1.0.0-SNAPSHOT") + dependency(GROUP_ID, "d", "${d.version}"));
+        writeLibrary(localRepository, "d", "2.0.0-SNAPSHOT", "", "");
+        pomfile = new File(temporaryFolder.newFolder("a"), "pom.xml");
+        write(pomfile, "<project>\n<modelVersion>4.0.0</modelVersion>\n<groupId>" + GROUP_ID + "</groupId><artifactId>a</artifactId><version>1.0.0-SNAPSHOT</version>\n"
+                + "<distributionManagement><snapshotRepository><id>snapshots</id><url>https://repo.example.com/snapshots</url></snapshotRepository></distributionManagement>\n"
+                + "<dependencyManagement><dependencies>\n" + dependency(GROUP_ID, "c", "1.0.0-SNAPSHOT") + "</dependencies></dependencyManagement>\n"
+                + "<dependencies>\n" + dependency(GROUP_ID, "b", "1.0.0-SNAPSHOT") + "</dependencies>\n</project>\n");
+
+        mavenHandler = new MavenHandler(log, true, true, pomfile.getParentFile(), null, null, null, null, "pom.xml");
+        mavenHandler.setProjectResolver(new LocalRepositoryProjectResolver(localRepository.getAbsolutePath()));
+        // the repositories of b and c have a branch of the ticket, the one of d has not
+        final ProbeCache probeCache = new ProbeCache(TimeUnit.HOURS.toMillis(1));
+        probeCache.put(scmUrl("b"), TICKET, DependencyProbe.branchFound(scmUrl("b"), "refs/heads/feature/ABC-1-b", "1.0.0-" + TICKET + "-SNAPSHOT"));
+        probeCache.put(scmUrl("c"), TICKET, DependencyProbe.branchFound(scmUrl("c"), "refs/heads/feature/ABC-1-c", "1.0.0-SNAPSHOT"));
+        probeCache.put(scmUrl("d"), TICKET, DependencyProbe.noBranch(scmUrl("d")));
+        mavenHandler.setProbeCache(probeCache);
+    }
+
+    @Test
+    public void testWalk() throws Exception {
+        final Model model = mavenHandler.getModel(pomfile);
+        try (DependencyPrefetcher prefetcher = new DependencyPrefetcher(log, 2);
+             TransitiveProbe transitiveProbe = new TransitiveProbe(log, mavenHandler, prefetcher, NamespaceMatcher.of(GROUP_ID), 2)) {
+            final List<TransitiveProbe.Node> nodes = transitiveProbe.walk(Collections.singletonList(model), TICKET, null, null, null);
+            transitiveProbe.report(TICKET);
+            assertEquals(3, nodes.size());
+            assertNode(nodes.get(0), "b:1.0.0-SNAPSHOT", 1, DependencyProbe.Status.BRANCH_FOUND);
+            assertNode(nodes.get(1), "c:1.0.0-SNAPSHOT", 1, DependencyProbe.Status.BRANCH_FOUND);
+            assertNode(nodes.get(2), "d:2.0.0-SNAPSHOT", 2, DependencyProbe.Status.NO_BRANCH);
+            assertEquals(GROUP_ID + ":c:1.0.0-SNAPSHOT", nodes.get(2).getVia());
+        }
+    }
+
+    @Test
+    public void testApplyToManagedDependencies() throws Exception {
+        final Model model = mavenHandler.getModel(pomfile);
+        final NamespaceMatcher namespace = NamespaceMatcher.of(GROUP_ID);
+        try (DependencyPrefetcher prefetcher = new DependencyPrefetcher(log, 2);
+             TransitiveProbe transitiveProbe = new TransitiveProbe(log, mavenHandler, prefetcher, namespace, 2)) {
+            transitiveProbe.walk(Collections.singletonList(model), TICKET, null, null, null);
+            mavenHandler.setPrefetcher(prefetcher);
+            mavenHandler.setTransitive(true);
+            assertEquals("b, c, ", mavenHandler.checkforDependencies(pomfile, model, namespace, TICKET, null, null, null));
+        }
+        final String content = new String(Files.readAllBytes(pomfile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.contains(dependency(GROUP_ID, "b", "1.0.0-" + TICKET + "-SNAPSHOT").trim()));
+        assertTrue(content.contains(dependency(GROUP_ID, "c", "1.0.0-" + TICKET + "-SNAPSHOT").trim()));
+
+        // and removed again on a non BGAV branch
+        assertEquals("b, c, ", mavenHandler.removeBgavFromPom(pomfile, mavenHandler.getModel(pomfile), namespace));
+        assertEquals(0, new String(Files.readAllBytes(pomfile.toPath()), StandardCharsets.UTF_8).split(TICKET, -1).length - 1);
+    }
+
+    private static void assertNode(TransitiveProbe.Node node, String key, int level, DependencyProbe.Status status) {
+        assertEquals(GROUP_ID + ":" + key, node.getKey());
+        assertEquals(level, node.getLevel());
+        assertEquals(status, node.getProbe().getStatus());
+    }
+
+    private static String scmUrl(String artifactId) {
+        return "https://git.example.com/" + artifactId + ".git";
+    }
+
+    private static String dependency(String groupId, String artifactId, String version) {
+        return "<dependency><groupId>" + groupId + "</groupId><artifactId>" + artifactId + "</artifactId><version>" + version + "</version></dependency>\n";
+    }
+
+    private static void writeLibrary(File localRepository, String artifactId, String version, String properties, String dependencies) throws Exception {
+        write(new File(localRepository, GROUP_ID.replace('.', '/') + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + ".pom"),
+                "<project>\n<modelVersion>4.0.0</modelVersion>\n<groupId>" + GROUP_ID + "</groupId><artifactId>" + artifactId + "</artifactId><version>" + version + "</version>\n"
+                        + "<scm><url>" + scmUrl(artifactId) + "</url></scm>\n" + properties + "\n<dependencies>\n" + dependencies + "</dependencies>\n</project>\n");
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
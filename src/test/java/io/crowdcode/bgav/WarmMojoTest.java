@@ -0,0 +1,60 @@
+package io.crowdcode.bgav;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WarmMojoTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWarm() throws Exception {
+        final File cacheDir = temporaryFolder.newFolder();
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 4, 1, 2)
+                .withParameter("cacheDir", cacheDir)
+                .create();
+
+        WarmMojo warm = new WarmMojo();
+        harness.run(warm, true);
+        assertStatus(warm.getResults(), 4, CacheWarmer.Status.FETCHED);
+        assertEquals(4, warm.getMetrics().getCounter(BgavMetrics.CLONES));
+
+        // warming again finds fresh mirrors
+        warm = new WarmMojo();
+        harness.run(warm, true);
+        assertStatus(warm.getResults(), 4, CacheWarmer.Status.FRESH);
+        assertEquals(0, warm.getMetrics().getCounter(BgavMetrics.CLONES));
+
+        // the warmed caches decide every dependency offline
+        Plugin plugin = new Plugin();
+        MultiRepoHarness.Result result = harness.withParameter("offline", true).run(plugin, true);
+        assertTrue(plugin.getMetrics().getUndecided().isEmpty());
+        assertEquals(0, result.getBytesFetched());
+        assertEquals("1.0.0-" + MultiRepoHarness.TICKET + "-SNAPSHOT",
+                MultiRepoHarness.getDependency(result.getModel(), MultiRepoHarness.getArtifactId(0)).getVersion());
+    }
+
+    @Test
+    public void testWarmWithoutCacheDir() throws Exception {
+        MultiRepoHarness harness = new MultiRepoHarness(temporaryFolder.newFolder(), 2, 1, 2).create();
+        WarmMojo warm = new WarmMojo();
+        harness.run(warm, true);
+        assertStatus(warm.getResults(), 2, CacheWarmer.Status.RESOLVED);
+        assertEquals(0, warm.getMetrics().getCounter(BgavMetrics.CLONES));
+    }
+
+    private static void assertStatus(List<CacheWarmer.Result> results, int size, CacheWarmer.Status status) {
+        assertEquals(size, results.size());
+        for (CacheWarmer.Result result : results) {
+            assertEquals(result.toString(), status, result.getStatus());
+        }
+    }
+}
@@ -1,8 +1,91 @@
 package io.crowdcode.bgav;
 
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 public class XMLHandlerTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final XMLHandler xmlHandler = new XMLHandler(new SystemStreamLog(), true, true, null);
+
     @org.junit.Before
     public void setUp() throws Exception {
     }
+
+    private static String dependency(String groupId, String artifactId, String version) {
+        return "<dependency><groupId>" + groupId + "</groupId><artifactId>" + artifactId + "</artifactId><version>" + version + "</version></dependency>\n";
+    }
+
+    private File writePom() throws Exception {
+        File pom = temporaryFolder.newFile("pom.xml");
+        String content = "<project>\n<groupId>io.crowdcode</groupId><artifactId>bom</artifactId><version>1.0</version>\n"
+                + "<dependencyManagement><dependencies>\n"
+                + dependency("io.crowdcode", "lib", "1.0-SNAPSHOT")
+                + dependency("io.crowdcode", "lib-extra", "1.0-SNAPSHOT")
+                + "</dependencies></dependencyManagement>\n"
+                + "<dependencies>\n"
+                + dependency("io.crowdcode", "lib", "1.0-SNAPSHOT")
+                + dependency("io.crowdcode.other", "lib", "1.0-SNAPSHOT")
+                + "</dependencies>\n"
+                + "<profiles><profile><id>p</id><dependencies>\n"
+                + dependency("io.crowdcode", "lib", "1.0-SNAPSHOT")
+                + "</dependencies></profile></profiles>\n"
+                + "</project>\n";
+        Files.write(pom.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return pom;
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testAlterDependencyMatchesSectionAndCoordinates() throws Exception {
+        File pom = writePom();
+        assertTrue(xmlHandler.alterDependency(pom, "io.crowdcode", "lib", "1.0-ABC-1-SNAPSHOT"));
+        String content = new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8);
+        // the regular dependency and the one of the profile, not dependencyManagement, lib-extra or another groupId
+        assertTrue(content.contains(dependency("io.crowdcode", "lib", "1.0-ABC-1-SNAPSHOT").trim()));
+        assertTrue(content.contains(dependency("io.crowdcode", "lib-extra", "1.0-SNAPSHOT").trim()));
+        assertTrue(content.contains(dependency("io.crowdcode.other", "lib", "1.0-SNAPSHOT").trim()));
+        assertTrue(content.contains("<dependencyManagement><dependencies>\n" + dependency("io.crowdcode", "lib", "1.0-SNAPSHOT")));
+        assertEquals(2, count(content, "1.0-ABC-1-SNAPSHOT"));
+    }
+
+    @Test
+    public void testAlterDependenciesInOnePass() throws Exception {
+        File pom = writePom();
+        Map<String, String> versions = new LinkedHashMap<>();
+        versions.put("io.crowdcode:lib", "1.0-ABC-1-SNAPSHOT");
+        versions.put("io.crowdcode:lib-extra", "1.0-ABC-1-SNAPSHOT");
+        assertTrue(xmlHandler.alterDependencies(pom, XMLHandler.DependencySection.DEPENDENCY_MANAGEMENT, versions));
+        String content = new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8);
+        assertEquals(2, count(content, "1.0-ABC-1-SNAPSHOT"));
+        assertTrue(content.contains(dependency("io.crowdcode", "lib-extra", "1.0-ABC-1-SNAPSHOT").trim()));
+        assertFalse(xmlHandler.alterDependencies(pom, XMLHandler.DependencySection.DEPENDENCY_MANAGEMENT, versions));
+    }
+
+    @Test
+    public void testUnknownDependency() throws Exception {
+        File pom = writePom();
+        assertFalse(xmlHandler.alterDependency(pom, "io.crowdcode", "li", "2.0"));
+    }
 }